@@ -18,12 +18,22 @@ package org.chipselect.importer;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
 
 import org.chipselect.importer.parser.SeggerXmlParser;
 import org.chipselect.importer.parser.SystemViewDescription;
+import org.chipselect.importer.server.CachingServer;
+import org.chipselect.importer.server.CoalescingServer;
+import org.chipselect.importer.server.HedgingServer;
+import org.chipselect.importer.server.Http2RestServer;
 import org.chipselect.importer.server.HttpRestServer;
+import org.chipselect.importer.server.LimitingServer;
+import org.chipselect.importer.server.RestServer;
 import org.chipselect.importer.server.Server;
 import org.jdom2.Document;
 import org.jdom2.JDOMException;
@@ -49,6 +59,29 @@ public class ImporterMain
     private String restUrl = null;
     private String restUser = null;
     private String restPassword = null;
+    private int connectionPoolSize = 0;
+    private int keepAliveSeconds = 0;
+    private int connectTimeoutMs = HttpRestServer.DEFAULT_CONNECT_TIMEOUT_MS;
+    private int readTimeoutMs = HttpRestServer.DEFAULT_READ_TIMEOUT_MS;
+    private int maxRequestsInFlight = HttpRestServer.DEFAULT_MAX_REQUESTS_IN_FLIGHT;
+    private int numThreads = 0;
+    private boolean virtualThreads = false;
+    private ExecutorService executor = null;
+    private int numPeripheralThreads = 0;
+    private ExecutorService peripheralExecutor = null;
+    private boolean prefetch = false;
+    private boolean plan = false;
+    private int cacheSize = 0;
+    private boolean coalesce = false;
+    private boolean adaptive = false;
+    private int hedgePercentile = 0;
+    private int hedgeLimit = HedgingServer.DEFAULT_MAX_EXTRA_PERCENT;
+    private int batchSize = 1;
+    private boolean nativeMethods = false;
+    private boolean http2 = false;
+    private int compressRequestsFrom = 0;
+    private String statisticsFileName = null;
+    private RestServer restServer = null;
 
     public ImporterMain()
     {
@@ -151,6 +184,26 @@ public class ImporterMain
         System.out.println("-user <name>               : user name for REST server.");
         System.out.println("-password <password>       : password for REST server.");
         System.out.println("-dry-run                   : do not change data on the server.");
+        System.out.println("-connections <number>      : number of idle connections to keep open to the REST server.");
+        System.out.println("-keepAlive <seconds>       : close idle connections to the REST server after this time (needs Java 20 or newer, no effect on older Java versions).");
+        System.out.println("-connectTimeout <ms>       : timeout for opening a connection to the REST server.");
+        System.out.println("-readTimeout <ms>          : timeout for waiting on a response from the REST server.");
+        System.out.println("-maxInFlight <number>      : maximum number of parallel requests to the REST server.");
+        System.out.println("-nativeHTTP                : send GET, PUT and DELETE as HTTP methods instead of POST, PATCH with a X-HTTP-Method-Override header (allows caching and ETags).");
+        System.out.println("-http2                     : use HTTP/2 to talk to the REST server (-connections and -keepAlive are ignored, can not be used with -nativeHTTP).");
+        System.out.println("-gzip <bytes>              : compress requests to the REST server that have at least this many bytes.");
+        System.out.println("-statistics <file>         : write the latency, bytes and errors of the requests to the REST server as JSON into the file.");
+        System.out.println("-threads <number>          : compare the registers with the server and write the changes in parallel using this many threads.");
+        System.out.println("-virtual                   : use virtual threads (needs Java 21 or newer).");
+        System.out.println("-peripherals <number>      : handle this many peripherals at the same time.");
+        System.out.println("-prefetch                  : read the device from the REST server with parallel requests before the import.");
+        System.out.println("-plan                      : compare all peripherals first, then write all changes whose parents exist in parallel.");
+        System.out.println("-cache <number>            : keep up to this many responses of the REST server to avoid repeated requests.");
+        System.out.println("-coalesce                  : send identical requests to the REST server only once if they are issued at the same time.");
+        System.out.println("-adaptive                  : adapt the number of parallel reads and writes to the latency of the REST server (up to -maxInFlight each).");
+        System.out.println("-hedge <percentile>        : send a GET request again if it takes longer than this percentile (like 95) of the earlier ones.");
+        System.out.println("-hedgeLimit <percent>      : send at most this many percent of the GET requests again (default " + HedgingServer.DEFAULT_MAX_EXTRA_PERCENT + ").");
+        System.out.println("-batch <number>            : create up to this many registers, fields or enumeration values with one request (the REST server needs to support batch requests).");
     }
 
     public boolean parseCommandLineParameters(String[] args)
@@ -250,6 +303,152 @@ public class ImporterMain
                 {
                     dryRun = true;
                 }
+                else if(true == "-connections".equals(args[i]))
+                {
+                    i++;
+                    connectionPoolSize = parseNumberParameter(args, i);
+                    if(1 > connectionPoolSize)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-keepAlive".equals(args[i]))
+                {
+                    i++;
+                    keepAliveSeconds = parseNumberParameter(args, i);
+                    if(1 > keepAliveSeconds)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-connectTimeout".equals(args[i]))
+                {
+                    i++;
+                    connectTimeoutMs = parseNumberParameter(args, i);
+                    if(0 > connectTimeoutMs)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-readTimeout".equals(args[i]))
+                {
+                    i++;
+                    readTimeoutMs = parseNumberParameter(args, i);
+                    if(0 > readTimeoutMs)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-maxInFlight".equals(args[i]))
+                {
+                    i++;
+                    maxRequestsInFlight = parseNumberParameter(args, i);
+                    if(1 > maxRequestsInFlight)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-nativeHTTP".equals(args[i]))
+                {
+                    nativeMethods = true;
+                }
+                else if(true == "-http2".equals(args[i]))
+                {
+                    http2 = true;
+                }
+                else if(true == "-statistics".equals(args[i]))
+                {
+                    i++;
+                    if(i == args.length)
+                    {
+                        System.err.println("ERROR: missing parameter for " + args[i-1]);
+                        return false;
+                    }
+                    statisticsFileName = args[i];
+                }
+                else if(true == "-gzip".equals(args[i]))
+                {
+                    i++;
+                    compressRequestsFrom = parseNumberParameter(args, i);
+                    if(1 > compressRequestsFrom)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-threads".equals(args[i]))
+                {
+                    i++;
+                    numThreads = parseNumberParameter(args, i);
+                    if(1 > numThreads)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-peripherals".equals(args[i]))
+                {
+                    i++;
+                    numPeripheralThreads = parseNumberParameter(args, i);
+                    if(1 > numPeripheralThreads)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-virtual".equals(args[i]))
+                {
+                    virtualThreads = true;
+                }
+                else if(true == "-plan".equals(args[i]))
+                {
+                    plan = true;
+                }
+                else if(true == "-prefetch".equals(args[i]))
+                {
+                    prefetch = true;
+                }
+                else if(true == "-coalesce".equals(args[i]))
+                {
+                    coalesce = true;
+                }
+                else if(true == "-adaptive".equals(args[i]))
+                {
+                    adaptive = true;
+                }
+                else if(true == "-hedge".equals(args[i]))
+                {
+                    i++;
+                    hedgePercentile = parseNumberParameter(args, i);
+                    if((1 > hedgePercentile) || (99 < hedgePercentile))
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-hedgeLimit".equals(args[i]))
+                {
+                    i++;
+                    hedgeLimit = parseNumberParameter(args, i);
+                    if(1 > hedgeLimit)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-batch".equals(args[i]))
+                {
+                    i++;
+                    batchSize = parseNumberParameter(args, i);
+                    if(1 > batchSize)
+                    {
+                        return false;
+                    }
+                }
+                else if(true == "-cache".equals(args[i]))
+                {
+                    i++;
+                    cacheSize = parseNumberParameter(args, i);
+                    if(1 > cacheSize)
+                    {
+                        return false;
+                    }
+                }
                 else
                 {
                     System.err.println("Invalid parameter : " + args[i]);
@@ -262,9 +461,33 @@ public class ImporterMain
                 return false;
             }
         }
+        if((true == http2) && (true == nativeMethods))
+        {
+            // the HTTP/2 transport has no ETag support, so the flag would not do the same thing
+            System.err.println("ERROR: -nativeHTTP can not be used together with -http2 !");
+            return false;
+        }
         return true;
     }
 
+    private int parseNumberParameter(String[] args, int i)
+    {
+        if(i == args.length)
+        {
+            System.err.println("ERROR: missing parameter for " + args[i-1]);
+            return -1;
+        }
+        try
+        {
+            return Integer.parseInt(args[i]);
+        }
+        catch(NumberFormatException e)
+        {
+            System.err.println("ERROR: invalid number " + args[i] + " for " + args[i-1]);
+            return -1;
+        }
+    }
+
     public boolean execute()
     {
         if(true == dryRun)
@@ -276,7 +499,57 @@ public class ImporterMain
         Server chipselect = null;
         if(null != restUrl)
         {
-            chipselect = new HttpRestServer(restUrl, restUser, restPassword);
+            if(true == http2)
+            {
+                Http2RestServer srv = new Http2RestServer(restUrl, restUser, restPassword);
+                srv.setConnectTimeout(connectTimeoutMs);
+                srv.setReadTimeout(readTimeoutMs);
+                srv.setRequestCompression(compressRequestsFrom);
+                restServer = srv;
+            }
+            else
+            {
+                HttpRestServer srv = new HttpRestServer(restUrl, restUser, restPassword);
+                srv.setConnectionPoolSize(connectionPoolSize);
+                srv.setIdleTimeout(keepAliveSeconds);
+                srv.setConnectTimeout(connectTimeoutMs);
+                srv.setReadTimeout(readTimeoutMs);
+                srv.setNativeMethods(nativeMethods);
+                srv.setRequestCompression(compressRequestsFrom);
+                restServer = srv;
+            }
+            if(true == adaptive)
+            {
+                // the limiter decides, reads and writes may both reach the maximum
+                restServer.setMaxRequestsInFlight(2 * maxRequestsInFlight);
+            }
+            else
+            {
+                restServer.setMaxRequestsInFlight(maxRequestsInFlight);
+            }
+            createExecutor();
+            if((null != executor) && (true == virtualThreads))
+            {
+                // a virtual thread per request is cheaper than the pool of the server
+                restServer.setExecutor(executor);
+            }
+            chipselect = restServer;
+            if(true == adaptive)
+            {
+                chipselect = new LimitingServer(chipselect, maxRequestsInFlight);
+            }
+            if(0 < hedgePercentile)
+            {
+                chipselect = new HedgingServer(chipselect, hedgePercentile, hedgeLimit);
+            }
+            if(true == coalesce)
+            {
+                chipselect = new CoalescingServer(chipselect);
+            }
+            if(0 < cacheSize)
+            {
+                chipselect = new CachingServer(chipselect, cacheSize);
+            }
         }
         if(null == chipselect)
         {
@@ -294,91 +567,51 @@ public class ImporterMain
         // import a svd file?
         if(true == import_svd)
         {
-            Document jdomDocument = null;
+            File xf;
             if(true == "-".equals(svd_FileName))
             {
                 // read SVD from stdin
-                SAXBuilder jdomBuilder = new SAXBuilder();
+                // the SVD is read twice, so it is buffered in a file
                 log.trace("trying to open {}", svd_FileName);
                 try
                 {
-                    jdomDocument = jdomBuilder.build(System.in);
-                    SystemViewDescription parser = new SystemViewDescription(chipselect);
-                    if(null != vendor_name)
-                    {
-                        parser.setVendorName(vendor_name);
-                    }
-                    if(false == parser.parse(jdomDocument, checkVendorOnly))
-                    {
-                        return false;
-                    }
-                    done_something = true;
-                }
-                catch(JDOMException e)
-                {
-                    log.error("JDOMException occured !");
-                    log.error(e.getLocalizedMessage());
-                    jdomDocument = null;
-                    return false;
+                    xf = File.createTempFile("chipselect_", ".svd");
+                    xf.deleteOnExit();
+                    Files.copy(System.in, xf.toPath(), StandardCopyOption.REPLACE_EXISTING);
                 }
                 catch (IOException e)
                 {
                     log.error("IOException occured !");
                     log.error(e.getLocalizedMessage());
-                    jdomDocument = null;
                     return false;
                 }
             }
             else
             {
                 // SVD Files are XML
-                File xf = new File(svd_FileName);
-                if(true == xf.exists())
-                {
-                    SAXBuilder jdomBuilder = new SAXBuilder();
-                    log.trace("trying to open {}", svd_FileName);
-                    try
-                    {
-                        jdomDocument = jdomBuilder.build(svd_FileName);
-                        SystemViewDescription parser = new SystemViewDescription(chipselect);
-                        if(null != vendor_name)
-                        {
-                            parser.setVendorName(vendor_name);
-                        }
-                        if(false == parser.parse(jdomDocument, checkVendorOnly))
-                        {
-                            return false;
-                        }
-                        done_something = true;
-                    }
-                    catch(FileNotFoundException e)
-                    {
-                        e.printStackTrace();
-                        log.error("File not found: {}", svd_FileName);
-                        jdomDocument = null;
-                        return false;
-                    }
-                    catch(JDOMException e)
-                    {
-                        log.error("JDOMException occured !");
-                        log.error(e.getLocalizedMessage());
-                        jdomDocument = null;
-                        return false;
-                    }
-                    catch (IOException e)
-                    {
-                        log.error("IOException occured !");
-                        log.error(e.getLocalizedMessage());
-                        jdomDocument = null;
-                        return false;
-                    }
-                }
-                else
+                xf = new File(svd_FileName);
+                if(false == xf.exists())
                 {
                     log.error("the file {} does not exist.", svd_FileName);
                     return false;
                 }
+                log.trace("trying to open {}", svd_FileName);
+            }
+            SystemViewDescription parser = new SystemViewDescription(chipselect);
+            parser.setExecutor(executor);
+            parser.setPeripheralExecutor(peripheralExecutor, numPeripheralThreads);
+            parser.setPrefetch(prefetch);
+            parser.setPlan(plan);
+            parser.setBatchSize(batchSize);
+            if(null != vendor_name)
+            {
+                parser.setVendorName(vendor_name);
             }
+            if(false == parser.parse(xf, checkVendorOnly))
+            {
+                return false;
+            }
+            done_something = true;
         }
         if(true == import_segger)
         {
@@ -439,10 +672,64 @@ public class ImporterMain
         // import something else ?
 
         log.info(chipselect.getStatus());
+        if((null != statisticsFileName) && (null != restServer))
+        {
+            writeStatistics();
+        }
         chipselect.close();
+        if(null != executor)
+        {
+            executor.shutdown();
+        }
+        if(null != peripheralExecutor)
+        {
+            peripheralExecutor.shutdown();
+        }
         return done_something;
     }
 
+    private void writeStatistics()
+    {
+        try(FileWriter fw = new FileWriter(statisticsFileName, StandardCharsets.UTF_8))
+        {
+            fw.write(restServer.getStatistics().toJson());
+            fw.write("\n");
+        }
+        catch (IOException e)
+        {
+            log.error("could not write the statistics to {} : {}", statisticsFileName, e.toString());
+        }
+    }
+
+    private void createExecutor()
+    {
+        if(true == virtualThreads)
+        {
+            executor = Tool.newExecutor(numThreads, true);
+            if(null == executor)
+            {
+                log.warn("virtual threads are not available on Java {} !", System.getProperty("java.version"));
+                if(0 == numThreads)
+                {
+                    numThreads = Runtime.getRuntime().availableProcessors();
+                }
+            }
+        }
+        if((null == executor) && (0 < numThreads))
+        {
+            executor = Tool.newExecutor(numThreads, false);
+        }
+        if(0 < numPeripheralThreads)
+        {
+            // own threads, as the peripherals wait for the tasks on the other executor
+            peripheralExecutor = Tool.newExecutor(numPeripheralThreads, virtualThreads);
+            if(null == peripheralExecutor)
+            {
+                peripheralExecutor = Tool.newExecutor(numPeripheralThreads, false);
+            }
+        }
+    }
+
     public static void main(String[] args)
     {
         ImporterMain m = new ImporterMain();
@@ -22,9 +22,12 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.reflect.Method;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -396,6 +399,39 @@ public final class Tool
     }
 
 
+    /** creates the executor that runs the parallel parts of an import.
+     *
+     * Virtual threads are only available on Java 21 or newer. On older
+     * runtimes a pool of platform threads is used instead.
+     *
+     * @param numThreads number of platform threads.
+     * @param virtualThreads true = start a virtual thread for each task.
+     * @return the executor or null if the runtime can not provide virtual threads.
+     */
+    public static ExecutorService newExecutor(int numThreads, boolean virtualThreads)
+    {
+        if(true == virtualThreads)
+        {
+            try
+            {
+                Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) m.invoke(null);
+            }
+            catch(ReflectiveOperationException e)
+            {
+                return null;
+            }
+        }
+        else
+        {
+            return Executors.newFixedThreadPool(numThreads, r -> {
+                Thread t = new Thread(r, "Importer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
     public static long decode(String val)
     {
         if(null == val)
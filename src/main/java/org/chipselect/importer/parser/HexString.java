@@ -1,6 +1,7 @@
 package org.chipselect.importer.parser;
 
 import java.math.BigInteger;
+import java.util.Objects;
 
 public class HexString
 {
@@ -253,6 +254,19 @@ public class HexString
         return new HexString("0x" + sb.toString());
     }
 
+    /** compares two values that might not be given.
+     *
+     * @param one a value or null.
+     * @param two a value or null.
+     * @return true if both have the same value, or if both do not have a value.
+     */
+    public static boolean sameValue(HexString one, HexString two)
+    {
+        String oneVal = (null == one) ? null : one.toString();
+        String twoVal = (null == two) ? null : two.toString();
+        return Objects.equals(oneVal, twoVal);
+    }
+
     @Override
     public String toString()
     {
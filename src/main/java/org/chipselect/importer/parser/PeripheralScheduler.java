@@ -0,0 +1,159 @@
+package org.chipselect.importer.parser;
+
+import java.util.HashMap;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import org.chipselect.importer.parser.svd.SvdPeripheral;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** handles the peripherals of a device in parallel.
+ *
+ * Peripherals that are not derived do not depend on each other, so they are
+ * handled as soon as a thread is free. A derived peripheral is handled once
+ * the peripheral that it is derived from has been handled. If that failed the
+ * derived peripheral is not handled.
+ *
+ * waitForAll() reports the results in the order the peripherals have been
+ * added. So the reported errors do not depend on which peripheral finished
+ * first.
+ *
+ * Reading the SVD file is much faster than the server, so add() waits while
+ * the given number of peripherals is pending. Otherwise the whole device
+ * would pile up in the queue of the executor.
+ */
+public class PeripheralScheduler
+{
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    private final SvdPeripheralHandler handler;
+    private final ExecutorService executor;
+    /** one permit for each peripheral that may be pending */
+    private final Semaphore pending;
+    private final Vector<String> names = new Vector<String>();
+    private final Vector<CompletableFuture<Boolean>> results = new Vector<CompletableFuture<Boolean>>();
+    /** name of the peripheral -> result of handling it */
+    private final HashMap<String, CompletableFuture<Boolean>> resultOf = new HashMap<String, CompletableFuture<Boolean>>();
+
+    /**
+     *
+     * @param handler the handler that brings a peripheral to the server.
+     * @param executor the peripherals are handled on this executor. null = handle each peripheral when it is added.
+     * @param maxPending maximum number of peripherals that have been added but are not handled yet.
+     */
+    public PeripheralScheduler(SvdPeripheralHandler handler, ExecutorService executor, int maxPending)
+    {
+        this.handler = handler;
+        this.executor = executor;
+        pending = new Semaphore(Math.max(1, maxPending));
+    }
+
+    private CompletableFuture<Boolean> run(Supplier<Boolean> task)
+    {
+        if(null == executor)
+        {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /** handles the peripheral, or schedules it to be handled.
+     *
+     * @param peripheral the peripheral. A derived peripheral needs to be added after the peripheral it is derived from.
+     */
+    public void add(final SvdPeripheral peripheral)
+    {
+        String name = peripheral.getName();
+        if(null != executor)
+        {
+            // the original of a derived peripheral has been added before, so it already has a permit
+            pending.acquireUninterruptibly();
+        }
+        CompletableFuture<Boolean> res;
+        try
+        {
+            res = schedule(peripheral);
+        }
+        catch(RuntimeException e)
+        {
+            if(null != executor)
+            {
+                pending.release();
+            }
+            throw e;
+        }
+        if(null != executor)
+        {
+            res.whenComplete((ok, e) -> pending.release());
+        }
+        names.add(name);
+        results.add(res);
+        resultOf.put(name, res);
+    }
+
+    private CompletableFuture<Boolean> schedule(final SvdPeripheral peripheral)
+    {
+        String name = peripheral.getName();
+        CompletableFuture<Boolean> res;
+        if(false == peripheral.isDerived())
+        {
+            res = run(() -> handler.handle(peripheral));
+        }
+        else
+        {
+            final String original = peripheral.getDerivedFrom();
+            CompletableFuture<Boolean> originalResult = resultOf.get(original);
+            if(null == originalResult)
+            {
+                // the original is not part of this import, it might already be on the server
+                res = run(() -> handler.handleDerived(peripheral));
+            }
+            else
+            {
+                res = originalResult.handle((ok, e) -> (null == e) && (true == ok)).thenCompose(ok -> {
+                    if(false == ok)
+                    {
+                        log.error("peripheral {} is not handled, as {} failed !", name, original);
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    return run(() -> handler.handleDerived(peripheral));
+                });
+            }
+        }
+        return res;
+    }
+
+    /** waits until all peripherals have been handled.
+     *
+     * @return true = all peripherals have been handled successfully, false = at least one failed.
+     */
+    public boolean waitForAll()
+    {
+        boolean success = true;
+        for(int i = 0; i < results.size(); i++)
+        {
+            try
+            {
+                if(false == results.get(i).join())
+                {
+                    log.error("peripheral {} failed !", names.get(i));
+                    success = false;
+                }
+            }
+            catch(CompletionException e)
+            {
+                log.error("peripheral {} failed : {}", names.get(i), e.getCause().toString());
+                success = false;
+            }
+        }
+        names.clear();
+        results.clear();
+        resultOf.clear();
+        return success;
+    }
+
+}
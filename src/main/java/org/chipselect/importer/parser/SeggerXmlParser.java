@@ -189,6 +189,12 @@ public class SeggerXmlParser
     }
 
     private boolean addOrUpdateMicrocontroller(SeggerDevice dev, String Name)
+    {
+        // an other import might create the same device at the same time
+        return srv.runExclusive("microcontroller:" + Name, () -> lookupOrCreateMicrocontroller(dev, Name));
+    }
+
+    private boolean lookupOrCreateMicrocontroller(SeggerDevice dev, String Name)
     {
         // ask server
         Request req = new Request("microcontroller", Request.GET);
@@ -266,10 +272,10 @@ public class SeggerXmlParser
                 hasChanged = true;
             }
 
+            device_id = res.getInt("id");
             if(true == hasChanged)
             {
                 // update
-                device_id = res.getInt("id");
                 Request updateRequest = new Request("microcontroller", Request.PUT);
                 updateRequest.addPostParameter("id", device_id);
                 updateRequest.addPostParameter("architecture_id", srvArchitectureId);
@@ -299,19 +305,23 @@ public class SeggerXmlParser
             {
                 return false;
             }
-            device_id = res.getInt("id");
-        }
-        if(0 == device_id)
-        {
-            // we just generated the device -> ask server for the id
-            Request idRequest = new Request("microcontroller", Request.GET);
-            idRequest.addPostParameter("name", Name);
-            Response id_res = srv.execute(idRequest);
-            if(false == id_res.wasSuccessfull())
+            Response created = add_res.getCreatedEntry(addRequest);
+            if(null != created)
             {
-                return false;
+                device_id = created.getInt("id");
+            }
+            else
+            {
+                // the server did not report the new id -> ask server for the id
+                Request idRequest = new Request("microcontroller", Request.GET);
+                idRequest.addPostParameter("name", Name);
+                Response id_res = srv.execute(idRequest);
+                if(false == id_res.wasSuccessfull())
+                {
+                    return false;
+                }
+                device_id = id_res.getInt("id");
             }
-            device_id = res.getInt("id");
         }
 
         // now the server knows about that micrcontroller
@@ -323,9 +333,15 @@ public class SeggerXmlParser
     }
 
     private int getArchitectureIdFor(String architectureName)
+    {
+        final String name = Tool.cleanupString(architectureName);
+        // an other import might create the same architecture at the same time
+        return srv.runExclusive("architecture:" + name, () -> lookupOrCreateArchitecture(name));
+    }
+
+    private int lookupOrCreateArchitecture(String architectureName)
     {
         int architectureId = 0;
-        architectureName = Tool.cleanupString(architectureName);
         if(true == architectureIds.containsKey(architectureName))
         {
             // use cached value
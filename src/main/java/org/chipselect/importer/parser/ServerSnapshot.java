@@ -0,0 +1,320 @@
+package org.chipselect.importer.parser;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.chipselect.importer.server.Request;
+import org.chipselect.importer.server.Response;
+import org.chipselect.importer.server.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** copy of everything the server has on one device.
+ *
+ * The handlers read the server state one peripheral, register and field at
+ * a time. load() fetches all of that up front with parallel requests. The
+ * handlers then get their GET requests answered from the snapshot. Requests
+ * that change data are forwarded to the server and remove the affected
+ * entries from the snapshot, so that the next read gets the new state from
+ * the server.
+ */
+public class ServerSnapshot implements Server
+{
+    /** the column that the handlers use to select the entries of each resource. */
+    private static final Map<String, String> INDEX_COLUMN = new HashMap<String, String>();
+    static
+    {
+        INDEX_COLUMN.put("peripheral_instance", "dev_id");
+        INDEX_COLUMN.put("peripheral", "id");
+        INDEX_COLUMN.put("address_block", "per_id");
+        INDEX_COLUMN.put("interrupt", "per_in_id");
+        INDEX_COLUMN.put("register", "per_id");
+        INDEX_COLUMN.put("field", "reg_id");
+        INDEX_COLUMN.put("enumeration_element", "field_id");
+    }
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    private final Server srv;
+    /** resource?column=value -> server response */
+    private final ConcurrentHashMap<String, Response> entries = new ConcurrentHashMap<String, Response>();
+    /** resource#id -> key of the entry that contains this element */
+    private final ConcurrentHashMap<String, String> entryOfId = new ConcurrentHashMap<String, String>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private int prefetchRequests = 0;
+
+    public ServerSnapshot(Server srv)
+    {
+        this.srv = srv;
+    }
+
+    private static String keyFor(String resource, String column, String value)
+    {
+        return resource + "?" + column + "=" + value;
+    }
+
+    /** reads everything the server has on the device.
+     *
+     * @param srvDeviceId id of the device.
+     * @return true = success, false = error
+     */
+    public boolean load(int srvDeviceId)
+    {
+        if(0 == srvDeviceId)
+        {
+            log.error("Device ID invalid !");
+            return false;
+        }
+        Vector<String> devices = new Vector<String>();
+        devices.add("" + srvDeviceId);
+        Vector<Response> instances = fetch("peripheral_instance", devices);
+        if(null == instances)
+        {
+            return false;
+        }
+        Vector<String> instanceIds = collect(instances, "id");
+        Vector<String> peripheralIds = collect(instances, "peripheral_id");
+
+        // everything that hangs on the instances and peripherals
+        Vector<CompletableFuture<Response>> pending = new Vector<CompletableFuture<Response>>();
+        pending.addAll(fetchAsync("interrupt", instanceIds));
+        pending.addAll(fetchAsync("peripheral", peripheralIds));
+        pending.addAll(fetchAsync("address_block", peripheralIds));
+        Vector<CompletableFuture<Response>> registerRequests = fetchAsync("register", peripheralIds);
+        pending.addAll(registerRequests);
+        Vector<Response> registers = waitFor(registerRequests);
+        if(null == registers)
+        {
+            return false;
+        }
+
+        Vector<Response> fields = fetch("field", collect(registers, "id"));
+        if(null == fields)
+        {
+            return false;
+        }
+
+        // only fields that are enumerations have enumeration elements
+        Vector<String> enumFieldIds = new Vector<String>();
+        for(Response r : fields)
+        {
+            for(int i = 0; i < r.numResults(); i++)
+            {
+                if(true == "1".equals(r.getString(i, "is_Enum")))
+                {
+                    enumFieldIds.add("" + r.getInt(i, "id"));
+                }
+            }
+        }
+        Vector<Response> enums = fetch("enumeration_element", enumFieldIds);
+        if(null == enums)
+        {
+            return false;
+        }
+        if(null == waitFor(pending))
+        {
+            return false;
+        }
+        log.info("read {} entries of the device with {} requests", entryOfId.size(), prefetchRequests);
+        return true;
+    }
+
+    private Vector<String> collect(Vector<Response> responses, String column)
+    {
+        HashSet<String> found = new HashSet<String>();
+        Vector<String> res = new Vector<String>();
+        for(Response r : responses)
+        {
+            for(int i = 0; i < r.numResults(); i++)
+            {
+                int id = r.getInt(i, column);
+                if((0 != id) && (true == found.add("" + id)))
+                {
+                    res.add("" + id);
+                }
+            }
+        }
+        return res;
+    }
+
+    private Vector<Response> fetch(String resource, Vector<String> values)
+    {
+        return waitFor(fetchAsync(resource, values));
+    }
+
+    private Vector<CompletableFuture<Response>> fetchAsync(final String resource, Vector<String> values)
+    {
+        final String column = INDEX_COLUMN.get(resource);
+        Vector<CompletableFuture<Response>> res = new Vector<CompletableFuture<Response>>();
+        for(final String value : values)
+        {
+            Request req = new Request(resource, Request.GET);
+            req.addPostParameter(column, value);
+            prefetchRequests++;
+            res.add(srv.executeAsync(req).thenApply(r -> {
+                if(true == r.wasSuccessfull())
+                {
+                    store(resource, keyFor(resource, column, value), r);
+                }
+                return r;
+            }));
+        }
+        return res;
+    }
+
+    private Vector<Response> waitFor(Vector<CompletableFuture<Response>> requests)
+    {
+        Vector<Response> res = new Vector<Response>();
+        boolean success = true;
+        for(CompletableFuture<Response> f : requests)
+        {
+            Response r = f.join();
+            if(false == r.wasSuccessfull())
+            {
+                log.error("could not read the device from the server: {}", r.getFailureDescription());
+                success = false;
+            }
+            res.add(r);
+        }
+        if(false == success)
+        {
+            return null;
+        }
+        return res;
+    }
+
+    private void store(String resource, String key, Response res)
+    {
+        entries.put(key, res);
+        for(int i = 0; i < res.numResults(); i++)
+        {
+            entryOfId.put(resource + "#" + res.getInt(i, "id"), key);
+        }
+    }
+
+    private Response lookup(Request req)
+    {
+        String resource = req.getResource();
+        String column = INDEX_COLUMN.get(resource);
+        if((null == column) || (1 != req.getNumberOfParameters()))
+        {
+            return null;
+        }
+        String value = req.getParameter(column);
+        if(null == value)
+        {
+            return null;
+        }
+        return entries.get(keyFor(resource, column, value));
+    }
+
+    private void invalidate(Request req)
+    {
+        String resource = req.getResource();
+        String column = INDEX_COLUMN.get(resource);
+        if(null == column)
+        {
+            // not part of the snapshot
+            return;
+        }
+        boolean found = false;
+        String value = req.getParameter(column);
+        if(null != value)
+        {
+            entries.remove(keyFor(resource, column, value));
+            found = true;
+        }
+        String id = req.getParameter("id");
+        if(null != id)
+        {
+            String key = entryOfId.get(resource + "#" + id);
+            if(null != key)
+            {
+                entries.remove(key);
+            }
+            found = true;
+        }
+        if(false == found)
+        {
+            // no idea what changed -> forget everything on this resource
+            entries.keySet().removeIf(k -> k.startsWith(resource + "?"));
+        }
+    }
+
+    @Override
+    public Response execute(Request req)
+    {
+        if(Request.GET == req.getType())
+        {
+            Response res = lookup(req);
+            if(null != res)
+            {
+                hits.incrementAndGet();
+                return res;
+            }
+            misses.incrementAndGet();
+            return srv.execute(req);
+        }
+        else
+        {
+            invalidate(req);
+            Response res = srv.execute(req);
+            invalidate(req);
+            return res;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Response> executeAsync(Request req)
+    {
+        if(Request.GET == req.getType())
+        {
+            Response res = lookup(req);
+            if(null != res)
+            {
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(res);
+            }
+            misses.incrementAndGet();
+            return srv.executeAsync(req);
+        }
+        else
+        {
+            invalidate(req);
+            return srv.executeAsync(req).whenComplete((r, e) -> invalidate(req));
+        }
+    }
+
+    @Override
+    public <T> T runExclusive(String key, Supplier<T> action)
+    {
+        return srv.runExclusive(key, action);
+    }
+
+    @Override
+    public String getStatus()
+    {
+        return "Snapshot : " + prefetchRequests + " requests to read the device, "
+                + hits.get() + " requests answered from the snapshot, "
+                + misses.get() + " requests sent to the server\n";
+    }
+
+    @Override
+    public void enableDryRunMode()
+    {
+        srv.enableDryRunMode();
+    }
+
+    @Override
+    public void close()
+    {
+        // the server is still used by others
+    }
+
+}
@@ -0,0 +1,611 @@
+package org.chipselect.importer.parser;
+
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.chipselect.importer.Tool;
+import org.chipselect.importer.parser.svd.SvdAddressBlock;
+import org.chipselect.importer.parser.svd.SvdEnumValue;
+import org.chipselect.importer.parser.svd.SvdField;
+import org.chipselect.importer.parser.svd.SvdInterrupt;
+import org.chipselect.importer.parser.svd.SvdPeripheral;
+import org.chipselect.importer.parser.svd.SvdRegister;
+import org.chipselect.importer.server.Change;
+import org.chipselect.importer.server.ChangeSet;
+import org.chipselect.importer.server.Request;
+import org.chipselect.importer.server.Response;
+import org.chipselect.importer.server.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** compares a peripheral of the SVD with the server.
+ *
+ * Each entry of the peripheral (address block, interrupt, register, field,
+ * enumeration value) becomes a change in the change set: it needs to be
+ * created, it needs to be updated or it is already on the server as it is.
+ *
+ * The server is only read, never written. So a ServerSnapshot can answer all
+ * requests. The changes are written by ChangeSet.execute().
+ */
+public class SvdDiff
+{
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    private final Server srv;
+    private ExecutorService executor = null;
+
+    public SvdDiff(Server srv)
+    {
+        this.srv = srv;
+    }
+
+    /** the fields of the registers get compared in parallel on this executor.
+     *
+     * @param executor null = compare the fields one register after the other.
+     */
+    public void setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /** the changes for a peripheral that is not on the server.
+     *
+     * @param peripheral may not be a derived peripheral.
+     * @param srvDeviceId id of the device on the server.
+     * @param changes the changes get added to this change set.
+     * @return the change of the new peripheral instance, or null on error.
+     */
+    public Change newPeripheral(SvdPeripheral peripheral, int srvDeviceId, ChangeSet changes)
+    {
+        String groupName = peripheral.getGroupName();
+        if(null == groupName)
+        {
+            groupName = peripheral.getName(); // a group of one ;-)
+        }
+        if(1 > groupName.length())
+        {
+            log.error("group name is empty, could not create new peripheral!");
+            return null;
+        }
+        // as this is independent also create a new peripheral
+        // (first, so that the peripheral instance can be created with the peripheral_id already set)
+        Change srvPeripheral = changes.add(Change.create("peripheral", groupName, null));
+        srvPeripheral.set("group_name", groupName);
+        Change instance = srvPeripheral.addChild(newPeripheralInstance(peripheral, srvDeviceId, 0));
+        // the peripheral and the instance are new -> nothing on the server that needs to be read
+        diffAddressBlocks(peripheral.getAddressBlocks(), new Response(), srvPeripheral);
+        diffInterrupts(peripheral.getInterrupts(), new Response(), instance);
+        if(false == diffRegisters(peripheral.getRegisters(), new Response(), srvPeripheral))
+        {
+            return null;
+        }
+        return instance;
+    }
+
+    /** the changes for a derived peripheral that is not on the server.
+     *
+     * @param svdDerivedPeripheral the derived peripheral, with the values of the peripheral that it was derived from.
+     * @param srvDeviceId id of the device on the server.
+     * @param peripheralId id of the peripheral (of the original) on the server.
+     * @param changes the changes get added to this change set.
+     * @return the change of the new peripheral instance, or null on error.
+     */
+    public Change newDerivedPeripheral(SvdPeripheral svdDerivedPeripheral, int srvDeviceId, int peripheralId, ChangeSet changes)
+    {
+        Change instance = changes.add(newPeripheralInstance(svdDerivedPeripheral, srvDeviceId, peripheralId));
+        // the peripheral instance is new -> no interrupts on the server
+        diffInterrupts(svdDerivedPeripheral.getInterrupts(), new Response(), instance);
+        Change srvPeripheral = changes.add(Change.existing("peripheral", svdDerivedPeripheral.getDerivedFrom(), peripheralId));
+        if(false == diffPeripheralContent(svdDerivedPeripheral, srvPeripheral))
+        {
+            return null;
+        }
+        return instance;
+    }
+
+    /** the changes for a derived peripheral whose original is new as well.
+     *
+     * The derived peripheral has the address blocks and registers of the
+     * original, so only the peripheral instance and its interrupts are new.
+     * The instance gets the id of the new peripheral once that has been created.
+     *
+     * @param svdDerivedPeripheral the derived peripheral, with the values of the peripheral that it was derived from.
+     * @param srvDeviceId id of the device on the server.
+     * @param newPeripheral the change that creates the peripheral of the original.
+     * @param changes the changes get added to this change set.
+     * @return the change of the new peripheral instance.
+     */
+    public Change newDerivedPeripheral(SvdPeripheral svdDerivedPeripheral, int srvDeviceId, Change newPeripheral, ChangeSet changes)
+    {
+        Change instance = changes.add(newPeripheralInstance(svdDerivedPeripheral, srvDeviceId, 0));
+        instance.dependsOn(newPeripheral, "peripheral_id");
+        diffInterrupts(svdDerivedPeripheral.getInterrupts(), new Response(), instance);
+        return instance;
+    }
+
+    /** the changes for a peripheral that is on the server.
+     *
+     * @param peripheral the peripheral, derived peripherals with the values of the peripheral that it was derived from.
+     * @param srvInstance the peripheral instance on the server.
+     * @param peripheralId id of the peripheral on the server.
+     * @param changes the changes get added to this change set.
+     * @param compareContent false = the address blocks and registers are compared with the original peripheral.
+     * @return true = success, false = error
+     */
+    public boolean updatePeripheral(SvdPeripheral peripheral, Response srvInstance, int peripheralId, ChangeSet changes, boolean compareContent)
+    {
+        int instanceId = srvInstance.getInt("id");
+        if(0 == instanceId)
+        {
+            log.error("Peripheral ID on server is invalid !");
+            return false;
+        }
+        // name - already handled
+        Change instance = changes.add(Change.existing("peripheral_instance", peripheral.getName(), instanceId));
+
+        // description
+        String svdDescription = peripheral.getDescription();
+        if(null != svdDescription)
+        {
+            String srvValue = Tool.cleanupString(srvInstance.getString("description"));
+            if(false == svdDescription.equals(srvValue))
+            {
+                log.debug(Tool.reportDifferences(srvValue, svdDescription));
+                instance.change("description", srvValue, svdDescription);
+            }
+        }
+        // else value not present -> OK
+
+        // disableCondition
+        String svdDisableCondition = peripheral.getDisableCondition();
+        if(null != svdDisableCondition)
+        {
+            String srvValue = srvInstance.getString("disable_Condition");
+            if(false == svdDisableCondition.equals(srvValue))
+            {
+                instance.change("disable_Condition", srvValue, svdDisableCondition);
+            }
+        }
+        // else value not present -> OK
+
+        // baseAddress
+        HexString svdBaseAddress = peripheral.getBaseAddress();
+        HexString srvBaseAddress = new HexString(srvInstance.getString("base_address"));
+        if((false == svdBaseAddress.equals(srvBaseAddress)) && (0 != svdBaseAddress.toLong()))
+        {
+            instance.change("base_address", srvBaseAddress.toString(), svdBaseAddress.toString());
+        }
+
+        // peripheral
+        if(0 == peripheralId)
+        {
+            log.error("Peripheral ID invalid !");
+            return false;
+        }
+        Response srvPeripheralRes = read("peripheral", "id", peripheralId);
+        if(null == srvPeripheralRes)
+        {
+            log.error("could not read peripheral information from server!");
+            return false;
+        }
+        // groupName
+        String svdGroupName = peripheral.getGroupName();
+        String srvGroupName = srvPeripheralRes.getString("group_name");
+        if((null != svdGroupName) && (0 < svdGroupName.length()) && (false == svdGroupName.equals(srvGroupName)))
+        {
+            log.debug("group name changed from :{}: to :{}: !", srvGroupName, svdGroupName);
+            log.error("update group name - not implemented!");
+            return false;
+        }
+        // else matches or no group name given -> OK
+
+        // interrupt
+        if(false == peripheral.getInterrupts().isEmpty())
+        {
+            Response srvInterrupts = read("interrupt", "per_in_id", instanceId);
+            if(null == srvInterrupts)
+            {
+                return false;
+            }
+            diffInterrupts(peripheral.getInterrupts(), srvInterrupts, instance);
+        }
+
+        Change srvPeripheral = changes.add(Change.existing("peripheral", srvGroupName, peripheralId));
+        if(false == compareContent)
+        {
+            return true;
+        }
+        return diffPeripheralContent(peripheral, srvPeripheral);
+    }
+
+    private Change newPeripheralInstance(SvdPeripheral peripheral, int srvDeviceId, int peripheralId)
+    {
+        String name = peripheral.getName();
+        Change instance = Change.create("peripheral_instance", name, "peripheral_id");
+        instance.set("name", name);
+        instance.set("description", peripheral.getDescription());
+        instance.set("base_address", peripheral.getBaseAddress().toString());
+        if(0 != peripheralId)
+        {
+            instance.set("peripheral_id", peripheralId);
+        }
+        // else the peripheral is new -> the id is known once it has been created
+        instance.set("disable_condition", peripheral.getDisableCondition());
+        instance.set("dev_id", srvDeviceId);
+        return instance;
+    }
+
+    /** the address blocks and registers of a peripheral that is on the server. */
+    private boolean diffPeripheralContent(SvdPeripheral peripheral, Change srvPeripheral)
+    {
+        int peripheralId = srvPeripheral.getId();
+        if(0 == peripheralId)
+        {
+            log.error("Peripheral ID invalid !");
+            return false;
+        }
+        if(false == peripheral.getAddressBlocks().isEmpty())
+        {
+            Response srvAddressBlocks = read("address_block", "per_id", peripheralId);
+            if(null == srvAddressBlocks)
+            {
+                return false;
+            }
+            diffAddressBlocks(peripheral.getAddressBlocks(), srvAddressBlocks, srvPeripheral);
+        }
+        if(null != peripheral.getRegisters())
+        {
+            Response srvRegisters = read("register", "per_id", peripheralId);
+            if(null == srvRegisters)
+            {
+                return false;
+            }
+            return diffRegisters(peripheral.getRegisters(), srvRegisters, srvPeripheral);
+        }
+        return true;
+    }
+
+    private Response read(String resource, String column, int id)
+    {
+        Request req = new Request(resource, Request.GET);
+        req.addPostParameter(column, id);
+        Response res = srv.execute(req);
+        if(false == res.wasSuccessfull())
+        {
+            log.error("could not read the {} with {} = {} from the server", resource, column, id);
+            return null;
+        }
+        return res;
+    }
+
+    /** a value that is not given in the SVD (null or empty) does not change the value on the server. */
+    private static void compare(Change c, String column, String srvValue, String value)
+    {
+        if((null != value) && (false == "".equals(value)) && (false == value.equals(srvValue)))
+        {
+            c.change(column, srvValue, value);
+        }
+    }
+
+    /** "0" is not different to "0x00". */
+    private static void compare(Change c, String column, String srvValue, HexString value)
+    {
+        if((null != value) && (null != value.toString()) && (false == value.equals(srvValue)))
+        {
+            c.change(column, srvValue, value.toString());
+        }
+    }
+
+    private void diffAddressBlocks(List<SvdAddressBlock> addressBlocks, Response res, Change srvPeripheral)
+    {
+        for(SvdAddressBlock svdAddressBlock : addressBlocks)
+        {
+            HexString offset = svdAddressBlock.getOffset();
+            HexString size = svdAddressBlock.getSize();
+            String usage = svdAddressBlock.getUsage();
+            // the model already has the default protection if the address block has none
+            String protection = svdAddressBlock.getProtection();
+
+            Change block = null;
+            for(int i : res.getIndexesFor("address_offset", (int)offset.toLong()))
+            {
+                int srvId = res.getInt(i, "id");
+                if((true == offset.equals(res.getInt(i, "address_offset"))) && (0 != srvId))
+                {
+                    block = Change.existing("address_block", offset.toString(), srvId);
+                    compare(block, "size", res.getString(i, "size"), size);
+                    String srvUsage = res.getString(i, "mem_usage");
+                    if((null != usage) && (false == usage.equals(srvUsage)))
+                    {
+                        block.change("mem_usage", srvUsage, usage);
+                    }
+                    String srvProtection = res.getString(i, "protection");
+                    if((null != protection) && (false == protection.equals(srvProtection)))
+                    {
+                        block.change("protection", srvProtection, protection);
+                    }
+                    break;
+                }
+                // else this is not the address block we are looking for -> keep looking
+            }
+            if(null == block)
+            {
+                block = Change.create("address_block", offset.toString(), "per_id");
+                block.set("address_offset", offset.toString());
+                block.set("size", size.toString());
+                block.set("mem_usage", usage);
+                block.set("protection", protection);
+            }
+            srvPeripheral.addChild(block);
+        }
+    }
+
+    private void diffInterrupts(List<SvdInterrupt> interrupts, Response res, Change instance)
+    {
+        for(SvdInterrupt svdInterrupt : interrupts)
+        {
+            String irqName = svdInterrupt.getName();
+            String description = svdInterrupt.getDescription();
+            long number = svdInterrupt.getNumber();
+            log.trace("checking Interrupt {}", irqName);
+
+            Change irq;
+            int i = res.getIndexFor("name", irqName);
+            if(-1 < i)
+            {
+                irq = Change.existing("interrupt", irqName, res.getInt(i, "id"));
+                String srvDescription = res.getString(i, "description");
+                if((null != description) && (false == description.equals(srvDescription)))
+                {
+                    irq.change("description", srvDescription, description);
+                }
+                long srvNumber = res.getLong(i, "number");
+                if((number != -1) && (srvNumber != number))
+                {
+                    irq.change("number", srvNumber, number);
+                }
+            }
+            else
+            {
+                irq = Change.create("interrupt", irqName, "per_in_id");
+                irq.set("name", irqName);
+                irq.set("description", description);
+                irq.set("number", number);
+            }
+            instance.addChild(irq);
+        }
+    }
+
+    /**
+     *
+     * @param registers the registers of the peripheral from the SVD, null = the SVD has no registers element.
+     * @param res the registers of the peripheral on the server.
+     * @param srvPeripheral the peripheral.
+     * @return true = success, false = error
+     */
+    private boolean diffRegisters(List<SvdRegister> registers, Response res, Change srvPeripheral)
+    {
+        if(null == registers)
+        {
+            return true;
+        }
+        boolean success = true;
+        Vector<Future<Boolean>> pendingFields = new Vector<Future<Boolean>>();
+        for(SvdRegister register : registers)
+        {
+            String name = register.getName();
+            if(null == name)
+            {
+                log.error("Register does not have a name !");
+                success = false;
+                break;
+            }
+            log.trace("checking register {}", name);
+            final Change reg;
+            int i = res.getIndexFor("name", name);
+            if(-1 < i)
+            {
+                reg = Change.existing("register", name, res.getInt(i, "id"));
+                compare(reg, "display_name", res.getString(i, "display_name"), register.getDisplayName());
+                compare(reg, "description", res.getString(i, "description"), register.getDescription());
+                compare(reg, "address_offset", res.getString(i, "address_offset"), register.getAddressOffset());
+                long srvSize = res.getInt(i, "size");
+                if((register.getSize() != -1) && (register.getSize() != srvSize))
+                {
+                    reg.change("size", srvSize, register.getSize());
+                }
+                compare(reg, "access", res.getString(i, "access"), register.getAccess());
+                compare(reg, "reset_value", res.getString(i, "reset_value"), register.getResetValue());
+                compare(reg, "alternate_register", res.getString(i, "alternate_register"), register.getAlternateRegister());
+                compare(reg, "alternate_group", res.getString(i, "alternate_group"), register.getAlternateGroup());
+                compare(reg, "reset_mask", res.getString(i, "reset_mask"), register.getResetMask());
+                compare(reg, "read_action", res.getString(i, "read_action"), register.getReadAction());
+                compare(reg, "modified_write_values", res.getString(i, "modified_write_values"), register.getModifiedWriteValues());
+                compare(reg, "data_type", res.getString(i, "data_type"), register.getDataType());
+            }
+            else
+            {
+                reg = newRegister(register);
+            }
+            srvPeripheral.addChild(reg);
+
+            final List<SvdField> fields = register.getFields();
+            if(null == fields)
+            {
+                // no fields in this register :-(
+                continue;
+            }
+            if(Change.CREATE == reg.getType())
+            {
+                // a new register does not have fields on the server yet
+                diffFields(fields, new Response(), reg);
+            }
+            else if(null != executor)
+            {
+                pendingFields.add(executor.submit(() -> diffFields(fields, read("field", "reg_id", reg.getId()), reg)));
+            }
+            else if(false == diffFields(fields, read("field", "reg_id", reg.getId()), reg))
+            {
+                success = false;
+                break;
+            }
+        }
+        for(Future<Boolean> f : pendingFields)
+        {
+            try
+            {
+                if(false == f.get())
+                {
+                    success = false;
+                }
+            }
+            catch(InterruptedException | ExecutionException e)
+            {
+                log.error("comparing the fields failed: {}", e.toString());
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    private Change newRegister(SvdRegister register)
+    {
+        Change reg = Change.create("register", register.getName(), "per_id");
+        reg.set("name", register.getName());
+        reg.set("display_name", register.getDisplayName());
+        reg.set("description", register.getDescription());
+        reg.set("address_offset", register.getAddressOffset().toString());
+        reg.set("size", register.getSize());
+        reg.set("access", register.getAccess());
+        reg.set("reset_value", register.getResetValue().toString());
+        reg.set("alternative_register", register.getAlternateRegister());
+        reg.set("reset_mask", register.getResetMask().toString());
+        reg.set("read_action", register.getReadAction());
+        reg.set("modified_write_values", register.getModifiedWriteValues());
+        reg.set("data_type", register.getDataType());
+        reg.set("alternate_group", register.getAlternateGroup());
+        return reg;
+    }
+
+    /**
+     *
+     * @param fields the fields of the register from the SVD.
+     * @param res the fields of that register on the server, null = could not be read.
+     * @param reg the register.
+     * @return true = success, false = error
+     */
+    private boolean diffFields(List<SvdField> fields, Response res, Change reg)
+    {
+        if(null == res)
+        {
+            return false;
+        }
+        for(SvdField field : fields)
+        {
+            String name = field.getName();
+            log.trace("checking field {}", name);
+            Change f;
+            int i = res.getIndexFor("name", name);
+            if(-1 < i)
+            {
+                f = Change.existing("field", name, res.getInt(i, "id"));
+                compare(f, "description", res.getString(i, "description"), field.getDescription());
+                int srvBitOffset = res.getInt(i, "bit_offset");
+                if((field.getBitOffset() != -1) && (field.getBitOffset() != srvBitOffset))
+                {
+                    f.change("bit_offset", srvBitOffset, field.getBitOffset());
+                }
+                int srvSizeBit = res.getInt(i, "size_bit");
+                if((field.getSizeBit() != -1) && (field.getSizeBit() != srvSizeBit))
+                {
+                    f.change("size_bit", srvSizeBit, field.getSizeBit());
+                }
+                compare(f, "access", res.getString(i, "access"), field.getAccess());
+                compare(f, "modified_write_values", res.getString(i, "modified_write_values"), field.getModifiedWriteValues());
+                compare(f, "read_action", res.getString(i, "read_action"), field.getReadAction());
+                String srvIsEnum = res.getString(i, "is_Enum");
+                String isEnum = (true == field.isEnum()) ? "1" : "0";
+                if(false == isEnum.equals(srvIsEnum))
+                {
+                    f.change("is_Enum", srvIsEnum, isEnum);
+                }
+                compare(f, "enum_name", res.getString(i, "enum_name"), field.getEnumName());
+                compare(f, "enum_usage_right", res.getString(i, "enum_usage_right"), field.getEnumUsageRight());
+            }
+            else
+            {
+                f = Change.create("field", name, "reg_id");
+                f.set("name", name);
+                f.set("description", field.getDescription());
+                f.set("bit_offset", field.getBitOffset());
+                f.set("size_bit", field.getSizeBit());
+                f.set("access", field.getAccess());
+                f.set("modified_write_values", field.getModifiedWriteValues());
+                f.set("read_action", field.getReadAction());
+                f.set("is_Enum", (true == field.isEnum()) ? 1 : 0);
+                f.set("enum_name", field.getEnumName());
+                f.set("enum_usage_right", field.getEnumUsageRight());
+            }
+            reg.addChild(f);
+
+            // field handled, -> enumeration values?
+            List<SvdEnumValue> values = field.getEnumValues();
+            if((true == field.isEnum()) && (0 < values.size()))
+            {
+                // a new field does not have enumeration values on the server
+                Response srvValues = (Change.CREATE == f.getType()) ? new Response() : read("enumeration_element", "field_id", f.getId());
+                if(null == srvValues)
+                {
+                    return false;
+                }
+                diffEnumeration(values, srvValues, f);
+            }
+        }
+        return true;
+    }
+
+    private void diffEnumeration(List<SvdEnumValue> values, Response res, Change field)
+    {
+        for(SvdEnumValue value : values)
+        {
+            String svdName = value.getName();
+            String svdDescription = value.getDescription();
+            String svdValue = value.getValue();
+            String svdIsDefault = (true == value.isDefault()) ? "1" : "0";
+            Change e;
+            int i = res.getIndexFor("name", svdName);
+            if(-1 < i)
+            {
+                e = Change.existing("enumeration_element", svdName, res.getInt(i, "id"));
+                // values that are not in the SVD are ignored
+                String srvDescription = res.getString(i, "description");
+                if((null != svdDescription) && (false == svdDescription.equals(srvDescription)))
+                {
+                    e.change("description", srvDescription, svdDescription);
+                }
+                String srvValue = res.getString(i, "value");
+                if((null != svdValue) && (false == svdValue.equals(srvValue)))
+                {
+                    e.change("value", srvValue, svdValue);
+                }
+                String srvIsDefault = "" + res.getInt(i, "isDefault");
+                if(false == svdIsDefault.equals(srvIsDefault))
+                {
+                    e.change("isDefault", srvIsDefault, svdIsDefault);
+                }
+            }
+            else
+            {
+                e = Change.create("enumeration_element", svdName, "field_id");
+                e.set("name", svdName);
+                e.set("description", svdDescription);
+                e.set("value", svdValue);
+                e.set("isDefault", svdIsDefault);
+            }
+            field.addChild(e);
+        }
+    }
+
+}
@@ -1,62 +1,93 @@
 package org.chipselect.importer.parser;
 
-import java.util.List;
-
-import org.chipselect.importer.Tool;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+
+import org.chipselect.importer.parser.svd.SvdPeripheral;
+import org.chipselect.importer.server.Change;
+import org.chipselect.importer.server.ChangeSet;
+import org.chipselect.importer.server.ImportPlan;
 import org.chipselect.importer.server.Request;
 import org.chipselect.importer.server.Response;
 import org.chipselect.importer.server.Server;
-import org.jdom2.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/** brings the peripherals on the server to the state of the SVD.
+ *
+ * SvdDiff compares each peripheral with the server, then the changes are
+ * written to the server.
+ *
+ * With an import plan the changes of all peripherals are collected first and
+ * then written together by writePlan().
+ */
 public class SvdPeripheralHandler
 {
     private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
     private final Server srv;
-    private final SvdAddressBlockHandler addressBlockHandler;
-    private final SvdInterruptHandler interruptHandler;
-    private final SvdRegisterHandler registerHandler;
+    private final SvdDiff diff;
+    private ExecutorService executor = null;
+    private int batchSize = 1;
     private Response srvAllPeripherals = null;
     private int srvDeviceId = 0;
-
-    public SvdPeripheralHandler(Server srv)
+    private ImportPlan plan = null;
+    /** name -> peripheral in the plan */
+    private final HashMap<String, PlannedPeripheral> planned = new HashMap<String, PlannedPeripheral>();
+    /** derived peripherals that can only be compared after the plan has been written */
+    private final Vector<SvdPeripheral> deferred = new Vector<SvdPeripheral>();
+
+    /** a peripheral whose changes are in the plan. */
+    private static class PlannedPeripheral
     {
-        this.srv = srv;
-        addressBlockHandler = new SvdAddressBlockHandler(srv);
-        interruptHandler = new SvdInterruptHandler(srv);
-        registerHandler = new SvdRegisterHandler(srv);
-    }
+        final SvdPeripheral peripheral;
+        /** the peripheral on the server, or the change that creates it */
+        final Change srvPeripheral;
+        /** the change that creates the peripheral instance, null if the instance is on the server */
+        final Change instance;
 
-    public void setDefaultSize(String default_size)
-    {
-    	if(null != default_size)
-    	{
-    		addressBlockHandler.setDefaultSize(default_size);
-    		int size = Integer.decode(default_size);
-    		registerHandler.setDefaultSize(size);
-    	}
-    	// else -> why bother with null?
+        PlannedPeripheral(SvdPeripheral peripheral, Change srvPeripheral, Change instance)
+        {
+            this.peripheral = peripheral;
+            this.srvPeripheral = srvPeripheral;
+            this.instance = instance;
+        }
     }
 
-    public void setDefaultAccess(String default_access)
+    public SvdPeripheralHandler(Server srv)
     {
-        registerHandler.setDefaultAccess(default_access);
+        this.srv = srv;
+        diff = new SvdDiff(srv);
     }
 
-    public void setDefaultResetValue(String default_resetValue)
+    /** the fields of the registers get compared, and the changes get written, in parallel.
+     *
+     * @param executor null = one after the other.
+     */
+    public void setExecutor(ExecutorService executor)
     {
-        registerHandler.setDefaultResetValue(default_resetValue);
+        this.executor = executor;
+        diff.setExecutor(executor);
     }
 
-    public void setDefaultResetMask(String default_resetMask)
+    /** create new entries with one request for up to batchSize entries.
+     *
+     * @param batchSize maximum number of entries in a request. 1 = one request for each entry.
+     */
+    public void setBatchSize(int batchSize)
     {
-        registerHandler.setDefaultResetMask(default_resetMask);
+        this.batchSize = batchSize;
     }
 
-    public void setDefaultProtection(String default_protection)
+    /** collect the changes of all peripherals, instead of writing each peripheral.
+     *
+     * @param plan the plan, null = write the changes of each peripheral when it has been compared.
+     */
+    public void setPlan(ImportPlan plan)
     {
-        addressBlockHandler.setDefaultProtection(default_protection);
+        this.plan = plan;
     }
 
     /**
@@ -64,1221 +95,349 @@ public class SvdPeripheralHandler
      * @param peripheral may not be a derived peripheral
      * @return true = success, false = error
      */
-    public boolean handle(Element peripheral)
+    public boolean handle(SvdPeripheral peripheral)
     {
-        String name = peripheral.getChildText("name");
+        String name = peripheral.getName();
         log.trace("Peripheral: {}", name);
-        // check if format is valid
-        if(false == checkIfValidPeripheral(peripheral))
-        {
-            return false;
-        }
-        int srvIdx = getPeripheralSrvIndexFor(name);
-        if(0 > srvIdx)
+        ChangeSet changes = new ChangeSet();
+        Response srvInstance = getPeripheralFromList(name);
+        if(null == srvInstance)
         {
             // new peripheral
             log.info("creating new peripheral {}", name);
-            return createPeripheralInstanceFrom(peripheral);
+            Change instance = diff.newPeripheral(peripheral, srvDeviceId, changes);
+            if(null == instance)
+            {
+                return false;
+            }
+            if(null != plan)
+            {
+                addPlanned(name, new PlannedPeripheral(peripheral, changes.getChanges().get(0), instance));
+            }
+            return write(peripheral, changes, instance);
         }
         else
         {
             // this peripheral is by definition not derived !
-            log.info("updating peripheral ", name);
-            return updateIndependentPeripheral(srvIdx, peripheral);
+            log.info("updating peripheral {}", name);
+            int peripheralId = srvInstance.getInt("peripheral_id");
+            if(false == diff.updatePeripheral(peripheral, srvInstance, peripheralId, changes, true))
+            {
+                return false;
+            }
+            if(null != plan)
+            {
+                addPlanned(name, new PlannedPeripheral(peripheral, getPeripheralChange(changes), null));
+            }
+            return write(peripheral, changes, null);
         }
     }
 
     /**
      *
-     * @param svdDerivedPeripheral the derived peripheral
-     * @param svdOriginalPeripheral the peripheral that it was derived from
+     * @param svdDerivedPeripheral the derived peripheral, with the values of the peripheral that it was derived from.
      * @return true = success, false = error
      */
-    public boolean handleDerived(Element svdDerivedPeripheral, Element svdOriginalPeripheral)
+    public boolean handleDerived(SvdPeripheral svdDerivedPeripheral)
     {
-        String name = svdDerivedPeripheral.getChildText("name");
+        String name = svdDerivedPeripheral.getName();
         log.trace("Peripheral: {}", name);
-        int srvIdx = getPeripheralSrvIndexFor(name);
-        if(0 > srvIdx)
-        {
-            // new peripheral
-            log.trace("creating new derived peripheral {}", name);
-            log.info("creating new derived peripheral {}", name);
-            return createPeripheralInstanceFromDerived(svdDerivedPeripheral, svdOriginalPeripheral);
-        }
-        else
+        String originalName = svdDerivedPeripheral.getDerivedFrom();
+        // the original is in the plan -> its changes also change the derived peripheral
+        PlannedPeripheral original = null;
+        if(null != plan)
         {
-            // check if format is valid
-            if(false == checkIfValidPeripheral(svdDerivedPeripheral))
+            original = getPlanned(originalName);
+            if((null != original) && (false == hasSameContent(svdDerivedPeripheral, original.peripheral)))
             {
-                return false;
+                original = null;
+            }
+            if(null == original)
+            {
+                // the original needs to be written before the derived peripheral can be compared
+                log.debug("peripheral {} is handled after the plan has been written", name);
+                synchronized(deferred)
+                {
+                    deferred.add(svdDerivedPeripheral);
+                }
+                return true;
             }
-            // this peripheral is derived by definition !
-            log.info("updating derived peripheral {}", name);
-            return updateDerivedPeripheral(srvIdx, svdDerivedPeripheral, svdOriginalPeripheral);
-        }
-    }
-
-    public boolean getAllPeripheralInstancesFromServer(int srvDeviceId)
-    {
-        if(0 == srvDeviceId)
-        {
-            srvAllPeripherals = null;
-            log.error("no device id given");
-            return false;
-        }
-        this.srvDeviceId = srvDeviceId;
-        if(0 == srvDeviceId)
-        {
-            log.error("Device ID invalid !");
-            return false;
         }
-        Request req = new Request("peripheral_instance", Request.GET);
-        req.addPostParameter("dev_id", srvDeviceId);
-        Response res = srv.execute(req);
-        if(false == res.wasSuccessfull())
+        Response srvOriginal = getPeripheralFromList(originalName);
+        if((null == srvOriginal) && (null == original))
         {
-            srvAllPeripherals = null;
-            log.error("could not read the peripherals from the server");
+            log.error("Server does not have the original peripheral {}!", originalName);
+            log.error("Server has these peripherals: {}", getPeripheralNames());
             return false;
         }
-        srvAllPeripherals = res;
-        return true;
-    }
-
-    private Response getPeripheralFromServer(int peripheralId)
-    {
-        if(0 == peripheralId)
-        {
-            log.error("Peripheral ID invalid !");
-            return null;
-        }
-        Request req = new Request("peripheral", Request.GET);
-        req.addPostParameter("id", peripheralId);
-        Response res = srv.execute(req);
-        if(false == res.wasSuccessfull())
+        ChangeSet changes = new ChangeSet();
+        Response srvInstance = getPeripheralFromList(name);
+        if(null == srvInstance)
         {
-            log.error("could not read the fields from the server");
-            return null;
+            // new peripheral
+            log.info("creating new derived peripheral {}", name);
+            if(null != original)
+            {
+                Change instance = diff.newDerivedPeripheral(svdDerivedPeripheral, srvDeviceId, original.srvPeripheral, changes);
+                addPlanned(name, new PlannedPeripheral(svdDerivedPeripheral, original.srvPeripheral, instance));
+                return write(svdDerivedPeripheral, changes, instance);
+            }
+            int peripheralId = srvOriginal.getInt("peripheral_id");
+            if(0 == peripheralId)
+            {
+                log.error("No Peripheral ID for {}", name);
+                log.error(srvOriginal.dump(0));
+                return false;
+            }
+            Change instance = diff.newDerivedPeripheral(svdDerivedPeripheral, srvDeviceId, peripheralId, changes);
+            if(null == instance)
+            {
+                return false;
+            }
+            return write(svdDerivedPeripheral, changes, instance);
         }
         else
         {
-            return res;
-        }
-    }
-
-    private int getPeripheralSrvIndexFor(String name)
-    {
-        for(int i = 0; i < srvAllPeripherals.numResults(); i++)
-        {
-            String svdName = srvAllPeripherals.getString(i, "name");
-            if(false == svdName.equals(name))
+            // this peripheral is derived by definition !
+            log.info("updating derived peripheral {}", name);
+            int peripheralId = srvInstance.getInt("peripheral_id");
+            if((0 == peripheralId) && (null != srvOriginal))
+            {
+                peripheralId = srvOriginal.getInt("peripheral_id");
+            }
+            if(0 == peripheralId)
+            {
+                // peripheral not on server -> create new peripheral
+                log.error(srvInstance.dump(0));
+                if(null != srvOriginal)
+                {
+                    log.error(srvOriginal.dump(0));
+                }
+                log.error("no peripheral - not implemented!");
+                return false;
+            }
+            if(false == diff.updatePeripheral(svdDerivedPeripheral, srvInstance, peripheralId, changes, null == original))
             {
-                // log.trace("Name mismatch: {} - {}", svdName, name);
-                continue;
+                return false;
             }
-            else
+            if(null != original)
             {
-                return i;
+                addPlanned(name, new PlannedPeripheral(svdDerivedPeripheral, original.srvPeripheral, null));
             }
+            return write(svdDerivedPeripheral, changes, null);
         }
-        // not found
-        return -1;
     }
 
-    private boolean checkIfValidPeripheral(Element peripheral)
+    private static Change getPeripheralChange(ChangeSet changes)
     {
-        // check for unknown children
-        List<Element> children = peripheral.getChildren();
-        for(Element child : children)
+        for(Change c : changes.getChanges())
         {
-            String name = child.getName();
-            switch(name)
+            if(true == "peripheral".equals(c.getResource()))
             {
-            // all defined child types from SVD standard
-            // compare to: https://arm-software.github.io/CMSIS_5/develop/SVD/html/elem_device.html
-            case "access":
-            case "addressBlock":
-            case "alternatePeripheral":
-            case "appendToName":
-            case "baseAddress":
-            case "description":
-            case "dim":
-            case "dimIncrement":
-            case "dimIndex":
-            case "dimName":
-            case "dimArrayIndex":
-            case "disableCondition":
-            case "groupName":
-            case "headerStructName":
-            case "interrupt":
-            case "name":
-            case "prependToName":
-            case "protection":
-            case "registers":
-            case "resetValue":
-            case "resetMask":
-            case "size":
-            case "version":
-                continue;
-
-            default:
-                // undefined child found. This is not a valid SVD file !
-                log.error("Unknown peripheral child tag: {}", name);
-                return false;
+                return c;
             }
         }
-        return true;
+        return null;
     }
 
-    private boolean updateIndependentPeripheral(int idx, Element peripheral)
+    /** compares the content of a derived peripheral with the content of its original.
+     *
+     * The model classes compare by value, so a derived peripheral that declares the same
+     * registers again has the same content as its original.
+     */
+    private static boolean hasSameContent(SvdPeripheral derived, SvdPeripheral original)
     {
-        // name - already handled
-        // ignoring  <version></version>
+        return (true == derived.getAddressBlocks().equals(original.getAddressBlocks()))
+                && (true == Objects.equals(derived.getRegisters(), original.getRegisters()))
+                && (true == derived.getClusters().equals(original.getClusters()));
+    }
 
-        if(null !=  peripheral.getChildText("dim"))
-        {
-            log.error("dim not implemented!(={})", peripheral.getChildText("dim"));
-            return false;
-        }
-        if(null !=  peripheral.getChildText("dimIncrement"))
-        {
-            log.error("dimIncrement not implemented!(={})", peripheral.getChildText("dimIncrement"));
-            return false;
-        }
-        if(null !=  peripheral.getChildText("dimIndex"))
-        {
-            log.error("dimIndex not implemented!(={})", peripheral.getChildText("dimIndex"));
-            return false;
-        }
-        if(null !=  peripheral.getChildText("dimName"))
-        {
-            log.error("dimName not implemented!(={})", peripheral.getChildText("dimName"));
-            return false;
-        }
-        if(null !=  peripheral.getChildText("dimArrayIndex"))
-        {
-            log.error("dimArrayIndex not implemented!(={})",peripheral.getChildText("dimArrayIndex") );
-            return false;
-        }
-        /* only available if address blocks of this peripheral are also used by another peripheral.
-         * So basically only a warning that the address conflict is intentional.
-         -> no need to store this.
-        if(null !=  peripheral.getChildText("alternatePeripheral"))
-        {
-            log.error("alternatePeripheral not implemented!(={})");
-            return false;
-        }*/
+    private synchronized void addPlanned(String name, PlannedPeripheral p)
+    {
+        planned.put(name, p);
+    }
 
-        /* used by TI to give all UART0 Registers the prefix UART0,...
-        we already know if a register named CR is part of UART0 or UART1.
-       -> No need to store this! Enjoy shorter names ! ;-)
-        if(null !=  peripheral.getChildText("prependToName"))
-        {
-            log.error("prependToName not implemented!(={})", peripheral.getChildText("prependToName"));
-            return false;
-        } */
-        if(null !=  peripheral.getChildText("appendToName"))
-        {
-            log.error("appendToName not implemented!(={})",  peripheral.getChildText("appendToName"));
-            return false;
-        }
-        /* used by Cmsemicon
-         * -> ignore for now
-        if(null !=  peripheral.getChildText("headerStructName"))
-        {
-            log.error("headerStructName not implemented!(={})", peripheral.getChildText("headerStructName"));
-            return false;
-        }*/
+    private synchronized PlannedPeripheral getPlanned(String name)
+    {
+        return planned.get(name);
+    }
 
-        // description
-        String svdDescriptionValue = peripheral.getChildText("description");
-        if(null == svdDescriptionValue)
-        {
-            // value not present -> OK
-        }
-        else
+    /** writes the changes of all peripherals to the server.
+     *
+     * Then the derived peripherals that had to wait for their original get handled.
+     *
+     * @return true = success, false = error
+     */
+    public boolean writePlan()
+    {
+        if(null == plan)
         {
-            svdDescriptionValue = Tool.cleanupString(svdDescriptionValue);
-            String srvValue = srvAllPeripherals.getString(idx, "description");
-            srvValue = Tool.cleanupString(srvValue);
-            if(false == svdDescriptionValue.equals(srvValue))
-            {
-                log.warn("update needed for {} from :{}: to :{}:!", "description", srvValue, svdDescriptionValue);
-                log.warn(Tool.reportDifferences( srvValue, svdDescriptionValue));
-                int id = srvAllPeripherals.getInt(idx, "id");
-                if(0 == id)
-                {
-                    log.error("Peripheral ID on server is invalid !");
-                    return false;
-                }
-
-                if(false == updateServerPeripheralInstance(
-                        id,
-                        null,
-                        svdDescriptionValue,
-                        null,
-                        0,
-                        null ))
-                {
-                    log.error("update description failed!");
-                    return false;
-                }
-            }
-            // else value is the same so no update needed -> OK
+            return true;
         }
-
-        // disableCondition
-        // String checkIfUpdateNeeded(int idx, int origIdx, Element peripheral, String svdName, String serverName)
-        String svdValue = peripheral.getChildText("disableCondition");
-        if(null == svdValue)
+        boolean success = true;
+        if(true == plan.isEmpty())
         {
-            // value not present -> OK
+            log.debug("the peripherals are unchanged");
         }
         else
         {
-            svdValue = Tool.cleanupString(svdValue);
-            String srvValue = srvAllPeripherals.getString(idx, "disable_Condition");
-            if(false == svdValue.equals(srvValue))
-            {
-                log.debug("update needed for {} from :{}: to :{}:!", "disableCondition", srvValue, svdValue);
-                int id = srvAllPeripherals.getInt(idx, "id");
-                if(0 == id)
-                {
-                    log.error("Peripheral ID on server is invalid !");
-                    return false;
-                }
-
-                if(false == updateServerPeripheralInstance(
-                        id,
-                        null,
-                        null,
-                        null,
-                        0,
-                        svdValue ))
-                {
-                    log.error("update disableCondition failed!");
-                    return false;
-                }
-            }
-            // else value is the same so no update needed -> OK
+            log.debug("changes of the peripherals :\n{}", plan);
+            success = plan.execute(srv, batchSize);
+            log.info(plan.getStatus());
         }
-
-        // baseAddress
-        HexString strBaseAddress = new HexString(peripheral.getChildText("baseAddress"));
-        HexString strSrvBaseAddress = new HexString(srvAllPeripherals.getString(idx, "base_address"));
-        if(false == strBaseAddress.equals(strSrvBaseAddress))
+        for(PlannedPeripheral p : planned.values())
         {
-            if(0 != strBaseAddress.toLong())
+            if((null != p.instance) && (0 != p.instance.getId()))
             {
-                log.debug("update needed for {} from :{}: to :{}:!", "baseAddress", strSrvBaseAddress, strBaseAddress);
-                int id = srvAllPeripherals.getInt(idx, "id");
-                if(0 == id)
-                {
-                    log.error("Peripheral ID on server is invalid !");
-                    return false;
-                }
-
-                if(false == updateServerPeripheralInstance(
-                        id,
-                        null,
-                        null,
-                        strBaseAddress.toString(),
-                        0,
-                        null ))
+                if(false == addToPeripheralList(p.instance, p.peripheral))
                 {
-                    log.error("update disableCondition failed!");
-                    return false;
+                    success = false;
                 }
             }
         }
-
-        // peripheral
-        int peripheralInstanceId = srvAllPeripherals.getInt(idx, "id");
-        int peripheralId = srvAllPeripherals.getInt(idx, "peripheral_id");
-        if(0 == peripheralInstanceId)
-        {
-            // peripheral not on server -> create new peripheral
-            return createPeripheralInstanceFrom(peripheral);
-        }
-        Response srvPeripheral = getPeripheralFromServer(peripheralId);
-        if(null == srvPeripheral)
-        {
-            log.error("could not read peripheral information from server!");
-            return false;
-        }
-        // groupName
-        String svdGroupName = peripheral.getChildText("groupName");
-        if(null != svdGroupName)
+        planned.clear();
+        // the originals are on the server now
+        plan = null;
+        for(SvdPeripheral p : deferred)
         {
-            if(0 < svdGroupName.length())
+            if(false == handleDerived(p))
             {
-                String srvGroupName = srvPeripheral.getString("group_name");
-                if(false == svdGroupName.equals(srvGroupName))
-                {
-                    log.debug("group name changed from :{}: to :{}: !", srvGroupName, svdGroupName);
-                    log.error("update group name - not implemented!");
-                    return false;
-                }
+                log.error("peripheral {} failed !", p.getName());
+                success = false;
             }
         }
+        deferred.clear();
+        return success;
+    }
 
-        // size
-        String svdSize = peripheral.getChildText("size");
-        if(null != svdSize)
-        {
-            setDefaultSize(svdSize);
-        }
-        // access
-        String svdAccess = peripheral.getChildText("access");
-        if(null != svdAccess)
-        {
-            setDefaultAccess(svdAccess);
-        }
-        // protection
-        String svdProtection = peripheral.getChildText("protection");
-        if(null != svdProtection)
-        {
-            setDefaultProtection(svdProtection);
-        }
-        // resetValue
-        String svdResetValue = peripheral.getChildText("resetValue");
-        if(null != svdResetValue)
-        {
-            setDefaultResetValue(svdResetValue);
-        }
-        // resetMask
-        String svdResetMask = peripheral.getChildText("resetMask");
-        if(null != svdResetMask)
-        {
-            setDefaultResetMask(svdResetMask);
-        }
-
-        // addressBlock
-        if(false == addressBlockHandler.updateAddressBlock(peripheral, peripheralId))
+    public synchronized boolean getAllPeripheralInstancesFromServer(int srvDeviceId)
+    {
+        if(0 == srvDeviceId)
         {
+            srvAllPeripherals = null;
+            log.error("no device id given");
             return false;
         }
-
-        // interrupt
-        if(false == interruptHandler.updateInterrupt(peripheral, peripheralInstanceId))
+        this.srvDeviceId = srvDeviceId;
+        if(0 == srvDeviceId)
         {
+            log.error("Device ID invalid !");
             return false;
         }
-
-        // registers
-        if(false == registerHandler.updateRegister(peripheral, peripheralId))
+        Request req = new Request("peripheral_instance", Request.GET);
+        req.addPostParameter("dev_id", srvDeviceId);
+        Response res = srv.execute(req);
+        if(false == res.wasSuccessfull())
         {
+            srvAllPeripherals = null;
+            log.error("could not read the peripherals from the server");
             return false;
         }
-
-        // all done
+        srvAllPeripherals = res;
         return true;
     }
 
-    private boolean updateDerivedPeripheral(int srvIdx, Element svdDerivedPeripheral, Element svdOriginalPeripheral)
+    /** adds a peripheral instance that has been created on the server to the local list.
+     *
+     * This avoids reading the complete list from the server again.
+     * Use getAllPeripheralInstancesFromServer() to read the list from the server.
+     */
+    /** adds the written instance of a peripheral to the list of peripherals.
+     *
+     * @param instance the change that wrote the peripheral instance.
+     * @param peripheral the peripheral.
+     * @return true = success, false = the instance has no valid peripheral id.
+     */
+    private boolean addToPeripheralList(Change instance, SvdPeripheral peripheral)
     {
-        // name - already handled
-        // ignoring  <version></version>
-        String OriginalName = svdOriginalPeripheral.getChildText("name");
-        int OriginalsrvIdx = getPeripheralSrvIndexFor(OriginalName);
-        if(0 > OriginalsrvIdx)
+        String peripheralId = instance.getValue("peripheral_id");
+        if((null == peripheralId) || (false == peripheralId.matches("[0-9]{1,9}")))
         {
-            log.error("Server does not have the original peripheral ({})!", OriginalName);
+            log.error("invalid peripheral id '{}' for peripheral {} !", peripheralId, peripheral.getName());
             return false;
         }
+        addToPeripheralList(
+                instance.getId(),
+                peripheral.getName(),
+                peripheral.getDescription(),
+                peripheral.getBaseAddress().toString(),
+                Integer.parseInt(peripheralId),
+                peripheral.getDisableCondition());
+        return true;
+    }
 
-        if(null !=  svdDerivedPeripheral.getChildText("dim"))
-        {
-            log.error("dim not implemented!(={})", svdDerivedPeripheral.getChildText("dim"));
-            return false;
-        }
-        if(null !=  svdDerivedPeripheral.getChildText("dimIncrement"))
-        {
-            log.error("dimIncrement not implemented!(={})", svdDerivedPeripheral.getChildText("dimIncrement"));
-            return false;
-        }
-        if(null !=  svdDerivedPeripheral.getChildText("dimIndex"))
-        {
-            log.error("dimIndex not implemented!(={})", svdDerivedPeripheral.getChildText("dimIndex"));
-            return false;
-        }
-        if(null !=  svdDerivedPeripheral.getChildText("dimName"))
-        {
-            log.error("dimName not implemented!(={})", svdDerivedPeripheral.getChildText("dimName"));
-            return false;
-        }
-        if(null !=  svdDerivedPeripheral.getChildText("dimArrayIndex"))
-        {
-            log.error("dimArrayIndex not implemented!(={})", svdDerivedPeripheral.getChildText("dimArrayIndex"));
-            return false;
-        }
-        /* only available if address blocks of this peripheral are also used by another peripheral.
-         * So basically only a warning that the address conflict is intentional.
-         -> no need to store this.
-        if(null !=  svdDerivedPeripheral.getChildText("alternatePeripheral"))
-        {
-            log.error("alternatePeripheral not implemented!(={})", svdDerivedPeripheral.getChildText("alternatePeripheral"));
-            return false;
-        }
-        */
+    private synchronized void addToPeripheralList(
+            int id,
+            String name,
+            String description,
+            String base_address,
+            int peripheral_id,
+            String disable_Condition )
+    {
+        LinkedHashMap<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("id", id);
+        values.put("name", name);
+        values.put("description", description);
+        values.put("base_address", base_address);
+        values.put("peripheral_id", peripheral_id);
+        values.put("disable_Condition", disable_Condition);
+        values.put("dev_id", srvDeviceId);
+        srvAllPeripherals.addResult(values);
+    }
 
-        /* used by TI to give all UART0 Registers the prefix UART0,...
-        we already know if a register named CR is part of UART0 or UART1.
-       -> No need to store this! Enjoy shorter names ! ;-)
-        if(null !=  svdDerivedPeripheral.getChildText("prependToName"))
-        {
-            log.error("prependToName not implemented!(={})", svdDerivedPeripheral.getChildText("prependToName"));
-            return false;
-        } */
-        if(null !=  svdDerivedPeripheral.getChildText("appendToName"))
+    /** the peripheral instance on the server.
+     *
+     * Peripherals are handled in parallel, so all access to the list of peripherals is synchronized.
+     *
+     * @param name name of the peripheral instance.
+     * @return the entry of that instance, or null if the server does not have it.
+     */
+    private synchronized Response getPeripheralFromList(String name)
+    {
+        int idx = srvAllPeripherals.getIndexFor("name", name);
+        if(0 > idx)
         {
-            log.error("appendToName not implemented!(={})", svdDerivedPeripheral.getChildText("appendToName"));
-            return false;
+            return null;
         }
-        /*  used by Cmsemicon
-         * -> ignore for now
-        if(null !=  svdDerivedPeripheral.getChildText("headerStructName"))
-        {
-            log.error("headerStructName not implemented!(={})", svdDerivedPeripheral.getChildText("headerStructName"));
-            return false;
-        }*/
+        return srvAllPeripherals.getResult(idx);
+    }
 
-        // description
-        String svdDescriptionValue = svdDerivedPeripheral.getChildText("description");
-        if(null == svdDescriptionValue)
+    private synchronized String getPeripheralNames()
+    {
+        return srvAllPeripherals.dumpAllNames();
+    }
+
+    /** writes the changes of a peripheral to the server.
+     *
+     * @param peripheral the peripheral.
+     * @param changes the changes of that peripheral.
+     * @param instance the change of the new peripheral instance, null = the instance is already on the server.
+     * @return true = success, false = error
+     */
+    private boolean write(SvdPeripheral peripheral, ChangeSet changes, Change instance)
+    {
+        if(null != plan)
         {
-            svdDescriptionValue = svdOriginalPeripheral.getChildText("description");
+            plan.add(changes);
+            return true;
         }
-        if(null == svdDescriptionValue)
+        if(true == changes.isEmpty())
         {
-            // value not present -> OK
+            log.debug("peripheral {} is unchanged", peripheral.getName());
+            return true;
         }
-        else
+        log.debug("changes of peripheral {} :\n{}", peripheral.getName(), changes);
+        boolean success = changes.execute(srv, batchSize, null != executor);
+        log.info(changes.getStatus());
+        if((null != instance) && (0 != instance.getId()))
         {
-            svdDescriptionValue = Tool.cleanupString(svdDescriptionValue);
-            String srvValue = srvAllPeripherals.getString(srvIdx, "description");
-            srvValue = Tool.cleanupString(srvValue);
-            if(false == svdDescriptionValue.equals(srvValue))
+            // we might need this peripheral if some other is derived from it -> add it to the list of peripherals
+            if(false == addToPeripheralList(instance, peripheral))
             {
-                log.debug("update needed for {} from :{}: to :{}:!", "description", srvValue, svdDescriptionValue);
-
-                int id = srvAllPeripherals.getInt(srvIdx, "id");
-                if(0 == id)
-                {
-                    log.error("Peripheral ID on server is invalid !");
-                    return false;
-                }
-
-                if(false == updateServerPeripheralInstance(
-                        id,
-                        null,
-                        svdDescriptionValue,
-                        null,
-                        0,
-                        null ))
-                {
-                    log.error("update description failed!");
-                    return false;
-                }
-            }
-            // else value is the same so no update needed -> OK
-        }
-
-        // disableCondition
-        // private String checkIfUpdateNeeded(int idx, int origIdx, Element peripheral, String svdName, String serverName)
-        String svdValue = svdDerivedPeripheral.getChildText("disableCondition");
-        if(null == svdValue)
-        {
-            svdValue = svdOriginalPeripheral.getChildText("disableCondition");
-        }
-        if(null == svdValue)
-        {
-            // value not present -> OK
-        }
-        else
-        {
-            svdValue = Tool.cleanupString(svdValue);
-            String srvValue = srvAllPeripherals.getString(srvIdx, "disable_Condition");
-            if(false == svdValue.equals(srvValue))
-            {
-                log.debug("update needed for {} from :{}: to :{}:!", "disableCondition", srvValue, svdValue);
-                int id = srvAllPeripherals.getInt(srvIdx, "id");
-                if(0 == id)
-                {
-                    log.error("Peripheral ID on server is invalid !");
-                    return false;
-                }
-
-                if(false == updateServerPeripheralInstance(
-                        id,
-                        null,
-                        null,
-                        null,
-                        0,
-                        svdValue ))
-                {
-                    log.error("update disableCondition failed!");
-                    return false;
-                }
-            }
-            // else value is the same so no update needed -> OK
-        }
-
-        // baseAddress
-        HexString strBaseAddress = new HexString(svdDerivedPeripheral.getChildText("baseAddress"));
-        HexString strSrvBaseAddress =  new HexString(srvAllPeripherals.getString(srvIdx, "base_address"));
-        if(false == strBaseAddress.equals(strSrvBaseAddress))
-        {
-            if(null != strBaseAddress.toString())
-            {
-                log.debug("update needed for {} from :{}: to :{}:!", "baseAddress", strSrvBaseAddress, strBaseAddress);
-                int id = srvAllPeripherals.getInt(srvIdx, "id");
-                if(0 == id)
-                {
-                    log.error("Peripheral ID on server is invalid !");
-                    return false;
-                }
-
-                if(false == updateServerPeripheralInstance(
-                        id,
-                        null,
-                        null,
-                        strBaseAddress.toString(),
-                        0,
-                        null ))
-                {
-                    log.error("update disableCondition failed!");
-                    return false;
-                }
-            }
-        }
-
-        // peripheral
-        int peripheralId = srvAllPeripherals.getInt(srvIdx, "peripheral_id");
-        if(0 == peripheralId)
-        {
-            peripheralId = srvAllPeripherals.getInt(OriginalsrvIdx, "peripheral_id");
-        }
-        if(0 == peripheralId)
-        {
-            // peripheral not on server -> create new peripheral
-            log.error(srvAllPeripherals.dump(srvIdx));
-            log.error(srvAllPeripherals.dump(OriginalsrvIdx));
-            log.error("no peripheral - not implemented!");
-            return false;
-        }
-        Response srvPeripheral = getPeripheralFromServer(peripheralId);
-        if(null == srvPeripheral)
-        {
-            log.error("could not read peripheral information from server!");
-            return false;
-        }
-
-        // groupName
-        String svdGroupName = svdDerivedPeripheral.getChildText("groupName");
-        if(null == svdGroupName)
-        {
-            svdGroupName = svdOriginalPeripheral.getChildText("groupName");
-        }
-        if(null != svdGroupName)
-        {
-            if(1 > svdGroupName.length())
-            {
-                svdGroupName = svdOriginalPeripheral.getChildText("groupName");
-            }
-            if(0 < svdGroupName.length())
-            {
-                String srvGroupName = srvPeripheral.getString("group_name");
-                if(false == svdGroupName.equals(srvGroupName))
-                {
-                    log.debug("group name changed from :{}: to :{}: !", srvGroupName, svdGroupName);
-                    log.error("update group name - not implemented!");
-                    return false;
-                }
-                // else matches -> no change necessary
-            }
-            // else no group name given -> OK
-        }
-        // else no group name given -> OK
-
-        // size
-        String svdSize = svdDerivedPeripheral.getChildText("size");
-        if(null != svdSize)
-        {
-            setDefaultSize(svdSize);
-        }
-        // access
-        String svdAccess = svdDerivedPeripheral.getChildText("access");
-        if(null != svdAccess)
-        {
-            setDefaultAccess(svdAccess);
-        }
-        // protection
-        String svdProtection = svdDerivedPeripheral.getChildText("protection");
-        if(null != svdProtection)
-        {
-            setDefaultProtection(svdProtection);
-        }
-        // resetValue
-        String svdResetValue = svdDerivedPeripheral.getChildText("resetValue");
-        if(null != svdResetValue)
-        {
-            setDefaultResetValue(svdResetValue);
-        }
-        // resetMask
-        String svdResetMask = svdDerivedPeripheral.getChildText("resetMask");
-        if(null != svdResetMask)
-        {
-            setDefaultResetMask(svdResetMask);
-        }
-
-        // "per_in_id" == srvIdx
-        // peripheralId = peripheralId
-        // addressBlock
-        if(false == addressBlockHandler.updateDerivedAddressBlock(svdDerivedPeripheral, svdOriginalPeripheral, peripheralId)) // peripheral
-        {
-            return false;
-        }
-
-        // interrupt
-        if(false == interruptHandler.updateDerivedInterrupt(svdDerivedPeripheral, svdOriginalPeripheral, srvIdx))// peripheralInstance
-        {
-            return false;
-        }
-
-        // registers
-        if(false == registerHandler.updateDerivedRegister(svdDerivedPeripheral, svdOriginalPeripheral, peripheralId))// peripheral
-        {
-            return false;
-        }
-
-        // all done
-        return true;
-    }
-
-    private boolean createPeripheralInstanceFrom(Element peripheral)
-    {
-        // name
-        String svdName = peripheral.getChildText("name");
-        log.trace("creating new independend peripheral for {}", svdName);
-        // ignoring  <version></version>
-
-        if(null !=  peripheral.getChildText("dim"))
-        {
-            log.error("dim not implemented!(={})", peripheral.getChildText("dim"));
-            return false;
-        }
-        if(null !=  peripheral.getChildText("dimIncrement"))
-        {
-            log.error("dimIncrement not implemented!(={})", peripheral.getChildText("dimIncrement"));
-            return false;
-        }
-        if(null !=  peripheral.getChildText("dimIndex"))
-        {
-            log.error("dimIndex not implemented!(={})", peripheral.getChildText("dimIndex"));
-            return false;
-        }
-        if(null !=  peripheral.getChildText("dimName"))
-        {
-            log.error("dimName not implemented!(={})", peripheral.getChildText("dimName"));
-            return false;
-        }
-        if(null !=  peripheral.getChildText("dimArrayIndex"))
-        {
-            log.error("dimArrayIndex not implemented!(={})", peripheral.getChildText("dimArrayIndex"));
-            return false;
-        }
-        /* only available if address blocks of this peripheral are also used by another peripheral.
-         * So basically only a warning that the address conflict is intentional.
-         -> no need to store this.
-        if(null !=  peripheral.getChildText("alternatePeripheral"))
-        {
-            log.error("alternatePeripheral not implemented!(={})", peripheral.getChildText("alternatePeripheral"));
-            return false;
-        }*/
-
-        /* used by TI to give all UART0 Registers the prefix UART0,...
-          we already know if a register named CR is part of UART0 or UART1.
-         -> No need to store this! Enjoy shorter names ! ;-)
-        if(null !=  peripheral.getChildText("prependToName"))
-        {
-            log.error("prependToName not implemented!(={})",  peripheral.getChildText("prependToName"));
-            return false;
-        }*/
-        if(null !=  peripheral.getChildText("appendToName"))
-        {
-            log.error("appendToName not implemented!(={})", peripheral.getChildText("appendToName"));
-            return false;
-        }
-        /*  used by Cmsemicon
-         * -> ignore for now
-        if(null !=  peripheral.getChildText("headerStructName"))
-        {
-            log.error("headerStructName not implemented!(={})", peripheral.getChildText("headerStructName"));
-            return false;
-        }*/
-
-        // description
-        String svdDescriptionValue = peripheral.getChildText("description");
-        if(null == svdDescriptionValue)
-        {
-            // value not present -> OK
-        }
-        else
-        {
-            svdDescriptionValue = Tool.cleanupString(svdDescriptionValue);
-        }
-
-        // disableCondition
-        // String checkIfUpdateNeeded(int idx, int origIdx, Element peripheral, String svdName, String serverName)
-        String svdDisableCondition = peripheral.getChildText("disableCondition");
-        if(null == svdDisableCondition)
-        {
-            // value not present -> OK
-        }
-        else
-        {
-            svdDisableCondition = Tool.cleanupString(svdDisableCondition);
-        }
-
-        // baseAddress
-        String strBaseAddress = peripheral.getChildText("baseAddress");
-
-        // groupName
-        String svdGroupName = peripheral.getChildText("groupName");
-
-        // size
-        String svdSize = peripheral.getChildText("size");
-        if(null != svdSize)
-        {
-            setDefaultSize(svdSize);
-        }
-        // access
-        String svdAccess = peripheral.getChildText("access");
-        if(null != svdAccess)
-        {
-            setDefaultAccess(svdAccess);
-        }
-        // protection
-        String svdProtection = peripheral.getChildText("protection");
-        if(null != svdProtection)
-        {
-            setDefaultProtection(svdProtection);
-        }
-        // resetValue
-        String svdResetValue = peripheral.getChildText("resetValue");
-        if(null != svdResetValue)
-        {
-            setDefaultResetValue(svdResetValue);
-        }
-        // resetMask
-        String svdResetMask = peripheral.getChildText("resetMask");
-        if(null != svdResetMask)
-        {
-            setDefaultResetMask(svdResetMask);
-        }
-
-        // now all data is available so generate the peripheral Instance.
-        int peripheralInstanceId =  postNewPeripheralInstanceToServer(
-                svdName,// name,
-                svdDescriptionValue, // description,
-                strBaseAddress, // base_address,
-                0, // peripheral_id,
-                svdDisableCondition// disable_condition
-                );
-        if(0 == peripheralInstanceId)
-        {
-            // post failed :-(
-            log.error("could not create new peripheral Instance on the server!");
-            return false;
-        }
-        // as this is independent also create a new peripheral
-        if(null == svdGroupName)
-        {
-            svdGroupName = svdName; // a group of one ;-)
-        }
-        int peripheralId =  postNewPeripheralToServer(svdGroupName);
-        if(0 == peripheralId)
-        {
-            // post failed :-(
-            log.error("could not create new peripheral on the server!");
-            return false;
-        }
-        if(false == updateServerPeripheralInstance(
-                peripheralInstanceId, // id
-                null,  // name
-                null, // description
-                null, //base_address
-                peripheralId,
-                null // disable_condition
-                ))
-        {
-            log.error("could not add the peripherl_id to the newly created peripheral_instance!");
-            return false;
-        }
-
-
-        // addressBlock
-        if(false == addressBlockHandler.updateAddressBlock(peripheral, peripheralId))
-        {
-            return false;
-        }
-
-        // interrupt
-        if(false == interruptHandler.updateInterrupt(peripheral, peripheralInstanceId))
-        {
-            return false;
-        }
-
-        // registers
-        if(false == registerHandler.updateRegister(peripheral, peripheralId))
-        {
-            return false;
-        }
-
-        // we might need this peripheral if some other is derived from it -> update the list of peripherals from the server
-        if(false == getAllPeripheralInstancesFromServer(srvDeviceId))
-        {
-            log.error("Could not read device peripherals from sever");
-            return false;
-        }
-        // all done
-        return true;
-
-    }
-
-    private int postNewPeripheralToServer(String group_name)
-    {
-        if(null == group_name)
-        {
-            log.warn("group name is NULL !");
-            return 0;
-        }
-        if(1 > group_name.length())
-        {
-            log.warn("group name is empty !");
-            return 0;
-        }
-        Request req = new Request("peripheral", Request.POST);
-        req.addPostParameter("group_name", group_name);
-        Response res = srv.execute(req);
-        if(false == res.wasSuccessfull())
-        {
-            return 0;
-        }
-        else
-        {
-            return res.getInt("id");
-        }
-    }
-
-    private int postNewPeripheralInstanceToServer(
-            String name,
-            String description,
-            String base_address,
-            int peripheral_id,
-            String disable_condition )
-    {
-        Request req = new Request("peripheral_instance", Request.POST);
-        if(null != name)
-        {
-            req.addPostParameter("name", name);
-        }
-        if(null != description)
-        {
-            req.addPostParameter("description", description);
-        }
-        if(null != base_address)
-        {
-            req.addPostParameter("base_address", base_address);
-        }
-        req.addPostParameter("peripheral_id", peripheral_id);
-        if(null != disable_condition)
-        {
-            req.addPostParameter("disable_condition", disable_condition);
-        }
-        req.addPostParameter("dev_id", srvDeviceId);
-        Response res = srv.execute(req);
-        if(false == res.wasSuccessfull())
-        {
-            return 0;
-        }
-        else
-        {
-            return res.getInt("id");
-        }
-    }
-
-    private boolean updateServerPeripheralInstance(
-            int id,
-            String name,
-            String description,
-            String base_address,
-            int peripheral_id,
-            String disable_Condition )
-    {
-        Request req = new Request("peripheral_instance", Request.PUT);
-        req.addPostParameter("id", id);
-        if(null != name)
-        {
-            req.addPostParameter("name", name);
-        }
-        if(null != description)
-        {
-            req.addPostParameter("description", description);
-        }
-        if(null != base_address)
-        {
-            req.addPostParameter("base_address", base_address);
-        }
-        if(0 != peripheral_id)
-        {
-            req.addPostParameter("peripheral_id", peripheral_id);
-        }
-        if(null != disable_Condition)
-        {
-            req.addPostParameter("disable_Condition", disable_Condition);
-        }
-        Response res = srv.execute(req);
-        if(false == res.wasSuccessfull())
-        {
-            log.error("could not update the peripheral instance on the server");
-            return false;
-        }
-        else
-        {
-            return true;
-        }
-    }
-
-    private boolean createPeripheralInstanceFromDerived(Element svdDerivedPeripheral, Element svdOriginalPeripheral)
-    {
-        // name
-        String svdName = svdDerivedPeripheral.getChildText("name");
-        // ignoring  <version></version>
-
-        if(null !=  svdDerivedPeripheral.getChildText("dim"))
-        {
-            log.error("dim not implemented!(={})", svdDerivedPeripheral.getChildText("dim"));
-            return false;
-        }
-        if(null !=  svdDerivedPeripheral.getChildText("dimIncrement"))
-        {
-            log.error("dimIncrement not implemented!(={})", svdDerivedPeripheral.getChildText("dimIncrement"));
-            return false;
-        }
-        if(null !=  svdDerivedPeripheral.getChildText("dimIndex"))
-        {
-            log.error("dimIndex not implemented!(={})", svdDerivedPeripheral.getChildText("dimIndex"));
-            return false;
-        }
-        if(null !=  svdDerivedPeripheral.getChildText("dimName"))
-        {
-            log.error("dimName not implemented!(={})", svdDerivedPeripheral.getChildText("dimName"));
-            return false;
-        }
-        if(null !=  svdDerivedPeripheral.getChildText("dimArrayIndex"))
-        {
-            log.error("dimArrayIndex not implemented!(={})", svdDerivedPeripheral.getChildText("dimArrayIndex"));
-            return false;
-        }
-        /* only available if address blocks of this peripheral are also used by another peripheral.
-         * So basically only a warning that the address conflict is intentional.
-         -> no need to store this.
-        if(null !=  svdDerivedPeripheral.getChildText("alternatePeripheral"))
-        {
-            log.error("alternatePeripheral not implemented!(={})", svdDerivedPeripheral.getChildText("alternatePeripheral"));
-            return false;
-        }*/
-
-        /* used by TI to give all UART0 Registers the prefix UART0,...
-           we already know if a register named CR is part of UART0 or UART1.
-           -> No need to store this! Enjoy shorter names ! ;-)
-        if(null !=  peripheral.getChildText("prependToName"))
-        {
-            log.error("prependToName not implemented!(={})", peripheral.getChildText("prependToName"));
-            return false;
-        }*/
-        if(null !=  svdDerivedPeripheral.getChildText("appendToName"))
-        {
-            log.error("appendToName not implemented!(={})", svdDerivedPeripheral.getChildText("appendToName"));
-            return false;
-        }
-        /* used by Cmsemicon
-         * -> ignore for now
-        if(null !=  svdDerivedPeripheral.getChildText("headerStructName"))
-        {
-            log.error("headerStructName not implemented!(={})", svdDerivedPeripheral.getChildText("headerStructName"));
-            return false;
-        }*/
-
-        // description
-        String svdDescriptionValue = svdDerivedPeripheral.getChildText("description");
-        if(null == svdDescriptionValue)
-        {
-            svdDescriptionValue = svdOriginalPeripheral.getChildText("description");
-        }
-        if(null == svdDescriptionValue)
-        {
-            // value not present -> OK
-        }
-        else
-        {
-            svdDescriptionValue = Tool.cleanupString(svdDescriptionValue);
-        }
-
-        // disableCondition
-        String svdDisableCondition = svdDerivedPeripheral.getChildText("disableCondition");
-        if(null == svdDisableCondition)
-        {
-            svdDisableCondition = svdOriginalPeripheral.getChildText("disableCondition");
-        }
-        if(null == svdDisableCondition)
-        {
-            // value not present -> OK
-        }
-        else
-        {
-            svdDisableCondition = Tool.cleanupString(svdDisableCondition);
-        }
-
-        // baseAddress
-        String strBaseAddress = svdDerivedPeripheral.getChildText("baseAddress");
-        if(null == strBaseAddress)
-        {
-            strBaseAddress = svdOriginalPeripheral.getChildText("baseAddress");
-        }
-
-        // groupName
-        String svdGroupName = svdDerivedPeripheral.getChildText("groupName");
-        if(null == svdGroupName)
-        {
-            svdGroupName = svdOriginalPeripheral.getChildText("groupName");
-        }
-
-        // size
-        String svdSize = svdDerivedPeripheral.getChildText("size");
-        if(null != svdSize)
-        {
-            svdSize = svdOriginalPeripheral.getChildText("size");
-        }
-        if(null != svdSize)
-        {
-            setDefaultSize(svdSize);
-        }
-
-        // access
-        String svdAccess = svdDerivedPeripheral.getChildText("access");
-        if(null != svdAccess)
-        {
-            svdAccess = svdOriginalPeripheral.getChildText("access");
-        }
-        if(null != svdAccess)
-        {
-            setDefaultAccess(svdAccess);
-        }
-
-        // protection
-        String svdProtection = svdDerivedPeripheral.getChildText("protection");
-        if(null != svdProtection)
-        {
-            svdProtection = svdOriginalPeripheral.getChildText("protection");
-        }
-        if(null != svdProtection)
-        {
-            setDefaultProtection(svdProtection);
-        }
-
-        // resetValue
-        String svdResetValue = svdDerivedPeripheral.getChildText("resetValue");
-        if(null != svdResetValue)
-        {
-            svdResetValue = svdOriginalPeripheral.getChildText("resetValue");
-        }
-        if(null != svdResetValue)
-        {
-            setDefaultResetValue(svdResetValue);
-        }
-
-        // resetMask
-        String svdResetMask = svdDerivedPeripheral.getChildText("resetMask");
-        if(null != svdResetMask)
-        {
-            svdResetMask = svdOriginalPeripheral.getChildText("resetMask");
-        }
-        if(null != svdResetMask)
-        {
-            setDefaultResetMask(svdResetMask);
-        }
-
-        int peripheralId = 0;
-        int srvOrigIdx = getPeripheralSrvIndexFor(svdOriginalPeripheral.getChildText("name"));
-        if(0 > srvOrigIdx)
-        {
-            log.error("Server does not have the original peripheral {}!", svdOriginalPeripheral.getChildText("name"));
-            log.error("Server has these peripherals: {}", srvAllPeripherals.dumpAllNames());
-            return false;
-        }
-        peripheralId = srvAllPeripherals.getInt(srvOrigIdx, "peripheral_id");
-        if(0 == peripheralId)
-        {
-            log.error("No Peripheral ID for {}", svdName);
-            log.error(srvAllPeripherals.dump(srvOrigIdx));
-            int srvDerivedIdx = getPeripheralSrvIndexFor(svdDerivedPeripheral.getChildText("name"));
-            if(0 > srvDerivedIdx)
-            {
-                log.error("Server does not have the derived peripheral !");
                 return false;
             }
-            log.error(srvAllPeripherals.dump(srvDerivedIdx));
-            return false;
-        }
-
-        // now all data is available so generate the peripheral Instance.
-        int peripheralInstanceId =  postNewPeripheralInstanceToServer(
-                svdName,// name,
-                svdDescriptionValue, // description,
-                strBaseAddress, // base_address,
-                peripheralId, // peripheral_id,
-                svdDisableCondition// disable_condition
-                );
-        if(0 == peripheralInstanceId)
-        {
-            // post failed :-(
-            log.error("could not create new derived peripheral Instance on the server!");
-            return false;
         }
-
-
-        // addressBlock
-        if(false == addressBlockHandler.updateDerivedAddressBlock(svdDerivedPeripheral, svdOriginalPeripheral, peripheralId))
-        {
-            return false;
-        }
-
-        // interrupt
-        if(false == interruptHandler.updateDerivedInterrupt(svdDerivedPeripheral, svdOriginalPeripheral, peripheralInstanceId))
-        {
-            return false;
-        }
-
-        // registers
-        if(false == registerHandler.updateDerivedRegister(svdDerivedPeripheral, svdOriginalPeripheral, peripheralId))
-        {
-            return false;
-        }
-
-        // we might need this peripheral if some other is derived from it -> update the list of peripherals from the server
-        if(false == getAllPeripheralInstancesFromServer(srvDeviceId))
-        {
-            log.error("Could not read device peripherals from sever");
-            return false;
-        }
-
-        // all done
-        return true;
-
+        return success;
     }
 
 }
@@ -1,13 +1,26 @@
 package org.chipselect.importer.parser;
 
-import java.util.HashMap;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.Vector;
-
-import org.chipselect.importer.Tool;
+import java.util.concurrent.ExecutorService;
+
+import org.chipselect.importer.parser.svd.SvdCpu;
+import org.chipselect.importer.parser.svd.SvdDevice;
+import org.chipselect.importer.parser.svd.SvdModelBuilder;
+import org.chipselect.importer.parser.svd.SvdPeripheral;
+import org.chipselect.importer.parser.svd.SvdStreamReader;
+import org.chipselect.importer.server.ImportPlan;
 import org.chipselect.importer.server.Request;
 import org.chipselect.importer.server.Response;
 import org.chipselect.importer.server.Server;
+import org.chipselect.importer.server.UpdateBuffer;
 import org.jdom2.Attribute;
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -23,19 +36,28 @@ public class SystemViewDescription
     private String device_name = null;
     private int device_id = 0;
     private Response device_response = null;
-    private int bitWidth = 0;
+    private ExecutorService executor = null;
+    private ExecutorService peripheralExecutor = null;
+    private int numPeripherals = 1;
+    private boolean prefetch = false;
+    private int batchSize = 1;
+    private boolean plan = false;
+    /** reads the peripherals while parsing a SVD file, null if parsing a Document */
+    private SvdStreamReader streamReader = null;
+    /** changes to the microcontroller, written with one request before the peripherals */
+    private final UpdateBuffer deviceUpdates;
 
     public SystemViewDescription(Server chipselect)
     {
         srv = chipselect;
+        deviceUpdates = new UpdateBuffer(srv);
     }
 
-    private boolean handleVendor(Element device)
+    private boolean handleVendor(SvdDevice device)
     {
         // get Vendor
-        String vendorName = null;
-        Element vendor = device.getChild("vendor");
-        if(null == vendor)
+        String vendorName = device.getVendor();
+        if(null == vendorName)
         {
             // vendor is not in the file
             if(null == specified_vendor_name)
@@ -51,9 +73,15 @@ public class SystemViewDescription
         }
         else
         {
-            vendorName = vendor.getText();
             log.debug("Vendor from SVD : {}", vendorName);
         }
+        // an other import might create the same vendor at the same time
+        final String name = vendorName;
+        return srv.runExclusive("vendor:" + vendorName, () -> lookupOrCreateVendor(name));
+    }
+
+    private boolean lookupOrCreateVendor(String vendorName)
+    {
         // check with server
         Request req = new Request("vendor", Request.GET);
         req.addPostParameter("name", vendorName);
@@ -99,7 +127,7 @@ public class SystemViewDescription
         }
     }
 
-    private boolean handleName(Element device)
+    private boolean handleName(SvdDevice device)
     {
         // Vendor must already be known!
         if(0 == vendor_id)
@@ -108,15 +136,20 @@ public class SystemViewDescription
             return false;
         }
         // get Name
-        Element Name = device.getChild("name");
-        if(null == Name)
+        if(null == device.getName())
         {
             log.error("The device name is missing in the SVD !");
             return false;
         }
 
-        device_name = Name.getText();
+        device_name = device.getName();
         log.trace("device name from SVD : {}", device_name);
+        // an other import might create the same device at the same time
+        return srv.runExclusive("microcontroller:" + device_name, () -> lookupOrCreateDevice());
+    }
+
+    private boolean lookupOrCreateDevice()
+    {
         Request req = new Request("microcontroller", Request.GET);
         req.addPostParameter("name", device_name);
         Response res = srv.execute(req);
@@ -148,15 +181,21 @@ public class SystemViewDescription
             else
             {
                 device_id = new_id;
-                Request GetReq = new Request("microcontroller", Request.GET);
-                GetReq.addPostParameter("name", device_name);
-                res = srv.execute(GetReq);
-                if(false == res.wasSuccessfull())
+                device_response = post_res.getCreatedEntry(PostReq,
+                        "description", "Addressable_unit_bit", "bus_width_bit", "architecture_id", "svd_id");
+                if(null == device_response)
                 {
-                    log.error("could not read the device from the server");
-                    return false;
+                    // the server did not send the new entry back -> read it
+                    Request GetReq = new Request("microcontroller", Request.GET);
+                    GetReq.addPostParameter("name", device_name);
+                    res = srv.execute(GetReq);
+                    if(false == res.wasSuccessfull())
+                    {
+                        log.error("could not read the device from the server");
+                        return false;
+                    }
+                    device_response = res;
                 }
-                device_response = res;
             }
         }
         else
@@ -191,23 +230,30 @@ public class SystemViewDescription
         }
     }
 
-    private boolean handleCpuElement(Element cpuElement, int srvArchitectureId)
+    private boolean handleCpuElement(SvdCpu cpu, int srvArchitectureId)
     {
-        if(null == cpuElement)
+        if(null == cpu)
         {
             // CPU element is optional
             return true;
         }
-        String svdName = cpuElement.getChildText("name");
-        String svdRevision = cpuElement.getChildText("revision");
-        String svdEndian = cpuElement.getChildText("endian");
-        String svdNvicPrioBits = cpuElement.getChildText("nvicPrioBits");
-        String svdVendorSystickConfig = cpuElement.getChildText("vendorSystickConfig");
-        String svdMpuPresent = cpuElement.getChildText("mpuPresent");
+        // an other import might create the same architecture at the same time
+        return srv.runExclusive("architecture:" + cpu.getName(),
+                () -> checkCpuElement(cpu, srvArchitectureId));
+    }
+
+    private boolean checkCpuElement(SvdCpu cpu, int srvArchitectureId)
+    {
+        String svdName = cpu.getName();
+        String svdRevision = cpu.getRevision();
+        String svdEndian = cpu.getEndian();
+        String svdNvicPrioBits = cpu.getNvicPrioBits();
+        String svdVendorSystickConfig = cpu.getVendorSystickConfig();
+        String svdMpuPresent = cpu.getMpuPresent();
         // from svd standard:  This tag is either set to true or false, 1 or 0.
         int svdMpuPresentInt = decodeBoolString(svdMpuPresent);
         // from svd standard:  This tag is either set to true or false, 1 or 0.
-        String svdFpuPresent = cpuElement.getChildText("fpuPresent");
+        String svdFpuPresent = cpu.getFpuPresent();
         int svdFpuPresentInt = decodeBoolString(svdFpuPresent);
         // ignoring optional tags:
         // fpuDP
@@ -347,20 +393,8 @@ public class SystemViewDescription
                 else
                 {
                     log.trace("Architecture ID mismatch: {} - {}", srvArchitectureId, archId);
-                    Request putReq = new Request("microcontroller", Request.PUT);
-                    putReq.addPostParameter("name", device_name);
-                    putReq.addPostParameter("architecture_id", archId);
-                    Response put_res = srv.execute(putReq);
-                    if(false == put_res.wasSuccessfull())
-                    {
-                        log.error("could not update the device on the server");
-                        return false;
-                    }
-                    else
-                    {
-                        // we successfully updated the architecture ID for this microcontroller
-                        return true;
-                    }
+                    deviceUpdates.update("microcontroller", "name", device_name, "architecture_id", archId);
+                    return true;
                 }
             }
             // architecture not in database -> create new architecture in database
@@ -426,27 +460,22 @@ public class SystemViewDescription
             int architectureId = res.getInt("id");
             if(0 != device_id)
             {
-                Request linkRequest = new Request("microcontroller", Request.PUT);
-                linkRequest.addPostParameter("id", device_id);
-                linkRequest.addPostParameter("architecture_id", architectureId);
-                Response link_res = srv.execute(linkRequest);
-                return link_res.wasSuccessfull();
+                deviceUpdates.update("microcontroller", "name", device_name, "architecture_id", architectureId);
             }
             return true;
         }
     }
 
 
-    private boolean handleDescription(Element device, Response res)
+    private boolean handleDescription(SvdDevice device, Response res)
     {
-        Element description = device.getChild("description");
-        if(null == description)
+        String svdDescription = device.getDescription();
+        if(null == svdDescription)
         {
             // no description :-(
             // but not required
             return true;
         }
-        String svdDescription = Tool.cleanupString(description.getText());
         if(1 > svdDescription.length())
         {
             // empty description :-(
@@ -462,33 +491,18 @@ public class SystemViewDescription
         if(false == svdDescription.equals(srvDescription))
         {
             log.debug("Description on server : {}, in SVD: {}", srvDescription, svdDescription);
-            Request req = new Request("microcontroller", Request.PUT);
-            req.addPostParameter("name", device_name);
-            req.addPostParameter("description", svdDescription);
-            Response post_res = srv.execute(req);
-            if(false == post_res.wasSuccessfull())
-            {
-                log.error("could not update the device on the server");
-                return false;
-            }
+            deviceUpdates.update("microcontroller", "name", device_name, "description", svdDescription);
         }
         // else same description already on server -> OK
         return true;
     }
 
-    private boolean handleAddressUnit(Element device, Response res)
+    private boolean handleAddressUnit(SvdDevice device, Response res)
     {
-        Element addUnitElement = device.getChild("addressUnitBits");
-        if(null == addUnitElement)
-        {
-            // no Address Unit :-(
-            // but not required
-            return true;
-        }
-        int svdAddrUnit = Integer.parseInt(addUnitElement.getText());
+        int svdAddrUnit = device.getAddressUnitBits();
         if(0 == svdAddrUnit)
         {
-            // empty Address Unit :-(
+            // no or empty Address Unit :-(
             // but not required
             return true;
         }
@@ -497,67 +511,38 @@ public class SystemViewDescription
         if(srvAddrUnit != svdAddrUnit)
         {
             log.debug("Address Unit on server : {}, in SVD: {}", srvAddrUnit, svdAddrUnit);
-            Request req = new Request("microcontroller", Request.PUT);
-            req.addPostParameter("name", device_name);
-            req.addPostParameter("Addressable_unit_bit", svdAddrUnit);
-            Response post_res = srv.execute(req);
-            if(false == post_res.wasSuccessfull())
-            {
-                log.error("could not update the device on the server");
-                return false;
-            }
+            deviceUpdates.update("microcontroller", "name", device_name, "Addressable_unit_bit", svdAddrUnit);
         }
         // else same Address Unit already on server -> OK
         return true;
     }
 
-    private boolean handleBitWidth(Element device, Response res)
+    private boolean handleBitWidth(SvdDevice device, Response res)
     {
-        Element busWidthElement = device.getChild("width");
-        if(null == busWidthElement)
-        {
-            // no Bus Width :-(
-            // but not required
-            return true;
-        }
-        int svdBusWidth = Integer.parseInt(busWidthElement.getText());
+        int svdBusWidth = device.getWidth();
         if(0 == svdBusWidth)
         {
-            // empty Bus Width :-(
+            // no or empty Bus Width :-(
             // but not required
             return true;
         }
         int srvBusWidth= res.getInt("bus_width_bit");
 
-        bitWidth = svdBusWidth; // used as default size
-
         if(srvBusWidth != svdBusWidth)
         {
             log.debug("Bus Width on server : {}, in SVD: {}", srvBusWidth, svdBusWidth);
-            Request req = new Request("microcontroller", Request.PUT);
-            req.addPostParameter("name", device_name);
-            req.addPostParameter("bus_width_bit", svdBusWidth);
-            Response put_res = srv.execute(req);
-            if(false == put_res.wasSuccessfull())
-            {
-                log.error("could not update the device on the server");
-                return false;
-            }
+            deviceUpdates.update("microcontroller", "name", device_name, "bus_width_bit", svdBusWidth);
         }
         // else same Address Unit already on server -> OK
         return true;
     }
 
-    private boolean handlePeripherals(Element device, Response res)
+    /**
+     * @param builder creates the model of each peripheral, buildDevice() must already have been called.
+     * @param peripherals the peripheral elements.
+     */
+    private boolean handlePeripherals(SvdModelBuilder builder, Response res, Iterator<Element> peripherals)
     {
-        Element peripherals = device.getChild("peripherals");
-        if(null == peripherals)
-        {
-            // no peripherals in this device ?
-            log.error("no peripherals in SVD file");
-            return false;
-        }
-
         int dev_id = device_id;
         // svd_id
         int svd_id = res.getInt("svd_id");
@@ -566,89 +551,154 @@ public class SystemViewDescription
             dev_id = svd_id;
         }
 
-        // prepare peripheral handler
-        SvdPeripheralHandler handler = new SvdPeripheralHandler(srv);
-        if(false == handler.getAllPeripheralInstancesFromServer(dev_id))
+        Server peripheralSrv = srv;
+        ServerSnapshot snapshot = null;
+        if(true == prefetch)
         {
-            log.error("Could not read device peripherals from sever");
-            return false;
+            snapshot = new ServerSnapshot(srv);
+            if(false == snapshot.load(dev_id))
+            {
+                log.error("Could not read device from sever");
+                return false;
+            }
+            peripheralSrv = snapshot;
         }
 
-        // default values
-        String default_size = device.getChildText("size");
-        String default_access = device.getChildText("access");
-        String default_resetValue = device.getChildText("resetValue");
-        String default_resetMask = device.getChildText("resetMask");
-        String default_protection = device.getChildText("protection");
-        log.trace("default_size: {}", default_size);
-        log.trace("default_access: {}", default_access);
-        log.trace("default_resetValue: {}", default_resetValue);
-        log.trace("default_resetMask: {}", default_resetMask);
-        log.trace("default_protection: {}", default_protection);
-
-        if(null == default_size)
+        // prepare peripheral handler
+        SvdPeripheralHandler handler = new SvdPeripheralHandler(peripheralSrv);
+        handler.setExecutor(executor);
+        handler.setBatchSize(batchSize);
+        if(true == plan)
         {
-            default_size = "" + bitWidth;
+            handler.setPlan(new ImportPlan());
         }
-        else if(1 > Integer.decode(default_size))
+        if(false == handler.getAllPeripheralInstancesFromServer(dev_id))
         {
-            default_size = "" + bitWidth;
+            log.error("Could not read device peripherals from sever");
+            return false;
         }
-        log.trace("default_size: {}", default_size);
 
-        handler.setDefaultSize(default_size);
-        handler.setDefaultAccess(default_access);
-        handler.setDefaultResetValue(default_resetValue);
-        handler.setDefaultResetMask(default_resetMask);
-        handler.setDefaultProtection(default_protection);
-
-        List<Element> children = peripherals.getChildren();
+        // the default values (size, access,..) are in the model
+        // independent peripherals are handled in parallel, derived peripherals after their original
+        PeripheralScheduler scheduler = new PeripheralScheduler(handler, peripheralExecutor, numPeripherals);
         Vector<Element> derivedPeripherals = new Vector<Element>();
-        HashMap<String, Element> namedPeripherals = new HashMap<String, Element>();
-        for(Element peripheral : children)
+        boolean success = true;
+        while(true == peripherals.hasNext())
         {
-            String name = peripheral.getChildText("name");
-            if(null != name)
-            {
-                namedPeripherals.put(name, peripheral);
-            }
+            Element peripheral = peripherals.next();
             // check if derived
-            // strictly speaking it is probably not necessary to handle the non derived before the derived peripherals.
-            // It just feels better and might avoid issues in corner cases, also not much overhead.
-            // With a good argument this can be removed.
+            // The derived peripherals need the model of the peripheral they are derived from.
+            // If that has not been read yet, the derived peripheral is handled at the end.
             String derived = peripheral.getAttributeValue("derivedFrom");
-            if(null != derived)
+            if((null != derived) && (false == builder.hasPeripheral(derived)))
             {
-                log.trace("Peripheral: {} is derived from {}", name, derived);
+                log.trace("Peripheral: {} is derived from {}", peripheral.getChildText("name"), derived);
                 derivedPeripherals.add(peripheral);
             }
             else
             {
-                // not a derived peripheral
-                log.info("now handling peripheral {}", name);
-                if(false == handler.handle(peripheral))
+                SvdPeripheral svdPeripheral = builder.buildPeripheral(peripheral);
+                if(null == svdPeripheral)
                 {
-                    return false;
+                    success = false;
+                    break;
                 }
+                log.info("now handling peripheral {}", svdPeripheral.getName());
+                scheduler.add(svdPeripheral);
             }
         }
-        if(false == derivedPeripherals.isEmpty())
+        if((null != streamReader) && (true == streamReader.hasFailed()))
+        {
+            success = false;
+        }
+        if((true == success) && (false == derivedPeripherals.isEmpty()))
         {
             log.trace("now handling derived peripherals....");
             for(Element peripheral : derivedPeripherals)
             {
-                String name = peripheral.getChildText("name");
-                String derived = peripheral.getAttributeValue("derivedFrom");
-                log.info("now handling peripheral {}", name);
-                if(false == handler.handleDerived(peripheral, namedPeripherals.get(derived)))
+                SvdPeripheral svdPeripheral = builder.buildPeripheral(peripheral);
+                if(null == svdPeripheral)
                 {
-                    return false;
+                    success = false;
+                    break;
                 }
+                log.info("now handling peripheral {}", svdPeripheral.getName());
+                scheduler.add(svdPeripheral);
             }
         }
+        // also wait for the peripherals that have been started, if the SVD is broken
+        if(false == scheduler.waitForAll())
+        {
+            success = false;
+        }
+        // also write the peripherals that have been compared, as without a plan
+        if(false == handler.writePlan())
+        {
+            success = false;
+        }
+        if(false == success)
+        {
+            return false;
+        }
+        if(null != snapshot)
+        {
+            log.info(snapshot.getStatus());
+        }
         return true;
     }
 
+    /** parallel parts of the import run on this executor.
+     *
+     * @param executor null = do everything in sequence.
+     */
+    public void setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /** handle the peripherals in parallel on this executor.
+     *
+     * Should not be the executor of setExecutor(), as the peripherals wait for the tasks on that executor.
+     *
+     * @param executor null = handle the peripherals one after the other.
+     * @param numPeripherals number of peripherals that are handled at the same time.
+     *        Reading the SVD file waits while that many peripherals are pending.
+     */
+    public void setPeripheralExecutor(ExecutorService executor, int numPeripherals)
+    {
+        this.peripheralExecutor = executor;
+        this.numPeripherals = numPeripherals;
+    }
+
+    /** read everything the server has on the device before comparing it to the SVD.
+     *
+     * @param prefetch true = read all peripherals, registers, fields,.. with parallel requests.
+     */
+    public void setPrefetch(boolean prefetch)
+    {
+        this.prefetch = prefetch;
+    }
+
+    /** compare all peripherals first, then write the changes of the device together.
+     *
+     * All entries whose parents are on the server get written in parallel.
+     *
+     * @param plan true = write the changes as one plan, false = write each peripheral on its own.
+     */
+    public void setPlan(boolean plan)
+    {
+        this.plan = plan;
+    }
+
+    /** create new registers, fields and enumeration values with one request for many entries.
+     *
+     * @param batchSize maximum number of entries in a request. 1 = one request for each entry.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
     public void setVendorName(String vendor_name)
     {
         specified_vendor_name = vendor_name;
@@ -668,6 +718,124 @@ public class SystemViewDescription
             log.error("XML root element is NULL!");
             return false;
         }
+        if(false == checkDeviceElement(device))
+        {
+            return false;
+        }
+        SvdModelBuilder builder = new SvdModelBuilder();
+        SvdDevice svdDevice = builder.buildDevice(device);
+        if(null == svdDevice)
+        {
+            return false;
+        }
+        // extract information
+        if(false == handleVendor(svdDevice))
+        {
+            return false;
+        }
+        if(true == checkVendorOnly)
+        {
+            log.debug("Vendor information OK!");
+            return true;
+        }
+        if(false == handleDevice(svdDevice))
+        {
+            return false;
+        }
+        Element peripherals = device.getChild("peripherals");
+        if(null == peripherals)
+        {
+            // no peripherals in this device ?
+            log.error("no peripherals in SVD file");
+            return false;
+        }
+        return handlePeripherals(builder, device_response, peripherals.getChildren().iterator());
+    }
+
+    /** parses the SVD file without reading all of it into memory.
+     *
+     * The peripherals are read and handled one at a time. Only the
+     * peripherals that other peripherals are derived from are kept until the
+     * end, so that the derived peripherals can be handled.
+     *
+     * @param svdFile the SVD file.
+     * @param checkVendorOnly true = only check the vendor.
+     * @return true = success, false = error.
+     */
+    public boolean parse(File svdFile, boolean checkVendorOnly)
+    {
+        // first pass: which peripherals are needed by derived peripherals?
+        Set<String> referenced = SvdStreamReader.findDerivedFromNames(svdFile);
+        if(null == referenced)
+        {
+            return false;
+        }
+        log.trace("peripherals used by derived peripherals: {}", referenced);
+        // second pass: the import
+        try(InputStream in = new BufferedInputStream(new FileInputStream(svdFile)))
+        {
+            streamReader = new SvdStreamReader(in);
+            Element device = streamReader.readDeviceHeader();
+            if(null == device)
+            {
+                return false;
+            }
+            if(false == checkDeviceElement(device))
+            {
+                return false;
+            }
+            // only the peripherals that are needed by derived peripherals are kept
+            SvdModelBuilder builder = new SvdModelBuilder(referenced);
+            SvdDevice svdDevice = builder.buildDevice(device);
+            if(null == svdDevice)
+            {
+                return false;
+            }
+            // extract information
+            if(false == handleVendor(svdDevice))
+            {
+                return false;
+            }
+            if(true == checkVendorOnly)
+            {
+                log.debug("Vendor information OK!");
+                return true;
+            }
+            if(false == handleDevice(svdDevice))
+            {
+                return false;
+            }
+            if(null == device.getChild("peripherals"))
+            {
+                // no peripherals in this device ?
+                log.error("no peripherals in SVD file");
+                return false;
+            }
+            if(false == handlePeripherals(builder, device_response, streamReader.peripherals()))
+            {
+                return false;
+            }
+            // the elements after the peripherals
+            device = streamReader.readDeviceTrailer();
+            if(null == device)
+            {
+                return false;
+            }
+            return checkDeviceElement(device);
+        }
+        catch(IOException e)
+        {
+            log.error("could not read {} : {}", svdFile, e.toString());
+            return false;
+        }
+        finally
+        {
+            streamReader = null;
+        }
+    }
+
+    private boolean checkDeviceElement(Element device)
+    {
         if(false == "device".equals(device.getName()))
         {
             log.error("XML root element is {} (expected:device) !", device.getName());
@@ -718,17 +886,21 @@ public class SystemViewDescription
                 return false;
             }
         }
+        // currently ignoring the child elements:
+        // --------------------------------------
+        // version
+        // vendorID
+        // series
+        // licenseText
+        // headerSystemFilename
+        // headerDefinitionsPrefix
+        // vendorExtensions
+        return true;
+    }
 
-        // extract information
-        if(false == handleVendor(device))
-        {
-            return false;
-        }
-        if(true == checkVendorOnly)
-        {
-            log.debug("Vendor information OK!");
-            return true;
-        }
+    /** the microcontroller itself, vendor must already be known. */
+    private boolean handleDevice(SvdDevice device)
+    {
         if(false == handleName(device))
         {
             return false;
@@ -768,25 +940,18 @@ public class SystemViewDescription
         {
             return false;
         }
-        Element cpuElement = device.getChild("cpu");
-        if(false == handleCpuElement(cpuElement, device_response.getInt("architecture_id")))
+        if(false == handleCpuElement(device.getCpu(), device_response.getInt("architecture_id")))
         {
             return false;
         }
-
-        if(false == handlePeripherals(device, device_response))
+        // all changes to the microcontroller in one request
+        boolean updated = deviceUpdates.flush();
+        log.info(deviceUpdates.getStatus());
+        if(false == updated)
         {
+            log.error("could not update the device on the server");
             return false;
         }
-        // currently ignoring the child elements:
-        // --------------------------------------
-        // version
-        // vendorID
-        // series
-        // licenseText
-        // headerSystemFilename
-        // headerDefinitionsPrefix
-        // vendorExtensions
         return true;
     }
 
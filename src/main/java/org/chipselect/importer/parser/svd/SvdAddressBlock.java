@@ -0,0 +1,72 @@
+package org.chipselect.importer.parser.svd;
+
+import java.util.Objects;
+
+import org.chipselect.importer.parser.HexString;
+
+public final class SvdAddressBlock
+{
+    private final HexString offset;
+    private final HexString size;
+    private final String usage;
+    private final String protection;
+
+    /**
+     * @param offset offset from the base address of the peripheral.
+     * @param size size of the block, the default size if the SVD does not have one.
+     * @param usage registers, buffer or reserved, may be null.
+     * @param protection the default protection if the SVD does not have one, may be null.
+     */
+    public SvdAddressBlock(HexString offset, HexString size, String usage, String protection)
+    {
+        this.offset = offset;
+        this.size = size;
+        this.usage = usage;
+        this.protection = protection;
+    }
+
+    public HexString getOffset()
+    {
+        return offset;
+    }
+
+    public HexString getSize()
+    {
+        return size;
+    }
+
+    public String getUsage()
+    {
+        return usage;
+    }
+
+    public String getProtection()
+    {
+        return protection;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if(this == obj)
+        {
+            return true;
+        }
+        if(false == (obj instanceof SvdAddressBlock))
+        {
+            return false;
+        }
+        SvdAddressBlock other = (SvdAddressBlock)obj;
+        return (true == HexString.sameValue(offset, other.offset)) &&
+                (true == HexString.sameValue(size, other.size)) &&
+                (true == Objects.equals(usage, other.usage)) &&
+                (true == Objects.equals(protection, other.protection));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(usage, protection);
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.chipselect.importer.parser.svd;
+
+import java.util.List;
+import java.util.Objects;
+
+/** a group of registers.
+ *
+ * The server does not know clusters, the registers of a cluster are
+ * imported as registers of the peripheral. A dim cluster has its registers
+ * once for each element.
+ */
+public final class SvdCluster
+{
+    private final String name;
+    private final String description;
+    private final List<SvdRegister> registers;
+    private final List<SvdCluster> clusters;
+
+    public SvdCluster(String name, String description, List<SvdRegister> registers, List<SvdCluster> clusters)
+    {
+        this.name = name;
+        this.description = description;
+        this.registers = List.copyOf(registers);
+        this.clusters = List.copyOf(clusters);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    /** @return the registers of this cluster, without those of the clusters inside of it. */
+    public List<SvdRegister> getRegisters()
+    {
+        return registers;
+    }
+
+    public List<SvdCluster> getClusters()
+    {
+        return clusters;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if(this == obj)
+        {
+            return true;
+        }
+        if(false == (obj instanceof SvdCluster))
+        {
+            return false;
+        }
+        SvdCluster other = (SvdCluster)obj;
+        return (true == Objects.equals(name, other.name)) &&
+                (true == Objects.equals(description, other.description)) &&
+                (true == Objects.equals(registers, other.registers)) &&
+                (true == Objects.equals(clusters, other.clusters));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, registers, clusters);
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.chipselect.importer.parser.svd;
+
+/** the cpu element of the device, the values are as they are in the SVD. */
+public final class SvdCpu
+{
+    private final String name;
+    private final String revision;
+    private final String endian;
+    private final String mpuPresent;
+    private final String fpuPresent;
+    private final String nvicPrioBits;
+    private final String vendorSystickConfig;
+
+    public SvdCpu(
+            String name,
+            String revision,
+            String endian,
+            String mpuPresent,
+            String fpuPresent,
+            String nvicPrioBits,
+            String vendorSystickConfig)
+    {
+        this.name = name;
+        this.revision = revision;
+        this.endian = endian;
+        this.mpuPresent = mpuPresent;
+        this.fpuPresent = fpuPresent;
+        this.nvicPrioBits = nvicPrioBits;
+        this.vendorSystickConfig = vendorSystickConfig;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getRevision()
+    {
+        return revision;
+    }
+
+    public String getEndian()
+    {
+        return endian;
+    }
+
+    public String getMpuPresent()
+    {
+        return mpuPresent;
+    }
+
+    public String getFpuPresent()
+    {
+        return fpuPresent;
+    }
+
+    public String getNvicPrioBits()
+    {
+        return nvicPrioBits;
+    }
+
+    public String getVendorSystickConfig()
+    {
+        return vendorSystickConfig;
+    }
+
+}
@@ -0,0 +1,120 @@
+package org.chipselect.importer.parser.svd;
+
+import java.util.List;
+
+/** the device level values of a SVD file.
+ *
+ * The default values are those of the device element, the peripherals get
+ * them already applied. The peripherals are only in here if the whole file
+ * was read at once, see SvdModelBuilder.
+ */
+public final class SvdDevice
+{
+    private final String vendor;
+    private final String name;
+    private final String description;
+    private final int addressUnitBits;
+    private final int width;
+    private final SvdCpu cpu;
+    private final long defaultSize;
+    private final String defaultAccess;
+    private final String defaultResetValue;
+    private final String defaultResetMask;
+    private final String defaultProtection;
+    private final List<SvdPeripheral> peripherals;
+
+    public SvdDevice(
+            String vendor,
+            String name,
+            String description,
+            int addressUnitBits,
+            int width,
+            SvdCpu cpu,
+            long defaultSize,
+            String defaultAccess,
+            String defaultResetValue,
+            String defaultResetMask,
+            String defaultProtection,
+            List<SvdPeripheral> peripherals)
+    {
+        this.vendor = vendor;
+        this.name = name;
+        this.description = description;
+        this.addressUnitBits = addressUnitBits;
+        this.width = width;
+        this.cpu = cpu;
+        this.defaultSize = defaultSize;
+        this.defaultAccess = defaultAccess;
+        this.defaultResetValue = defaultResetValue;
+        this.defaultResetMask = defaultResetMask;
+        this.defaultProtection = defaultProtection;
+        this.peripherals = List.copyOf(peripherals);
+    }
+
+    /** @return the vendor name, or null if the SVD does not have one. */
+    public String getVendor()
+    {
+        return vendor;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /** @return the description as it is in the SVD, or null. */
+    public String getDescription()
+    {
+        return description;
+    }
+
+    /** @return 0 if the SVD does not have this value. */
+    public int getAddressUnitBits()
+    {
+        return addressUnitBits;
+    }
+
+    /** @return bus width in bits, 0 if the SVD does not have this value. */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /** @return the cpu, or null if the SVD does not have a cpu element. */
+    public SvdCpu getCpu()
+    {
+        return cpu;
+    }
+
+    /** @return the size of registers that do not have a size, the bus width if the SVD does not have a default size. */
+    public long getDefaultSize()
+    {
+        return defaultSize;
+    }
+
+    public String getDefaultAccess()
+    {
+        return defaultAccess;
+    }
+
+    public String getDefaultResetValue()
+    {
+        return defaultResetValue;
+    }
+
+    public String getDefaultResetMask()
+    {
+        return defaultResetMask;
+    }
+
+    public String getDefaultProtection()
+    {
+        return defaultProtection;
+    }
+
+    public List<SvdPeripheral> getPeripherals()
+    {
+        return peripherals;
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.chipselect.importer.parser.svd;
+
+import java.util.Objects;
+
+/** one value of an enumerated field. */
+public final class SvdEnumValue
+{
+    private final String name;
+    private final String description;
+    private final String value;
+    private final boolean isDefault;
+
+    public SvdEnumValue(String name, String description, String value, boolean isDefault)
+    {
+        this.name = name;
+        this.description = description;
+        this.value = value;
+        this.isDefault = isDefault;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /** @return the description, or null if the SVD does not have one. */
+    public String getDescription()
+    {
+        return description;
+    }
+
+    /** @return the value, or null if the SVD does not have one. */
+    public String getValue()
+    {
+        return value;
+    }
+
+    public boolean isDefault()
+    {
+        return isDefault;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if(this == obj)
+        {
+            return true;
+        }
+        if(false == (obj instanceof SvdEnumValue))
+        {
+            return false;
+        }
+        SvdEnumValue other = (SvdEnumValue)obj;
+        return (true == Objects.equals(name, other.name)) &&
+                (true == Objects.equals(description, other.description)) &&
+                (true == Objects.equals(value, other.value)) &&
+                (isDefault == other.isDefault);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, value);
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.chipselect.importer.parser.svd;
+
+import java.util.List;
+import java.util.Objects;
+
+/** one field of a register, a dim field becomes one SvdField for each element. */
+public final class SvdField
+{
+    private final String name;
+    private final String description;
+    private final int bitOffset;
+    private final int sizeBit;
+    private final String access;
+    private final String modifiedWriteValues;
+    private final String readAction;
+    private final boolean isEnum;
+    private final String enumName;
+    private final String enumUsageRight;
+    private final List<SvdEnumValue> enumValues;
+
+    public SvdField(
+            String name,
+            String description,
+            int bitOffset,
+            int sizeBit,
+            String access,
+            String modifiedWriteValues,
+            String readAction,
+            boolean isEnum,
+            String enumName,
+            String enumUsageRight,
+            List<SvdEnumValue> enumValues)
+    {
+        this.name = name;
+        this.description = description;
+        this.bitOffset = bitOffset;
+        this.sizeBit = sizeBit;
+        this.access = access;
+        this.modifiedWriteValues = modifiedWriteValues;
+        this.readAction = readAction;
+        this.isEnum = isEnum;
+        this.enumName = enumName;
+        this.enumUsageRight = enumUsageRight;
+        this.enumValues = List.copyOf(enumValues);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    /** @return lowest bit of the field, -1 if not in the SVD. */
+    public int getBitOffset()
+    {
+        return bitOffset;
+    }
+
+    /** @return number of bits, -1 if not in the SVD. */
+    public int getSizeBit()
+    {
+        return sizeBit;
+    }
+
+    public String getAccess()
+    {
+        return access;
+    }
+
+    public String getModifiedWriteValues()
+    {
+        return modifiedWriteValues;
+    }
+
+    public String getReadAction()
+    {
+        return readAction;
+    }
+
+    /** @return true if the field has an enumeratedValues element. */
+    public boolean isEnum()
+    {
+        return isEnum;
+    }
+
+    public String getEnumName()
+    {
+        return enumName;
+    }
+
+    public String getEnumUsageRight()
+    {
+        return enumUsageRight;
+    }
+
+    /** @return the enumeration values, empty if there are none. */
+    public List<SvdEnumValue> getEnumValues()
+    {
+        return enumValues;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if(this == obj)
+        {
+            return true;
+        }
+        if(false == (obj instanceof SvdField))
+        {
+            return false;
+        }
+        SvdField other = (SvdField)obj;
+        return (true == Objects.equals(name, other.name)) &&
+                (true == Objects.equals(description, other.description)) &&
+                (bitOffset == other.bitOffset) &&
+                (sizeBit == other.sizeBit) &&
+                (true == Objects.equals(access, other.access)) &&
+                (true == Objects.equals(modifiedWriteValues, other.modifiedWriteValues)) &&
+                (true == Objects.equals(readAction, other.readAction)) &&
+                (isEnum == other.isEnum) &&
+                (true == Objects.equals(enumName, other.enumName)) &&
+                (true == Objects.equals(enumUsageRight, other.enumUsageRight)) &&
+                (true == Objects.equals(enumValues, other.enumValues));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, bitOffset, sizeBit);
+    }
+
+}
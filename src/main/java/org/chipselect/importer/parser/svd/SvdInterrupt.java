@@ -0,0 +1,33 @@
+package org.chipselect.importer.parser.svd;
+
+public final class SvdInterrupt
+{
+    private final String name;
+    private final String description;
+    private final long number;
+
+    public SvdInterrupt(String name, String description, long number)
+    {
+        this.name = name;
+        this.description = description;
+        this.number = number;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /** @return the description, or null if the SVD does not have one. */
+    public String getDescription()
+    {
+        return description;
+    }
+
+    /** @return the interrupt number, or -1 if the SVD does not have one. */
+    public long getNumber()
+    {
+        return number;
+    }
+
+}
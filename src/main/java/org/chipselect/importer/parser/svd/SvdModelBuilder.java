@@ -0,0 +1,1313 @@
+package org.chipselect.importer.parser.svd;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+import org.chipselect.importer.Tool;
+import org.chipselect.importer.parser.HexString;
+import org.jdom2.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** creates the SVD model from the XML elements.
+ *
+ * All checks of the SVD elements are done here, so that the import only
+ * needs to compare the model to the server. The default values (size,
+ * access, reset value, reset mask, protection) are passed down from the
+ * device to the peripherals, clusters and registers. A derived peripheral
+ * gets the values of its original peripheral, if it does not have its own.
+ *
+ * Use build() to get the whole device at once. Large files can be read one
+ * peripheral at a time with buildDevice() and buildPeripheral().
+ */
+public class SvdModelBuilder
+{
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    /** names of the peripherals that are needed by derived peripherals, null = all */
+    private final Set<String> referenced;
+    private final HashMap<String, SvdPeripheral> namedPeripherals = new HashMap<String, SvdPeripheral>();
+    private final HashMap<String, Defaults> namedDefaults = new HashMap<String, Defaults>();
+    private Defaults deviceDefaults = null;
+
+    /** the default values that are passed down to the registers and address blocks. */
+    private static final class Defaults
+    {
+        final long size;
+        final String access;
+        final String resetValue;
+        final String resetMask;
+        final String protection;
+
+        Defaults(long size, String access, String resetValue, String resetMask, String protection)
+        {
+            this.size = size;
+            this.access = access;
+            this.resetValue = resetValue;
+            this.resetMask = resetMask;
+            this.protection = protection;
+        }
+    }
+
+    /** the values of a register while the register element is read. */
+    private static final class RegisterValues
+    {
+        String name = null;
+        String displayName = null;
+        String description = null;
+        HexString addressOffset = null;
+        long size;
+        String access;
+        HexString resetValue;
+        HexString resetMask;
+        String alternateRegister = null;
+        String alternateGroup = null;
+        String readAction = null;
+        String modifiedWriteValues = null;
+        String dataType = null;
+        Element fields = null;
+        int dim = 0;
+        int dimIncrement = 0;
+        String dimIndex = null;
+
+        RegisterValues(long size, String access, HexString resetValue, HexString resetMask)
+        {
+            this.size = size;
+            this.access = access;
+            this.resetValue = resetValue;
+            this.resetMask = resetMask;
+        }
+    }
+
+    /** the enumeration of a field while the field element is read. */
+    private static final class Enumeration
+    {
+        String name = null;
+        String usageRight = null;
+        Vector<SvdEnumValue> values = new Vector<SvdEnumValue>();
+    }
+
+    /** keeps all peripherals, so that derived peripherals can always be built. */
+    public SvdModelBuilder()
+    {
+        this(null);
+    }
+
+    /**
+     * @param referenced names of the peripherals that other peripherals are derived from. null = all.
+     */
+    public SvdModelBuilder(Set<String> referenced)
+    {
+        this.referenced = referenced;
+    }
+
+    /** creates the model of the whole device.
+     *
+     * @param device the root element of the SVD file.
+     * @return the device with all peripherals, or null on error.
+     */
+    public SvdDevice build(Element device)
+    {
+        SvdDevice header = buildDevice(device);
+        if(null == header)
+        {
+            return null;
+        }
+        Vector<SvdPeripheral> peripherals = new Vector<SvdPeripheral>();
+        Element peripheralsElement = device.getChild("peripherals");
+        if(null != peripheralsElement)
+        {
+            // derived peripherals may come before the peripheral they are derived from
+            List<Element> children = peripheralsElement.getChildren();
+            for(Element peripheral : children)
+            {
+                if(null == peripheral.getAttributeValue("derivedFrom"))
+                {
+                    SvdPeripheral p = buildPeripheral(peripheral);
+                    if(null == p)
+                    {
+                        return null;
+                    }
+                    peripherals.add(p);
+                }
+            }
+            for(Element peripheral : children)
+            {
+                if(null != peripheral.getAttributeValue("derivedFrom"))
+                {
+                    SvdPeripheral p = buildPeripheral(peripheral);
+                    if(null == p)
+                    {
+                        return null;
+                    }
+                    peripherals.add(p);
+                }
+            }
+        }
+        return new SvdDevice(
+                header.getVendor(),
+                header.getName(),
+                header.getDescription(),
+                header.getAddressUnitBits(),
+                header.getWidth(),
+                header.getCpu(),
+                header.getDefaultSize(),
+                header.getDefaultAccess(),
+                header.getDefaultResetValue(),
+                header.getDefaultResetMask(),
+                header.getDefaultProtection(),
+                peripherals);
+    }
+
+    /** creates the model of the device without the peripherals.
+     *
+     * Has to be called before buildPeripheral().
+     *
+     * @param device the root element of the SVD file.
+     * @return the device, or null on error.
+     */
+    public SvdDevice buildDevice(Element device)
+    {
+        String vendor = null;
+        Element vendorElement = device.getChild("vendor");
+        if(null != vendorElement)
+        {
+            vendor = vendorElement.getText();
+        }
+        String description = null;
+        Element descriptionElement = device.getChild("description");
+        if(null != descriptionElement)
+        {
+            description = Tool.cleanupString(descriptionElement.getText());
+        }
+        int addressUnitBits;
+        int width;
+        try
+        {
+            addressUnitBits = parseInt(device.getChildText("addressUnitBits"));
+            width = parseInt(device.getChildText("width"));
+        }
+        catch(NumberFormatException e)
+        {
+            log.error("invalid number in device element : {}", e.getMessage());
+            return null;
+        }
+        SvdCpu cpu = null;
+        Element cpuElement = device.getChild("cpu");
+        if(null != cpuElement)
+        {
+            cpu = new SvdCpu(
+                    cpuElement.getChildText("name"),
+                    cpuElement.getChildText("revision"),
+                    cpuElement.getChildText("endian"),
+                    cpuElement.getChildText("mpuPresent"),
+                    cpuElement.getChildText("fpuPresent"),
+                    cpuElement.getChildText("nvicPrioBits"),
+                    cpuElement.getChildText("vendorSystickConfig"));
+        }
+
+        // default values
+        String default_size = device.getChildText("size");
+        String default_access = device.getChildText("access");
+        String default_resetValue = device.getChildText("resetValue");
+        String default_resetMask = device.getChildText("resetMask");
+        String default_protection = device.getChildText("protection");
+        log.trace("default_size: {}", default_size);
+        log.trace("default_access: {}", default_access);
+        log.trace("default_resetValue: {}", default_resetValue);
+        log.trace("default_resetMask: {}", default_resetMask);
+        log.trace("default_protection: {}", default_protection);
+        long size = width;
+        if(null != default_size)
+        {
+            try
+            {
+                if(0 < Integer.decode(default_size))
+                {
+                    size = Integer.decode(default_size);
+                }
+            }
+            catch(NumberFormatException e)
+            {
+                log.error("invalid default size {} !", default_size);
+                return null;
+            }
+        }
+        log.trace("default_size: {}", size);
+        deviceDefaults = new Defaults(size, default_access, default_resetValue, default_resetMask, default_protection);
+        namedPeripherals.clear();
+        namedDefaults.clear();
+
+        return new SvdDevice(
+                vendor,
+                device.getChildText("name"),
+                description,
+                addressUnitBits,
+                width,
+                cpu,
+                size,
+                default_access,
+                default_resetValue,
+                default_resetMask,
+                default_protection,
+                new Vector<SvdPeripheral>());
+    }
+
+    private static int parseInt(String val)
+    {
+        if(null == val)
+        {
+            return 0;
+        }
+        return Integer.parseInt(val);
+    }
+
+    /**
+     * @param name name of a peripheral.
+     * @return true if peripherals that are derived from this peripheral can be built.
+     */
+    public boolean hasPeripheral(String name)
+    {
+        return namedPeripherals.containsKey(name);
+    }
+
+    /** creates the model of a peripheral.
+     *
+     * A derived peripheral can only be built after the peripheral it is derived from.
+     *
+     * @param peripheral the peripheral element.
+     * @return the peripheral, or null on error.
+     */
+    public SvdPeripheral buildPeripheral(Element peripheral)
+    {
+        if(null == deviceDefaults)
+        {
+            log.error("device must be built before the peripherals!");
+            return null;
+        }
+        String name = peripheral.getChildText("name");
+        String derivedFrom = peripheral.getAttributeValue("derivedFrom");
+        SvdPeripheral original = null;
+        Defaults inherited = deviceDefaults;
+        if(null != derivedFrom)
+        {
+            log.trace("Peripheral: {} is derived from {}", name, derivedFrom);
+            original = namedPeripherals.get(derivedFrom);
+            if(null == original)
+            {
+                log.error("Peripheral {} is derived from the unknown peripheral {} !", name, derivedFrom);
+                return null;
+            }
+            inherited = namedDefaults.get(derivedFrom);
+        }
+        if(false == checkIfValidPeripheral(peripheral))
+        {
+            return null;
+        }
+
+        // description
+        String description = peripheral.getChildText("description");
+        if(null != description)
+        {
+            description = Tool.cleanupString(description);
+        }
+        else if(null != original)
+        {
+            description = original.getDescription();
+        }
+        // disableCondition
+        String disableCondition = peripheral.getChildText("disableCondition");
+        if(null != disableCondition)
+        {
+            disableCondition = Tool.cleanupString(disableCondition);
+        }
+        else if(null != original)
+        {
+            disableCondition = original.getDisableCondition();
+        }
+        // baseAddress
+        String strBaseAddress = peripheral.getChildText("baseAddress");
+        HexString baseAddress = new HexString(strBaseAddress);
+        if((null == strBaseAddress) && (null != original))
+        {
+            baseAddress = original.getBaseAddress();
+        }
+        // groupName
+        String groupName = peripheral.getChildText("groupName");
+        if((null != original) && ((null == groupName) || (1 > groupName.length())))
+        {
+            groupName = original.getGroupName();
+        }
+
+        // default values of this peripheral
+        Defaults defaults;
+        try
+        {
+            String size = peripheral.getChildText("size");
+            defaults = new Defaults(
+                    (null != size) ? Integer.decode(size) : inherited.size,
+                    childTextOr(peripheral, "access", inherited.access),
+                    childTextOr(peripheral, "resetValue", inherited.resetValue),
+                    childTextOr(peripheral, "resetMask", inherited.resetMask),
+                    childTextOr(peripheral, "protection", inherited.protection));
+        }
+        catch(NumberFormatException e)
+        {
+            log.error("invalid size in peripheral {} : {}", name, e.getMessage());
+            return null;
+        }
+
+        // addressBlock
+        Vector<SvdAddressBlock> addressBlocks = new Vector<SvdAddressBlock>();
+        for(Element addressBlock : peripheral.getChildren("addressBlock"))
+        {
+            SvdAddressBlock block = buildAddressBlock(addressBlock, defaults);
+            if(null == block)
+            {
+                return null;
+            }
+            addressBlocks.add(block);
+        }
+        if((true == addressBlocks.isEmpty()) && (null != original))
+        {
+            // no address block element in the derived peripheral
+            // -> use the address blocks from the original peripheral
+            addressBlocks.addAll(original.getAddressBlocks());
+        }
+        // else the derived block overwrites the original block!
+
+        // interrupt
+        Vector<SvdInterrupt> interrupts = new Vector<SvdInterrupt>();
+        for(Element interrupt : peripheral.getChildren("interrupt"))
+        {
+            SvdInterrupt irq = buildInterrupt(interrupt);
+            if(null == irq)
+            {
+                return null;
+            }
+            interrupts.add(irq);
+        }
+        if((true == interrupts.isEmpty()) && (null != original))
+        {
+            log.trace("derived peripheral does not have an interrupt child element.");
+            interrupts.addAll(original.getInterrupts());
+        }
+
+        // registers
+        Vector<SvdRegister> registers = null;
+        Vector<SvdCluster> clusters = new Vector<SvdCluster>();
+        Element registersElement = peripheral.getChild("registers");
+        if(null != registersElement)
+        {
+            registers = new Vector<SvdRegister>();
+            if(false == buildRegisters(registersElement, defaults, registers, clusters))
+            {
+                return null;
+            }
+        }
+        else if(null != original)
+        {
+            if(null != original.getRegisters())
+            {
+                registers = new Vector<SvdRegister>(original.getRegisters());
+            }
+            clusters.addAll(original.getClusters());
+        }
+
+        SvdPeripheral res = new SvdPeripheral(
+                name,
+                derivedFrom,
+                description,
+                disableCondition,
+                baseAddress,
+                groupName,
+                addressBlocks,
+                interrupts,
+                registers,
+                clusters);
+        // only keep the peripherals that are needed later
+        if((null != name) && ((null == referenced) || (true == referenced.contains(name))))
+        {
+            namedPeripherals.put(name, res);
+            namedDefaults.put(name, defaults);
+        }
+        return res;
+    }
+
+    private static String childTextOr(Element element, String childName, String inherited)
+    {
+        String res = element.getChildText(childName);
+        if(null == res)
+        {
+            return inherited;
+        }
+        return res;
+    }
+
+    private boolean checkIfValidPeripheral(Element peripheral)
+    {
+        // check for unknown children
+        List<Element> children = peripheral.getChildren();
+        for(Element child : children)
+        {
+            String name = child.getName();
+            switch(name)
+            {
+            // all defined child types from SVD standard
+            // compare to: https://arm-software.github.io/CMSIS_5/develop/SVD/html/elem_device.html
+            case "access":
+            case "addressBlock":
+            case "alternatePeripheral":
+            case "appendToName":
+            case "baseAddress":
+            case "description":
+            case "dim":
+            case "dimIncrement":
+            case "dimIndex":
+            case "dimName":
+            case "dimArrayIndex":
+            case "disableCondition":
+            case "groupName":
+            case "headerStructName":
+            case "interrupt":
+            case "name":
+            case "prependToName":
+            case "protection":
+            case "registers":
+            case "resetValue":
+            case "resetMask":
+            case "size":
+            case "version":
+                continue;
+
+            default:
+                // undefined child found. This is not a valid SVD file !
+                log.error("Unknown peripheral child tag: {}", name);
+                return false;
+            }
+        }
+        // ignoring  <version></version>
+        String[] notImplemented = {"dim", "dimIncrement", "dimIndex", "dimName", "dimArrayIndex", "appendToName"};
+        for(String tag : notImplemented)
+        {
+            if(null !=  peripheral.getChildText(tag))
+            {
+                log.error("{} not implemented!(={})", tag, peripheral.getChildText(tag));
+                return false;
+            }
+        }
+        /* only available if address blocks of this peripheral are also used by another peripheral.
+         * So basically only a warning that the address conflict is intentional.
+         -> no need to store this.
+         alternatePeripheral */
+
+        /* used by TI to give all UART0 Registers the prefix UART0,...
+        we already know if a register named CR is part of UART0 or UART1.
+       -> No need to store this! Enjoy shorter names ! ;-)
+         prependToName */
+
+        /* used by Cmsemicon
+         * -> ignore for now
+         headerStructName */
+        return true;
+    }
+
+    private SvdAddressBlock buildAddressBlock(Element svdAaddressBlock, Defaults defaults)
+    {
+        HexString offset = null;
+        HexString size = new HexString(Long.toString(defaults.size));
+        String usage = null;
+        String protection = defaults.protection;
+
+        // check for unknown children
+        List<Element> children = svdAaddressBlock.getChildren();
+        for(Element child : children)
+        {
+            String name = child.getName();
+            switch(name)
+            {
+            // all defined child types from SVD standard
+            // compare to: https://arm-software.github.io/CMSIS_5/develop/SVD/html/elem_device.html
+            case "offset":
+                offset =  new HexString(child.getText());
+                break;
+
+            case "size":
+                size = new HexString(child.getText());
+                break;
+
+            case "usage":
+                usage = child.getText();
+                break;
+
+            case "protection":
+                protection = child.getText();
+                break;
+
+            default:
+                // undefined child found. This is not a valid SVD file !
+                log.error("Unknown addressblock child tag: {}", name);
+                return null;
+            }
+        }
+        if(null == offset)
+        {
+            log.error("SVD does not specify the required address offset !");
+            return null;
+        }
+        return new SvdAddressBlock(offset, size, usage, protection);
+    }
+
+    private SvdInterrupt buildInterrupt(Element svdInterrupt)
+    {
+        String irqName = null;
+        String description = null;
+        long number = -1;
+
+        // check for unknown children
+        List<Element> children = svdInterrupt.getChildren();
+        for(Element child : children)
+        {
+            String name = child.getName();
+            switch(name)
+            {
+            // all defined child types from SVD standard
+            // compare to: https://arm-software.github.io/CMSIS_5/develop/SVD/html/elem_device.html
+            case "name":
+                irqName = Tool.cleanupString(child.getText());
+                break;
+
+            case "description":
+                description = Tool.cleanupString(child.getText());
+                break;
+
+            case "value":
+                number = Tool.decode(child.getText());
+                break;
+
+            default:
+                // undefined child found. This is not a valid SVD file !
+                log.error("Unknown interrupt child tag: {}", name);
+                return null;
+            }
+        }
+        return new SvdInterrupt(irqName, description, number);
+    }
+
+    /** adds the registers and clusters of a registers element.
+     *
+     * @param allRegisters all registers, including those of the clusters, get added to this.
+     * @param clusters the clusters get added to this.
+     */
+    private boolean buildRegisters(Element registers, Defaults defaults,
+            Vector<SvdRegister> allRegisters, Vector<SvdCluster> clusters)
+    {
+        List<Element> children = registers.getChildren();
+        for(Element child : children)
+        {
+            String name = child.getName();
+            switch(name)
+            {
+            // all defined child types from SVD standard
+            // compare to: https://arm-software.github.io/CMSIS_5/develop/SVD/html/elem_device.html
+            case "cluster":
+                SvdCluster cluster = buildCluster(child, defaults, allRegisters);
+                if(null == cluster)
+                {
+                    return false;
+                }
+                clusters.add(cluster);
+                break;
+
+            case "register":
+                if(false == buildRegister(child, newRegisterValues(defaults), null, allRegisters))
+                {
+                    return false;
+                }
+                break;
+
+            default:
+                // undefined child found. This is not a valid SVD file !
+                log.error("Unknown registers child tag: {}", name);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static RegisterValues newRegisterValues(Defaults defaults)
+    {
+        return new RegisterValues(
+                defaults.size,
+                defaults.access,
+                new HexString(defaults.resetValue),
+                new HexString(defaults.resetMask));
+    }
+
+    private SvdCluster buildCluster(Element cluster, Defaults defaults, Vector<SvdRegister> allRegisters)
+    {
+        String clusterName = null;
+        String clusterDescription = null;
+        HexString clusterAddressOffset =  new HexString(0);
+        long clusterSize = defaults.size;
+        String clusterAccess = defaults.access;
+        String clusterResetValue = defaults.resetValue;
+        String clusterResetMask = defaults.resetMask;
+        Vector<Element> registers = new Vector<Element>();
+        Vector<Element> clusters = new Vector<Element>();
+        int clusterDim = 0;
+        int clusterDimIncrement = 0;
+        String clusterDimIndex = null;
+
+        String derived = cluster.getAttributeValue("derivedFrom");
+        if(null != derived)
+        {
+            log.error(Tool.getXMLRepresentationFor(cluster));
+            log.error("Derived Clusters not implemented !");
+            return null;
+        }
+        List<Element> children = cluster.getChildren();
+        for(Element child : children)
+        {
+            String tagName = child.getName();
+            switch(tagName)
+            {
+            // all defined child types from SVD standard
+
+            case "dim" :
+                clusterDim = (int)Tool.decode(child.getText());
+                break;
+
+            case "dimIncrement":
+                clusterDimIncrement = (int)Tool.decode(child.getText());
+                break;
+
+            case "dimIndex" :
+                clusterDimIndex = child.getText();
+                if(null != clusterDimIndex)
+                {
+                    clusterDimIndex = clusterDimIndex.trim();
+                }
+                break;
+
+            case "dimName" :
+            case "dimArrayIndex" :
+                // ignoring this for now.
+                break;
+
+            case "name" :
+                clusterName = child.getText();
+                if(null != clusterName)
+                {
+                    clusterName = clusterName.trim();
+                }
+                break;
+
+            case "description" :
+                clusterDescription = Tool.cleanupString(child.getText());
+                break;
+
+            case "alternateCluster" :
+            case "headerStructName":
+                // we ignore this for now.
+                break;
+
+            case "addressOffset" :
+                clusterAddressOffset = new HexString(child.getText());
+                break;
+
+            case "size" :
+                clusterSize = Tool.decode(child.getText());
+                break;
+
+            case "access" :
+                clusterAccess = child.getText();
+                if(null != clusterAccess)
+                {
+                    clusterAccess = clusterAccess.trim();
+                }
+                break;
+
+            case "protection" :
+                // we ignore that for now
+                break;
+
+            case "resetValue" :
+                clusterResetValue = child.getText();
+                break;
+
+            case "resetMask" :
+                clusterResetMask = child.getText();
+                break;
+
+            case "register" :
+                registers.add(child);
+                break;
+
+            case "cluster" :
+                clusters.add(child);
+                break;
+
+            default:
+                // undefined child found. This is not a valid SVD file !
+                log.error("Unknown cluster child tag: {}", tagName);
+                return null;
+            }
+        }
+        // the registers of this cluster inherit from the cluster
+        Defaults clusterDefaults = new Defaults(clusterSize, clusterAccess, clusterResetValue, clusterResetMask, defaults.protection);
+        Vector<SvdRegister> clusterRegisters = new Vector<SvdRegister>();
+        Vector<SvdCluster> subClusters = new Vector<SvdCluster>();
+        // dim* ?
+        if((0 != clusterDim) || (0 != clusterDimIncrement))
+        {
+            DimElementGroup cluGrp = new DimElementGroup(clusterDim, clusterDimIncrement, clusterDimIndex);
+            if(false == cluGrp.isValid())
+            {
+                log.trace("\n" + Tool.getXMLRepresentationFor(cluster));
+                log.error("invalid dim value");
+                return null;
+            }
+
+            for(int ci = 0; ci< cluGrp.getNumberElements(); ci++)
+            {
+                for(int ri = 0; ri < registers.size(); ri++)
+                {
+                    // prepare values for this register
+                    RegisterValues values = newRegisterValues(clusterDefaults);
+                    values.name = cluGrp.getElementNameFor(clusterName, ci);
+                    values.description = clusterDescription;
+                    values.addressOffset = clusterAddressOffset.add(ci * cluGrp.getByteOffsetBytes());
+                    if(false == buildRegister(registers.elementAt(ri), values, clusterRegisters, allRegisters))
+                    {
+                        return null;
+                    }
+                }
+                for(int i = 0; i < clusters.size(); i++)
+                {
+                    SvdCluster sub = buildCluster(clusters.elementAt(i), clusterDefaults, allRegisters);
+                    if(null == sub)
+                    {
+                        return null;
+                    }
+                    subClusters.add(sub);
+                }
+            }
+        }
+        else
+        {
+            if((0 < registers.size()) || (0 < clusters.size()))
+            {
+                // in violation of the standard someone just wanted to group some registers.
+                // so ignore the cluster and just add the registers
+                for(int ri = 0; ri < registers.size(); ri++)
+                {
+                    if(false == buildRegister(registers.elementAt(ri), newRegisterValues(clusterDefaults), clusterRegisters, allRegisters))
+                    {
+                        return null;
+                    }
+                }
+                for(int ci = 0; ci < clusters.size(); ci++)
+                {
+                    SvdCluster sub = buildCluster(clusters.elementAt(ci), clusterDefaults, allRegisters);
+                    if(null == sub)
+                    {
+                        return null;
+                    }
+                    subClusters.add(sub);
+                }
+            }
+            else
+            {
+                log.error("invalid cluster definition, no dim!(dim:{}, dim increment:{})", clusterDim, clusterDimIncrement);
+                log.error("\n" + Tool.getXMLRepresentationFor(cluster));
+                return null;
+            }
+        }
+        return new SvdCluster(clusterName, clusterDescription, clusterRegisters, subClusters);
+    }
+
+    /** adds the register, or all registers of a dim register.
+     *
+     * @param values the values the register starts with, the values in the element replace them.
+     * @param clusterRegisters the registers of the cluster, null if the register is not in a cluster.
+     * @param allRegisters all registers of the peripheral.
+     */
+    private boolean buildRegister(Element svdRegister, RegisterValues values,
+            Vector<SvdRegister> clusterRegisters, Vector<SvdRegister> allRegisters)
+    {
+        // check for unknown children
+        if(false == readRegisterElement(svdRegister, values))
+        {
+            return false;
+        }
+        if(null == values.name)
+        {
+            log.error("Register does not have a name !");
+            return false;
+        }
+        List<SvdField> fields = null;
+        if(null != values.fields)
+        {
+            fields = buildFields(values.fields);
+            if(null == fields)
+            {
+                return false;
+            }
+        }
+
+        // dim* ?
+        if((0 != values.dim) || (0 != values.dimIncrement))
+        {
+            // this is not one register but many,...
+            DimElementGroup grp = new DimElementGroup(values.dim, values.dimIncrement, values.dimIndex);
+            if(false == grp.isValid())
+            {
+                log.trace("\n" + Tool.getXMLRepresentationFor(svdRegister));
+                log.error("invalid dim value");
+                return false;
+            }
+            long groupAddressOffset = 0;
+            if(null != values.addressOffset)
+            {
+                groupAddressOffset = Tool.decode(values.addressOffset.toString());
+            }
+            for(int i = 0; i< grp.getNumberElements(); i++)
+            {
+                String name = grp.getElementNameFor(values.name, i);
+                if(null != name)
+                {
+                    name = name.trim();
+                }
+                String displayName = grp.getElementNameFor(values.displayName, i);
+                HexString addressOffset = new HexString(groupAddressOffset + (i * grp.getByteOffsetBytes()));
+                addRegister(newRegister(values, name, displayName, addressOffset, fields), clusterRegisters, allRegisters);
+            }
+        }
+        else
+        {
+            addRegister(newRegister(values, values.name, values.displayName, values.addressOffset, fields),
+                    clusterRegisters, allRegisters);
+        }
+        return true;
+    }
+
+    private static void addRegister(SvdRegister register, Vector<SvdRegister> clusterRegisters, Vector<SvdRegister> allRegisters)
+    {
+        if(null != clusterRegisters)
+        {
+            clusterRegisters.add(register);
+        }
+        allRegisters.add(register);
+    }
+
+    private static SvdRegister newRegister(RegisterValues values, String name, String displayName,
+            HexString addressOffset, List<SvdField> fields)
+    {
+        return new SvdRegister(
+                name,
+                displayName,
+                values.description,
+                addressOffset,
+                values.size,
+                values.access,
+                values.resetValue,
+                values.resetMask,
+                values.alternateRegister,
+                values.alternateGroup,
+                values.readAction,
+                values.modifiedWriteValues,
+                values.dataType,
+                fields);
+    }
+
+    private boolean readRegisterElement(Element svdRegister, RegisterValues values)
+    {
+        List<Element> children = svdRegister.getChildren();
+        for(Element child : children)
+        {
+            String tagName = child.getName();
+            switch(tagName)
+            {
+            // all defined child types from SVD standard
+            case "name" :
+                values.name = child.getText();
+                if(null != values.name)
+                {
+                    values.name = values.name.trim();
+                }
+                break;
+
+            case "displayName" :
+                values.displayName = Tool.cleanupString(child.getText());
+                break;
+
+            case "description" :
+                values.description = Tool.cleanupString(child.getText());
+                break;
+
+            case "alternateRegister" :
+                values.alternateRegister = trim(child.getText());
+                break;
+
+            case "addressOffset" :
+                values.addressOffset = new HexString(child.getText());
+                break;
+
+            case "size" :
+                values.size = Tool.decode(child.getText());
+                break;
+
+            case "access" :
+                values.access = trim(child.getText());
+                break;
+
+            case "protection" :
+                // we ignore this for now
+                break;
+
+            case "resetValue" :
+                values.resetValue = new HexString(child.getText());
+                break;
+
+            case "resetMask" :
+                values.resetMask = new HexString(child.getText());
+                break;
+
+            case "dataType" :
+                values.dataType = trim(child.getText());
+                break;
+
+            case "modifiedWriteValues" :
+                values.modifiedWriteValues = trim(child.getText());
+                break;
+
+            case "readAction" :
+                values.readAction = trim(child.getText());
+                break;
+
+            case "fields" :
+                values.fields = child;
+                break;
+
+            case "dim" :
+                values.dim = (int)Tool.decode(child.getText());
+                break;
+
+            case "dimIncrement":
+                values.dimIncrement = (int)Tool.decode(child.getText());
+                break;
+
+            case "dimIndex" :
+                values.dimIndex = trim(child.getText());
+                break;
+
+            case "alternateGroup" :
+                values.alternateGroup = trim(child.getText());
+                break;
+
+            case "dimName" :
+            case "dimArrayIndex" :
+            case "writeConstraint" :
+                log.warn("Register child {} (={}) not implemented!", tagName, Tool.getXMLRepresentationFor(child));
+                log.warn("\n" + Tool.getXMLRepresentationFor(svdRegister));
+                break;
+
+            default:
+                // undefined child found. This is not a valid SVD file !
+                log.error("Unknown register child tag: {}", tagName);
+                log.error("\n" + Tool.getXMLRepresentationFor(svdRegister));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String trim(String val)
+    {
+        if(null == val)
+        {
+            return null;
+        }
+        return val.trim();
+    }
+
+    /** @return the fields, or null on error. */
+    private List<SvdField> buildFields(Element fields)
+    {
+        Vector<SvdField> res = new Vector<SvdField>();
+        List<Element> fieldList = fields.getChildren();
+        for(Element field : fieldList)
+        {
+            if(false == buildField(field, res))
+            {
+                return null;
+            }
+        }
+        return res;
+    }
+
+    private boolean buildField(Element field, Vector<SvdField> res)
+    {
+        String svdName = null;
+        String description = null;
+        int bitOffset = -1;
+        int sizeBit = -1;
+        String access = null;
+        String modifiedWriteValues = null;
+        String readAction = null;
+        int dim = 0;
+        int dim_increment = 0;
+        String dim_index = null;
+        boolean isEnum = false;
+        // a field can have two enumerations, one for read and one for write
+        Enumeration enumeration = new Enumeration();
+
+        // check for unknown children
+        List<Element> children = field.getChildren();
+        for(Element child : children)
+        {
+            String name = child.getName();
+            switch(name)
+            {
+            // all defined child types from SVD standard
+            // compare to: https://arm-software.github.io/CMSIS_5/develop/SVD/html/elem_device.html
+
+            case "name":
+                svdName = Tool.cleanupString(child.getText());
+                break;
+
+            case "description":
+                description = Tool.cleanupString(child.getText());
+                break;
+
+            case "bitOffset":
+                bitOffset = (int)Tool.decode(child.getText());
+                break;
+
+            case "bitWidth":
+                sizeBit= (int)Tool.decode(child.getText());
+                break;
+
+            case "lsb":
+                bitOffset = (int)Tool.decode(child.getText());
+                if(-1 != sizeBit)
+                {
+                    // we already know msb, so fix the assumption of lsb = 0
+                    sizeBit = sizeBit - bitOffset;
+                }
+                break;
+
+            case "msb":
+                if(-1 == bitOffset)
+                {
+                    // we do not know lsb yet -> assume lsb = 0
+                    sizeBit = (int)Tool.decode(child.getText());
+                }
+                else
+                {
+                    sizeBit = (int)Tool.decode(child.getText()) - bitOffset;
+                }
+                break;
+
+            case "bitRange":
+                // bitRange value is [17:8] or [1:1]
+                String range = child.getText();
+                range = range.trim();
+                range = range.substring(1, range.length()); // remove // [
+                range = range.substring(0, range.length() -1); // remove // ]
+                String[] parts = range.split(":");
+                if(parts.length != 2)
+                {
+                    log.error("Invalid Bit range definition of {} !", child.getText());
+                    log.error("range: {}, parts: {} !", range, parts);
+                    return false;
+                }
+                bitOffset = (int)Tool.decode(parts[1]);
+                sizeBit = (int)Tool.decode(parts[0]) + 1 - bitOffset;
+                break;
+
+            case "access":
+                access = child.getText();
+                break;
+
+            case "modifiedWriteValues":
+                modifiedWriteValues = child.getText();
+                break;
+
+            case "readAction":
+                readAction = child.getText();
+                break;
+
+            case "writeConstraint": // limits allowable write values, what if I write something else? does the chip explode?
+            case "dimName":         // name of a C Structure to define the field
+                // -> ignore for now.
+                break;
+
+            case "enumeratedValues":
+                isEnum = true;
+                if(false == parseEnumeratedValues(child, enumeration))
+                {
+                    return false;
+                }
+                break;
+
+            case "dim":
+                dim = (int)Tool.decode(child.getText());
+                break;
+
+            case "dimIncrement":
+                dim_increment = (int)Tool.decode(child.getText());
+                break;
+
+            case "dimIndex":
+                dim_index = child.getText();
+                break;
+
+            case "dimArrayIndex":
+                log.error("field child dimArrayIndex (={}) not implemented!", child.getText());
+                return false;
+
+            default:
+                // undefined child found. This is not a valid SVD file !
+                log.error("Unknown field child tag: {}", name);
+                return false;
+            }
+        }
+
+        // dim* ?
+        if((0 != dim) || (0 != dim_increment))
+        {
+            // this is not one field but many,...
+            DimElementGroup grp = new DimElementGroup(dim, dim_increment, dim_index);
+            if(false == grp.isValid())
+            {
+                log.trace("\n" + Tool.getXMLRepresentationFor(field));
+                log.error("invalid dim value");
+                return false;
+            }
+            for(int i = 0; i< grp.getNumberElements(); i++)
+            {
+                res.add(new SvdField(
+                        grp.getElementNameFor(svdName, i),
+                        description,
+                        bitOffset + (i * grp.getByteOffsetBytes()),  // yes in this instance the bytes are bits!
+                        sizeBit,
+                        access,
+                        modifiedWriteValues,
+                        readAction,
+                        isEnum,
+                        enumeration.name,
+                        enumeration.usageRight,
+                        enumeration.values));
+            }
+        }
+        else
+        {
+            res.add(new SvdField(
+                    svdName,
+                    description,
+                    bitOffset,
+                    sizeBit,
+                    access,
+                    modifiedWriteValues,
+                    readAction,
+                    isEnum,
+                    enumeration.name,
+                    enumeration.usageRight,
+                    enumeration.values));
+        }
+        return true;
+    }
+
+    private boolean parseEnumeratedValues(Element enumeratedValues, Enumeration enumeration)
+    {
+        if(null != enumeratedValues.getAttribute("derivedFrom "))
+        {
+            log.error("Derived enumeration not yet supported!");
+            return false;
+        }
+        // check for unknown children
+        for(Element child : enumeratedValues.getChildren())
+        {
+            String name = child.getName();
+            switch(name)
+            {
+            // all defined child types from SVD standard
+            // compare to: https://arm-software.github.io/CMSIS_5/develop/SVD/html/elem_registers.html#elem_enumeratedValues
+
+            case "name":
+                enumeration.name = Tool.cleanupString(child.getText());
+                break;
+
+            case "usage":
+                enumeration.usageRight  = Tool.cleanupString(child.getText());
+                break;
+
+            case "headerEnumName":
+                log.error("enumeration child headerEnumName(={}) not implemented!", child.getText());
+                return false;
+
+            case "enumeratedValue":
+                SvdEnumValue value = buildEnumValue(child);
+                if(null == value)
+                {
+                    log.error("Failed to check enumeration element !");
+                    return false;
+                }
+                enumeration.values.add(value);
+                break;
+
+            default:
+                // undefined child found. This is not a valid SVD file !
+                log.error("Unknown enumeration child tag: {}", name);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SvdEnumValue buildEnumValue(Element enumE)
+    {
+        String svdName = null;
+        String svdDescription = null;
+        String svdValue = null;
+        boolean svdIsDefault = false;
+
+        // check for unknown children
+        List<Element> children = enumE.getChildren();
+        for(Element child : children)
+        {
+            String name = child.getName();
+            switch(name)
+            {
+            // all defined child types from SVD standard
+            // compare to: https://arm-software.github.io/CMSIS_5/develop/SVD/html/elem_registers.html#elem_enumeratedValues
+
+            case "name":
+                svdName = Tool.cleanupString(child.getText());
+                break;
+
+            case "description":
+                svdDescription  = Tool.cleanupString(child.getText());
+                break;
+
+            case "value":
+                svdValue  = Tool.cleanupString(child.getText());
+                break;
+
+            case "isDefault":
+                svdIsDefault = Boolean.valueOf(child.getText());
+                break;
+
+            default:
+                // undefined child found. This is not a valid SVD file !
+                log.error("Unknown enumeration value child tag: {}", name);
+                return null;
+            }
+        }
+        return new SvdEnumValue(svdName, svdDescription, svdValue, svdIsDefault);
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.chipselect.importer.parser.svd;
+
+import java.util.List;
+
+import org.chipselect.importer.parser.HexString;
+
+/** a peripheral with all values resolved.
+ *
+ * A derived peripheral already contains the values of the peripheral it is
+ * derived from, if it does not have its own.
+ */
+public final class SvdPeripheral
+{
+    private final String name;
+    private final String derivedFrom;
+    private final String description;
+    private final String disableCondition;
+    private final HexString baseAddress;
+    private final String groupName;
+    private final List<SvdAddressBlock> addressBlocks;
+    private final List<SvdInterrupt> interrupts;
+    private final List<SvdRegister> registers;
+    private final List<SvdCluster> clusters;
+
+    public SvdPeripheral(
+            String name,
+            String derivedFrom,
+            String description,
+            String disableCondition,
+            HexString baseAddress,
+            String groupName,
+            List<SvdAddressBlock> addressBlocks,
+            List<SvdInterrupt> interrupts,
+            List<SvdRegister> registers,
+            List<SvdCluster> clusters)
+    {
+        this.name = name;
+        this.derivedFrom = derivedFrom;
+        this.description = description;
+        this.disableCondition = disableCondition;
+        this.baseAddress = baseAddress;
+        this.groupName = groupName;
+        this.addressBlocks = List.copyOf(addressBlocks);
+        this.interrupts = List.copyOf(interrupts);
+        if(null == registers)
+        {
+            this.registers = null;
+        }
+        else
+        {
+            this.registers = List.copyOf(registers);
+        }
+        this.clusters = List.copyOf(clusters);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /** @return name of the peripheral this one is derived from, or null if it is not derived. */
+    public String getDerivedFrom()
+    {
+        return derivedFrom;
+    }
+
+    public boolean isDerived()
+    {
+        return null != derivedFrom;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public String getDisableCondition()
+    {
+        return disableCondition;
+    }
+
+    public HexString getBaseAddress()
+    {
+        return baseAddress;
+    }
+
+    /** @return the group name, or null if the SVD does not have one. */
+    public String getGroupName()
+    {
+        return groupName;
+    }
+
+    public List<SvdAddressBlock> getAddressBlocks()
+    {
+        return addressBlocks;
+    }
+
+    public List<SvdInterrupt> getInterrupts()
+    {
+        return interrupts;
+    }
+
+    /** all registers, including those of the clusters, in the order of the SVD.
+     *
+     * @return the registers, or null if the peripheral does not have a registers element.
+     */
+    public List<SvdRegister> getRegisters()
+    {
+        return registers;
+    }
+
+    /** @return the clusters on the top level of the registers element. */
+    public List<SvdCluster> getClusters()
+    {
+        return clusters;
+    }
+
+}
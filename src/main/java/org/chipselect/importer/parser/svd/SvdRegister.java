@@ -0,0 +1,175 @@
+package org.chipselect.importer.parser.svd;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.chipselect.importer.parser.HexString;
+
+/** one register of a peripheral, a dim register becomes one SvdRegister for each element.
+ *
+ * size, access, reset value and reset mask already contain the values
+ * inherited from the cluster, peripheral or device.
+ */
+public final class SvdRegister
+{
+    private final String name;
+    private final String displayName;
+    private final String description;
+    private final HexString addressOffset;
+    private final long size;
+    private final String access;
+    private final HexString resetValue;
+    private final HexString resetMask;
+    private final String alternateRegister;
+    private final String alternateGroup;
+    private final String readAction;
+    private final String modifiedWriteValues;
+    private final String dataType;
+    private final List<SvdField> fields;
+
+    public SvdRegister(
+            String name,
+            String displayName,
+            String description,
+            HexString addressOffset,
+            long size,
+            String access,
+            HexString resetValue,
+            HexString resetMask,
+            String alternateRegister,
+            String alternateGroup,
+            String readAction,
+            String modifiedWriteValues,
+            String dataType,
+            List<SvdField> fields)
+    {
+        this.name = name;
+        this.displayName = displayName;
+        this.description = description;
+        this.addressOffset = addressOffset;
+        this.size = size;
+        this.access = access;
+        this.resetValue = resetValue;
+        this.resetMask = resetMask;
+        this.alternateRegister = alternateRegister;
+        this.alternateGroup = alternateGroup;
+        this.readAction = readAction;
+        this.modifiedWriteValues = modifiedWriteValues;
+        this.dataType = dataType;
+        if(null == fields)
+        {
+            this.fields = null;
+        }
+        else
+        {
+            this.fields = List.copyOf(fields);
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getDisplayName()
+    {
+        return displayName;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public HexString getAddressOffset()
+    {
+        return addressOffset;
+    }
+
+    /** @return size in bits, -1 if neither the SVD nor the defaults have a size. */
+    public long getSize()
+    {
+        return size;
+    }
+
+    public String getAccess()
+    {
+        return access;
+    }
+
+    public HexString getResetValue()
+    {
+        return resetValue;
+    }
+
+    public HexString getResetMask()
+    {
+        return resetMask;
+    }
+
+    public String getAlternateRegister()
+    {
+        return alternateRegister;
+    }
+
+    public String getAlternateGroup()
+    {
+        return alternateGroup;
+    }
+
+    public String getReadAction()
+    {
+        return readAction;
+    }
+
+    public String getModifiedWriteValues()
+    {
+        return modifiedWriteValues;
+    }
+
+    public String getDataType()
+    {
+        return dataType;
+    }
+
+    /** @return the fields, or null if the register does not have a fields element. */
+    public List<SvdField> getFields()
+    {
+        return fields;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if(this == obj)
+        {
+            return true;
+        }
+        if(false == (obj instanceof SvdRegister))
+        {
+            return false;
+        }
+        SvdRegister other = (SvdRegister)obj;
+        return (true == Objects.equals(name, other.name)) &&
+                (true == Objects.equals(displayName, other.displayName)) &&
+                (true == Objects.equals(description, other.description)) &&
+                (true == HexString.sameValue(addressOffset, other.addressOffset)) &&
+                (size == other.size) &&
+                (true == Objects.equals(access, other.access)) &&
+                (true == HexString.sameValue(resetValue, other.resetValue)) &&
+                (true == HexString.sameValue(resetMask, other.resetMask)) &&
+                (true == Objects.equals(alternateRegister, other.alternateRegister)) &&
+                (true == Objects.equals(alternateGroup, other.alternateGroup)) &&
+                (true == Objects.equals(readAction, other.readAction)) &&
+                (true == Objects.equals(modifiedWriteValues, other.modifiedWriteValues)) &&
+                (true == Objects.equals(dataType, other.dataType)) &&
+                (true == Objects.equals(fields, other.fields));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, size, fields);
+    }
+
+}
@@ -0,0 +1,363 @@
+package org.chipselect.importer.parser.svd;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jdom2.Attribute;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** reads a SVD file one peripheral at a time.
+ *
+ * Only the device level elements and the peripheral that is currently
+ * handled are kept in memory. So large SVD files do not need much memory.
+ * The elements are returned as JDOM elements, the same as if the whole
+ * file had been read into a Document.
+ *
+ * usage: readDeviceHeader(), then nextPeripheral() until it returns null,
+ * then readDeviceTrailer().
+ */
+public class SvdStreamReader
+{
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    private final InputStream in;
+    private XMLStreamReader reader = null;
+    private Element device = null;
+    private boolean inPeripherals = false;
+    private boolean failed = false;
+    private int numPeripherals = 0;
+
+    public SvdStreamReader(InputStream in)
+    {
+        this.in = in;
+    }
+
+    private static XMLInputFactory createFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        // SVD files do not need DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /** finds the names of all peripherals that other peripherals are derived from.
+     *
+     * Reads only the attributes, so this needs (nearly) no memory.
+     *
+     * @param svdFile the SVD file.
+     * @return names of the peripherals, or null if the file could not be read.
+     */
+    public static Set<String> findDerivedFromNames(File svdFile)
+    {
+        Logger log = LoggerFactory.getLogger(SvdStreamReader.class.getName());
+        HashSet<String> res = new HashSet<String>();
+        try(InputStream in = new BufferedInputStream(new FileInputStream(svdFile)))
+        {
+            XMLStreamReader reader = createFactory().createXMLStreamReader(in);
+            try
+            {
+                while(true == reader.hasNext())
+                {
+                    if((XMLStreamConstants.START_ELEMENT == reader.next())
+                            && (true == "peripheral".equals(reader.getLocalName())))
+                    {
+                        String derived = reader.getAttributeValue(null, "derivedFrom");
+                        if(null != derived)
+                        {
+                            res.add(derived);
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch(IOException | XMLStreamException e)
+        {
+            log.error("could not read {} : {}", svdFile, e.toString());
+            return null;
+        }
+        return res;
+    }
+
+    /** true if reading the file failed. */
+    public boolean hasFailed()
+    {
+        return failed;
+    }
+
+    public int getNumberOfPeripherals()
+    {
+        return numPeripherals;
+    }
+
+    private void fail(XMLStreamException e)
+    {
+        log.error("invalid SVD file : {}", e.getMessage());
+        failed = true;
+    }
+
+    /** reads the root element and all its children up to the peripherals.
+     *
+     * @return the device element with an empty peripherals element, or null on error.
+     */
+    public Element readDeviceHeader()
+    {
+        try
+        {
+            reader = createFactory().createXMLStreamReader(in);
+            while((true == reader.hasNext()) && (XMLStreamConstants.START_ELEMENT != reader.next()))
+            {
+                // skip prolog and comments
+            }
+            if(false == reader.isStartElement())
+            {
+                log.error("XML root element is missing !");
+                failed = true;
+                return null;
+            }
+            device = createElement();
+            readChildrenOfDevice();
+            return device;
+        }
+        catch(XMLStreamException e)
+        {
+            fail(e);
+            return null;
+        }
+    }
+
+    /** reads the children of the device until the peripherals start.
+     *
+     * @return true if the reader is now in the peripherals element.
+     */
+    private boolean readChildrenOfDevice() throws XMLStreamException
+    {
+        while(true == reader.hasNext())
+        {
+            int event = reader.next();
+            if(XMLStreamConstants.START_ELEMENT == event)
+            {
+                if(true == "peripherals".equals(reader.getLocalName()))
+                {
+                    // the peripherals are read later, one at a time
+                    device.addContent(new Element("peripherals"));
+                    inPeripherals = true;
+                    return true;
+                }
+                device.addContent(readElement());
+            }
+            else if(XMLStreamConstants.END_ELEMENT == event)
+            {
+                // end of device
+                return false;
+            }
+            else if(true == isText(event))
+            {
+                device.addContent(reader.getText());
+            }
+        }
+        return false;
+    }
+
+    /** reads the next peripheral.
+     *
+     * @return the peripheral element, or null if there are no more peripherals (or on error).
+     */
+    public Element nextPeripheral()
+    {
+        if((false == inPeripherals) || (true == failed))
+        {
+            return null;
+        }
+        try
+        {
+            while(true == reader.hasNext())
+            {
+                int event = reader.next();
+                if(XMLStreamConstants.START_ELEMENT == event)
+                {
+                    Element peripheral = readElement();
+                    numPeripherals++;
+                    return peripheral;
+                }
+                else if(XMLStreamConstants.END_ELEMENT == event)
+                {
+                    // end of peripherals
+                    inPeripherals = false;
+                    return null;
+                }
+            }
+            inPeripherals = false;
+            return null;
+        }
+        catch(XMLStreamException e)
+        {
+            fail(e);
+            return null;
+        }
+    }
+
+    /** the peripherals that have not been read yet.
+     *
+     * If reading the file fails the iteration ends, hasFailed() tells if that happened.
+     */
+    public Iterator<Element> peripherals()
+    {
+        return new Iterator<Element>()
+        {
+            private Element next = null;
+
+            @Override
+            public boolean hasNext()
+            {
+                if(null == next)
+                {
+                    next = nextPeripheral();
+                }
+                return null != next;
+            }
+
+            @Override
+            public Element next()
+            {
+                if(false == hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                Element res = next;
+                next = null;
+                return res;
+            }
+        };
+    }
+
+    /** reads the children of the device that come after the peripherals.
+     *
+     * @return the device element, containing the elements after the peripherals, or null on error.
+     */
+    public Element readDeviceTrailer()
+    {
+        if(true == failed)
+        {
+            return null;
+        }
+        try
+        {
+            while(true == inPeripherals)
+            {
+                // skip peripherals that were not read
+                nextPeripheral();
+            }
+            if(null == reader)
+            {
+                return null;
+            }
+            while(true == reader.hasNext())
+            {
+                int event = reader.next();
+                if(XMLStreamConstants.START_ELEMENT == event)
+                {
+                    device.addContent(readElement());
+                }
+                else if(XMLStreamConstants.END_ELEMENT == event)
+                {
+                    break;
+                }
+            }
+            reader.close();
+            return device;
+        }
+        catch(XMLStreamException e)
+        {
+            fail(e);
+            return null;
+        }
+    }
+
+    private static boolean isText(int event)
+    {
+        return (XMLStreamConstants.CHARACTERS == event)
+                || (XMLStreamConstants.CDATA == event)
+                || (XMLStreamConstants.SPACE == event);
+    }
+
+    /** creates an element for the current start tag, without its children. */
+    private Element createElement()
+    {
+        Element res;
+        String prefix = reader.getPrefix();
+        if((null == prefix) || (0 == prefix.length()))
+        {
+            res = new Element(reader.getLocalName());
+        }
+        else
+        {
+            res = new Element(reader.getLocalName(), prefix, reader.getNamespaceURI());
+        }
+        for(int i = 0; i < reader.getNamespaceCount(); i++)
+        {
+            String nsPrefix = reader.getNamespacePrefix(i);
+            if((null != nsPrefix) && (0 < nsPrefix.length()) && (false == nsPrefix.equals(prefix)))
+            {
+                res.addNamespaceDeclaration(Namespace.getNamespace(nsPrefix, reader.getNamespaceURI(i)));
+            }
+        }
+        for(int i = 0; i < reader.getAttributeCount(); i++)
+        {
+            String attPrefix = reader.getAttributePrefix(i);
+            if((null == attPrefix) || (0 == attPrefix.length()))
+            {
+                res.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+            else
+            {
+                res.setAttribute(new Attribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i),
+                        Namespace.getNamespace(attPrefix, reader.getAttributeNamespace(i))));
+            }
+        }
+        return res;
+    }
+
+    /** reads the element that starts at the current start tag, including all children. */
+    private Element readElement() throws XMLStreamException
+    {
+        Element res = createElement();
+        while(true == reader.hasNext())
+        {
+            int event = reader.next();
+            if(XMLStreamConstants.START_ELEMENT == event)
+            {
+                res.addContent(readElement());
+            }
+            else if(XMLStreamConstants.END_ELEMENT == event)
+            {
+                return res;
+            }
+            else if(true == isText(event))
+            {
+                res.addContent(reader.getText());
+            }
+        }
+        throw new XMLStreamException("end of file inside of " + res.getName());
+    }
+
+}
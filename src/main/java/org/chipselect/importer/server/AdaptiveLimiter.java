@@ -0,0 +1,236 @@
+package org.chipselect.importer.server;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/** limits the number of requests in flight, the limit adapts to the server.
+ *
+ * The limit follows AIMD (additive increase, multiplicative decrease): Every
+ * successful response that was not slower than usual increases the limit by
+ * 1/limit, so by about one per round trip. A failed request, or a smoothed
+ * latency of more than twice the lowest latency seen (plus 1 ms), reduces
+ * the limit by 10%. Only requests that were started after the last
+ * reduction can reduce the limit again, so one overload does not reduce it
+ * many times. If the server stays slow at the lowest limit, its current
+ * latency becomes the new reference.
+ *
+ * Each kind of request has its own lowest and smoothed latency. Reading all
+ * registers of a peripheral takes longer than reading a vendor, that does
+ * not mean that the server is overloaded.
+ */
+public class AdaptiveLimiter
+{
+    public static final int DEFAULT_INITIAL_LIMIT = 4;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    private static final double BACKOFF = 0.9;
+    private static final double TOLERANCE = 2.0;
+    private static final double SMOOTHING = 0.2;
+    /** latency changes below this are noise */
+    private static final long LATENCY_SLACK_NS = 1000000;
+
+    /** the latency of one kind of request. */
+    private static final class Baseline
+    {
+        long minLatency = Long.MAX_VALUE;
+        double smoothedLatency = 0;
+    }
+
+    private final String name;
+    private final LongSupplier clock;
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFree = lock.newCondition();
+    // protected by lock
+    private double limit;
+    private int inFlight = 0;
+    private final HashMap<String, Baseline> baselines = new HashMap<String, Baseline>();
+    private long lastDecrease = 0;
+    private int maxReachedLimit;
+    private int numDecreases = 0;
+    // statistics
+    private final LongAdder numRequests = new LongAdder();
+    private final LongAdder numQueued = new LongAdder();
+    private final LongAdder queueTime = new LongAdder();
+    private final LongAccumulator maxQueueTime = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param name describes the requests, used in the status.
+     * @param initialLimit number of requests allowed at the start.
+     * @param minLimit the limit never gets lower than this.
+     * @param maxLimit the limit never gets higher than this.
+     */
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit)
+    {
+        this(name, initialLimit, minLimit, maxLimit, System::nanoTime);
+    }
+
+    /**
+     * @param clock the time in nanoseconds, the tests give their own time.
+     */
+    AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, LongSupplier clock)
+    {
+        this.name = name;
+        this.clock = clock;
+        if(1 > minLimit)
+        {
+            minLimit = 1;
+        }
+        if(minLimit > maxLimit)
+        {
+            maxLimit = minLimit;
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        maxReachedLimit = (int)limit;
+        lastDecrease = clock.getAsLong();
+    }
+
+    /** waits until the request may be sent.
+     *
+     * @return start time of the request, has to be given to release().
+     */
+    public long acquire()
+    {
+        long queued = clock.getAsLong();
+        boolean waited = false;
+        lock.lock();
+        try
+        {
+            while(inFlight >= (int)limit)
+            {
+                waited = true;
+                slotFree.awaitUninterruptibly();
+            }
+            inFlight++;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        long start = clock.getAsLong();
+        numRequests.increment();
+        if(true == waited)
+        {
+            numQueued.increment();
+            queueTime.add(start - queued);
+            maxQueueTime.accumulate(start - queued);
+        }
+        return start;
+    }
+
+    /** reports that the request has finished.
+     *
+     * @param start value returned by acquire().
+     * @param success false if the request failed.
+     */
+    public void release(long start, boolean success)
+    {
+        release(start, success, "");
+    }
+
+    /** reports that the request has finished.
+     *
+     * @param start value returned by acquire().
+     * @param success false if the request failed.
+     * @param kind requests of the same kind are compared to each other, like the resource.
+     */
+    public void release(long start, boolean success, String kind)
+    {
+        long latency = clock.getAsLong() - start;
+        lock.lock();
+        try
+        {
+            inFlight--;
+            Baseline baseline = baselines.computeIfAbsent(kind, k -> new Baseline());
+            if(latency < baseline.minLatency)
+            {
+                baseline.minLatency = latency;
+            }
+            if(0 == baseline.smoothedLatency)
+            {
+                baseline.smoothedLatency = latency;
+            }
+            else
+            {
+                baseline.smoothedLatency = baseline.smoothedLatency + SMOOTHING * (latency - baseline.smoothedLatency);
+            }
+            boolean overloaded = (false == success)
+                    || (baseline.smoothedLatency > TOLERANCE * baseline.minLatency + LATENCY_SLACK_NS);
+            if(true == overloaded)
+            {
+                if((minLimit == (int)limit) && (true == success))
+                {
+                    // the server is slower than at the start, even with the lowest limit
+                    // -> the latency it has now is the new normal
+                    baseline.minLatency = (long)((baseline.smoothedLatency - LATENCY_SLACK_NS) / TOLERANCE);
+                }
+                else if(start > lastDecrease)
+                {
+                    limit = Math.max(minLimit, limit * BACKOFF);
+                    lastDecrease = clock.getAsLong();
+                    numDecreases++;
+                }
+            }
+            else if(inFlight + 1 >= (int)limit)
+            {
+                // only grow if the limit is used
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+                if(maxReachedLimit < (int)limit)
+                {
+                    maxReachedLimit = (int)limit;
+                }
+            }
+            slotFree.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of requests that may currently be in flight.
+     */
+    public int getLimit()
+    {
+        lock.lock();
+        try
+        {
+            return (int)limit;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public String getStatus()
+    {
+        StringBuilder sb = new StringBuilder();
+        lock.lock();
+        try
+        {
+            sb.append("Limit " + name + " : " + (int)limit + " requests in flight allowed ("
+                    + minLimit + " - " + maxLimit + ", highest " + maxReachedLimit + ", reduced "
+                    + numDecreases + " times), ");
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        long queued = numQueued.sum();
+        long avg = (0 == queued) ? 0 : queueTime.sum() / queued;
+        sb.append(numRequests.sum() + " requests, " + queued + " waited (average "
+                + TimeUnit.NANOSECONDS.toMillis(avg) + " ms, max "
+                + TimeUnit.NANOSECONDS.toMillis(maxQueueTime.get()) + " ms)\n");
+        return sb.toString();
+    }
+
+}
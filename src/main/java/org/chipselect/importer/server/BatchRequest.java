@@ -0,0 +1,239 @@
+package org.chipselect.importer.server;
+
+import java.util.Map;
+import java.util.Vector;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** sends many requests of the same type to the same resource with a few requests.
+ *
+ * Up to batch size items are packed into one request. The items are sent
+ * as JSON array in the "batch" parameter. The server answers with a JSON
+ * array that has one entry for each item. The entry of a created item
+ * contains its id. The entry of a failed item contains an "error".
+ *
+ * With a batch size of 1 each item is sent as a normal request. That works
+ * with all servers.
+ */
+public class BatchRequest
+{
+    public static final String PARAMETER = "batch";
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    private final String resource;
+    private final int type;
+    private final int batchSize;
+    private final Vector<Request> items = new Vector<Request>();
+    /** answer of the server for each item, null if the item failed */
+    private final Vector<Response> results = new Vector<Response>();
+    private final Vector<String> errors = new Vector<String>();
+    private int numRequests = 0;
+
+    public BatchRequest(String resource, int type)
+    {
+        this(resource, type, DEFAULT_BATCH_SIZE);
+    }
+
+    public BatchRequest(String resource, int type, int batchSize)
+    {
+        this.resource = resource;
+        this.type = type;
+        if(1 > batchSize)
+        {
+            batchSize = 1;
+        }
+        this.batchSize = batchSize;
+    }
+
+    /** number of items in a request.
+     *
+     * @param req the request.
+     * @return number of items if this is a batch request, otherwise 1.
+     */
+    public static int getNumberOfItems(Request req)
+    {
+        String batch = req.getParameter(PARAMETER);
+        if(null == batch)
+        {
+            return 1;
+        }
+        try
+        {
+            return new JSONArray(batch).length();
+        }
+        catch(JSONException e)
+        {
+            return 1;
+        }
+    }
+
+    /** adds an item to the batch.
+     *
+     * @param req the item. Needs to have the same resource and type as the batch.
+     * @return the number of the item in this batch, or -1 if the item does not fit this batch.
+     */
+    public int add(Request req)
+    {
+        if((false == resource.equals(req.getResource())) || (type != req.getType()))
+        {
+            log.error("can not add a {} to a batch of {} on {}", req, Request.getMethodName(type), resource);
+            return -1;
+        }
+        items.add(req);
+        return items.size() - 1;
+    }
+
+    public int size()
+    {
+        return items.size();
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public int getNumberOfRequests()
+    {
+        return numRequests;
+    }
+
+    /** sends all items that have not been sent yet.
+     *
+     * @param srv the server to send the items to.
+     * @return true = all items were successful, false = at least one item failed.
+     */
+    public boolean execute(Server srv)
+    {
+        boolean success = true;
+        while(results.size() < items.size())
+        {
+            int start = results.size();
+            int end = Math.min(start + batchSize, items.size());
+            if(1 == end - start)
+            {
+                sendSingle(srv, items.get(start));
+            }
+            else
+            {
+                sendBatch(srv, start, end);
+            }
+            for(int i = start; i < end; i++)
+            {
+                if(null != errors.get(i))
+                {
+                    log.error("{} on {} failed : {}", Request.getMethodName(type), resource, errors.get(i));
+                    success = false;
+                }
+            }
+        }
+        return success;
+    }
+
+    private void sendSingle(Server srv, Request req)
+    {
+        numRequests++;
+        Response res = srv.execute(req);
+        if(false == res.wasSuccessfull())
+        {
+            addResult(null, res.getFailureDescription());
+        }
+        else
+        {
+            addResult(res, null);
+        }
+    }
+
+    private void sendBatch(Server srv, int start, int end)
+    {
+        JSONArray batch = new JSONArray();
+        for(int i = start; i < end; i++)
+        {
+            JSONObject item = new JSONObject();
+            for(Map.Entry<String, String> e : items.get(i).getParameters().entrySet())
+            {
+                item.put(e.getKey(), e.getValue());
+            }
+            batch.put(item);
+        }
+        Request req = new Request(resource, type);
+        req.addPostParameter(PARAMETER, batch.toString());
+        numRequests++;
+        Response res = srv.execute(req);
+        if(false == res.wasSuccessfull())
+        {
+            for(int i = start; i < end; i++)
+            {
+                addResult(null, res.getFailureDescription());
+            }
+        }
+        else if(end - start != res.numResults())
+        {
+            for(int i = start; i < end; i++)
+            {
+                addResult(null, "server answered " + res.numResults() + " of " + (end - start) + " items");
+            }
+        }
+        else
+        {
+            for(int i = 0; i < end - start; i++)
+            {
+                if(true == res.has(i, "error"))
+                {
+                    addResult(null, res.getString(i, "error"));
+                }
+                else
+                {
+                    addResult(res.getResult(i), null);
+                }
+            }
+        }
+    }
+
+    private void addResult(Response res, String error)
+    {
+        results.add(res);
+        errors.add(error);
+    }
+
+    /** the id the server reported for a created item.
+     *
+     * @param item number of the item.
+     * @return the id, or 0 if the item failed or has not been sent.
+     */
+    public int getId(int item)
+    {
+        if((item >= results.size()) || (null == results.get(item)))
+        {
+            return 0;
+        }
+        return results.get(item).getInt("id");
+    }
+
+    /**
+     * @param item number of the item.
+     * @return description of the error, or null if the item was successful.
+     */
+    public String getError(int item)
+    {
+        if(item >= results.size())
+        {
+            return "not sent";
+        }
+        return errors.get(item);
+    }
+
+    /** removes all items so that the batch can be used again. */
+    public void clear()
+    {
+        items.clear();
+        results.clear();
+        errors.clear();
+    }
+
+}
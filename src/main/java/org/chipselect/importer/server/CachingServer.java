@@ -0,0 +1,166 @@
+package org.chipselect.importer.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/** keeps the responses to GET requests so that the same request is only send once.
+ *
+ * Requests that change data on the server remove all cached responses of
+ * that resource. The least recently used response is dropped if the cache
+ * is full.
+ */
+public class CachingServer implements Server
+{
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Server srv;
+    private final LinkedHashMap<String, Response> cache;
+    private int hits = 0;
+    private int misses = 0;
+    private int invalidations = 0;
+    /** counts the writes, a response that was requested before a write might be outdated */
+    private long writes = 0;
+
+    public CachingServer(Server srv)
+    {
+        this(srv, DEFAULT_MAX_ENTRIES);
+    }
+
+    public CachingServer(Server srv, final int maxEntries)
+    {
+        this.srv = srv;
+        // access order -> the eldest entry is the least recently used one
+        cache = new LinkedHashMap<String, Response>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Response> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    private synchronized Response lookup(String key)
+    {
+        Response res = cache.get(key);
+        if(null == res)
+        {
+            misses++;
+        }
+        else
+        {
+            hits++;
+        }
+        return res;
+    }
+
+    private synchronized long getWrites()
+    {
+        return writes;
+    }
+
+    private synchronized void store(String key, Response res, long writesBefore)
+    {
+        if((true == res.wasSuccessfull()) && (writesBefore == writes))
+        {
+            cache.put(key, res);
+        }
+    }
+
+    private synchronized void invalidate(Request req)
+    {
+        final String prefix = req.getResource() + "?";
+        writes++;
+        int before = cache.size();
+        cache.keySet().removeIf(k -> k.startsWith(prefix));
+        invalidations += before - cache.size();
+    }
+
+    @Override
+    public Response execute(Request req)
+    {
+        if(Request.GET == req.getType())
+        {
+            String key = req.getKey();
+            Response res = lookup(key);
+            if(null == res)
+            {
+                long writesBefore = getWrites();
+                res = srv.execute(req);
+                store(key, res, writesBefore);
+            }
+            return res;
+        }
+        else
+        {
+            invalidate(req);
+            Response res = srv.execute(req);
+            invalidate(req);
+            return res;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Response> executeAsync(Request req)
+    {
+        if(Request.GET == req.getType())
+        {
+            final String key = req.getKey();
+            Response res = lookup(key);
+            if(null != res)
+            {
+                return CompletableFuture.completedFuture(res);
+            }
+            final long writesBefore = getWrites();
+            return srv.executeAsync(req).thenApply(r -> {
+                store(key, r, writesBefore);
+                return r;
+            });
+        }
+        else
+        {
+            invalidate(req);
+            return srv.executeAsync(req).whenComplete((r, e) -> invalidate(req));
+        }
+    }
+
+    @Override
+    public <T> T runExclusive(String key, Supplier<T> action)
+    {
+        return srv.runExclusive(key, action);
+    }
+
+    @Override
+    public String getStatus()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(srv.getStatus());
+        synchronized(this)
+        {
+            sb.append("Cache : " + hits + " hits, " + misses + " misses, "
+                    + invalidations + " entries invalidated, " + cache.size() + " entries\n");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void enableDryRunMode()
+    {
+        srv.enableDryRunMode();
+    }
+
+    @Override
+    public void close()
+    {
+        synchronized(this)
+        {
+            cache.clear();
+        }
+        srv.close();
+    }
+
+}
@@ -0,0 +1,277 @@
+package org.chipselect.importer.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+/** what needs to be done on the server for one entry.
+ *
+ * The entry is either new (CREATE), on the server but with different
+ * values (UPDATE) or on the server with the same values (NONE).
+ *
+ * The children are the entries that belong to this entry, like the fields
+ * of a register. They are written after this entry. A new child gets the id
+ * of this entry in its parent column, so a child of a new entry can only be
+ * created once the server reported the id of this entry.
+ *
+ * A new entry can also need the id of an entry that is not its parent, like
+ * a derived peripheral instance that needs the new peripheral of the
+ * original. Only ImportPlan writes such entries in the right order.
+ */
+public class Change
+{
+    public static final int NONE = 0;
+    public static final int CREATE = 1;
+    public static final int UPDATE = 2;
+
+    private final String resource;
+    private final String name;
+    private final String parentColumn;
+    private int type;
+    private volatile int id;
+    /** column -> value of a new entry, or the changed values of an existing entry */
+    private final LinkedHashMap<String, String> values = new LinkedHashMap<String, String>();
+    /** the changed values, as "column : old -> new" */
+    private final Vector<String> differences = new Vector<String>();
+    private final Vector<Change> children = new Vector<Change>();
+    /** other entries that need to be written before this one, and the column that gets their id */
+    private final LinkedHashMap<Change, String> dependencies = new LinkedHashMap<Change, String>();
+
+    private Change(int type, String resource, String name, String parentColumn, int id)
+    {
+        this.type = type;
+        this.resource = resource;
+        this.name = name;
+        this.parentColumn = parentColumn;
+        this.id = id;
+    }
+
+    /** an entry that is not on the server.
+     *
+     * @param resource the resource like "register".
+     * @param name name of the entry, only used to report the change.
+     * @param parentColumn the column that gets the id of the parent, like "per_id". null = no parent.
+     * @return the change.
+     */
+    public static Change create(String resource, String name, String parentColumn)
+    {
+        return new Change(CREATE, resource, name, parentColumn, 0);
+    }
+
+    /** an entry that is on the server.
+     *
+     * The change stays NONE until a value has changed.
+     *
+     * @param resource the resource like "register".
+     * @param name name of the entry, only used to report the change.
+     * @param id the id of the entry on the server.
+     * @return the change.
+     */
+    public static Change existing(String resource, String name, int id)
+    {
+        return new Change(NONE, resource, name, null, id);
+    }
+
+    public int getType()
+    {
+        return type;
+    }
+
+    public String getResource()
+    {
+        return resource;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return the id of the entry on the server, 0 if the entry has not been created yet.
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    void setId(int id)
+    {
+        this.id = id;
+    }
+
+    /** sets a value of a new entry.
+     *
+     * @param column the column.
+     * @param value the value, null = the entry does not have this value.
+     */
+    public void set(String column, String value)
+    {
+        if(null != value)
+        {
+            values.put(column, value);
+        }
+    }
+
+    public void set(String column, long value)
+    {
+        values.put(column, "" + value);
+    }
+
+    /** a value of an existing entry needs to change.
+     *
+     * @param column the column.
+     * @param srvValue the value on the server.
+     * @param value the new value.
+     */
+    public void change(String column, String srvValue, String value)
+    {
+        values.put(column, value);
+        differences.add(column + " : " + srvValue + " -> " + value);
+        type = UPDATE;
+    }
+
+    public void change(String column, long srvValue, long value)
+    {
+        change(column, "" + srvValue, "" + value);
+    }
+
+    /** adds an entry that belongs to this entry.
+     *
+     * @param child the change of the child.
+     * @return the child.
+     */
+    public Change addChild(Change child)
+    {
+        children.add(child);
+        return child;
+    }
+
+    public Vector<Change> getChildren()
+    {
+        return children;
+    }
+
+    /** this entry can only be written after the other entry.
+     *
+     * @param other the entry this entry depends on.
+     * @param column the column that gets the id of the other entry, like "peripheral_id".
+     */
+    public void dependsOn(Change other, String column)
+    {
+        dependencies.put(other, column);
+    }
+
+    public Set<Change> getDependencies()
+    {
+        return dependencies.keySet();
+    }
+
+    /** an entry this entry depends on has been written.
+     *
+     * @param other the entry.
+     * @param otherId the id of that entry on the server.
+     */
+    void setDependencyId(Change other, int otherId)
+    {
+        String column = dependencies.get(other);
+        if((CREATE == type) && (null != column))
+        {
+            values.put(column, "" + otherId);
+        }
+    }
+
+    /** the parent has been written, a new entry now knows its parent.
+     *
+     * @param parentId the id of the parent on the server.
+     */
+    void setParentId(int parentId)
+    {
+        if((CREATE == type) && (null != parentColumn))
+        {
+            values.put(parentColumn, "" + parentId);
+        }
+    }
+
+    /**
+     * @param column the column.
+     * @return the value that will be written, null if the column is not written.
+     */
+    public String getValue(String column)
+    {
+        return values.get(column);
+    }
+
+    /**
+     * @return the request that writes this change to the server, null if nothing needs to be written.
+     */
+    public Request getRequest()
+    {
+        Request req;
+        switch(type)
+        {
+        case CREATE:
+            req = new Request(resource, Request.POST);
+            break;
+
+        case UPDATE:
+            req = new Request(resource, Request.PUT);
+            req.addPostParameter("id", id);
+            break;
+
+        default:
+            return null;
+        }
+        for(Map.Entry<String, String> e : values.entrySet())
+        {
+            req.addPostParameter(e.getKey(), e.getValue());
+        }
+        return req;
+    }
+
+    /**
+     * @return true if this entry or any of its children needs to be written.
+     */
+    public boolean hasChanges()
+    {
+        if(NONE != type)
+        {
+            return true;
+        }
+        for(Change c : children)
+        {
+            if(true == c.hasChanges())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        switch(type)
+        {
+        case CREATE: sb.append("+ "); break;
+        case UPDATE: sb.append("~ "); break;
+        default: sb.append("= "); break;
+        }
+        sb.append(resource);
+        sb.append(" ");
+        sb.append(name);
+        if(0 != id)
+        {
+            sb.append(" (" + id + ")");
+        }
+        if(false == differences.isEmpty())
+        {
+            sb.append(" : ");
+            sb.append(String.join(", ", differences));
+        }
+        return sb.toString();
+    }
+
+}
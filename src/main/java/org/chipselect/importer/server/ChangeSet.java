@@ -0,0 +1,282 @@
+package org.chipselect.importer.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** the changes that bring the server to the state of the imported file.
+ *
+ * The changes are written level by level: first the entries that have been
+ * added to the change set, then their children, then the children of the
+ * children,.. So each entry is written after its parent. Within a level the
+ * entries are written in the order they have been added. New entries of the
+ * same resource can be created with batch requests.
+ *
+ * Entries that do not need a change (NONE) are not written, but their
+ * children are.
+ */
+public class ChangeSet
+{
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    private final Vector<Change> changes = new Vector<Change>();
+    private int numRequests = 0;
+
+    public ChangeSet()
+    {
+    }
+
+    public Change add(Change change)
+    {
+        changes.add(change);
+        return change;
+    }
+
+    public Vector<Change> getChanges()
+    {
+        return changes;
+    }
+
+    /**
+     * @return true if nothing needs to be written to the server.
+     */
+    public boolean isEmpty()
+    {
+        for(Change c : changes)
+        {
+            if(true == c.hasChanges())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** number of entries with that type of change.
+     *
+     * @param type Change.CREATE, Change.UPDATE or Change.NONE
+     * @return number of entries.
+     */
+    public int count(int type)
+    {
+        int res = 0;
+        for(int num : countPerResource(type).values())
+        {
+            res = res + num;
+        }
+        return res;
+    }
+
+    private LinkedHashMap<String, Integer> countPerResource(int type)
+    {
+        LinkedHashMap<String, Integer> res = new LinkedHashMap<String, Integer>();
+        Vector<Change> level = changes;
+        while(false == level.isEmpty())
+        {
+            Vector<Change> next = new Vector<Change>();
+            for(Change c : level)
+            {
+                if(type == c.getType())
+                {
+                    res.merge(c.getResource(), 1, Integer::sum);
+                }
+                next.addAll(c.getChildren());
+            }
+            level = next;
+        }
+        return res;
+    }
+
+    public int getNumberOfRequests()
+    {
+        return numRequests;
+    }
+
+    /** writes the changes to the server.
+     *
+     * If an entry could not be written, its new children are not created.
+     * All other changes are still written.
+     *
+     * @param srv the server.
+     * @param batchSize maximum number of new entries in a request. 1 = one request for each entry.
+     * @param parallel true = send the requests of a level in parallel.
+     * @return true = success, false = at least one change failed.
+     */
+    public boolean execute(Server srv, int batchSize, boolean parallel)
+    {
+        boolean success = true;
+        Vector<Change> level = changes;
+        while(false == level.isEmpty())
+        {
+            if(false == executeLevel(srv, level, batchSize, parallel))
+            {
+                success = false;
+            }
+            Vector<Change> next = new Vector<Change>();
+            for(Change c : level)
+            {
+                if(0 == c.getId())
+                {
+                    // failed -> the children can not be created
+                    continue;
+                }
+                for(Change child : c.getChildren())
+                {
+                    child.setParentId(c.getId());
+                    next.add(child);
+                }
+            }
+            level = next;
+        }
+        return success;
+    }
+
+    /** writes the entries, that do not depend on each other, to the server.
+     *
+     * @param srv the server.
+     * @param level the entries. Their parents have already been written.
+     * @param batchSize maximum number of new entries in a request. 1 = one request for each entry.
+     * @param parallel true = send the requests in parallel.
+     * @return true = success, false = at least one change failed.
+     */
+    boolean executeLevel(Server srv, Vector<Change> level, int batchSize, boolean parallel)
+    {
+        boolean success = true;
+        Vector<Change> writes = new Vector<Change>();
+        // resource -> new entries
+        LinkedHashMap<String, Vector<Change>> creates = new LinkedHashMap<String, Vector<Change>>();
+        for(Change c : level)
+        {
+            if((1 < batchSize) && (Change.CREATE == c.getType()))
+            {
+                creates.computeIfAbsent(c.getResource(), k -> new Vector<Change>()).add(c);
+            }
+            else if(Change.NONE != c.getType())
+            {
+                writes.add(c);
+            }
+        }
+        for(Map.Entry<String, Vector<Change>> e : creates.entrySet())
+        {
+            BatchRequest batch = new BatchRequest(e.getKey(), Request.POST, batchSize);
+            for(Change c : e.getValue())
+            {
+                batch.add(c.getRequest());
+            }
+            if(false == batch.execute(srv))
+            {
+                success = false;
+            }
+            numRequests = numRequests + batch.getNumberOfRequests();
+            for(int i = 0; i < e.getValue().size(); i++)
+            {
+                e.getValue().get(i).setId(batch.getId(i));
+            }
+        }
+        if(true == parallel)
+        {
+            Vector<CompletableFuture<Response>> pending = new Vector<CompletableFuture<Response>>();
+            for(Change c : writes)
+            {
+                numRequests++;
+                pending.add(srv.executeAsync(c.getRequest()));
+            }
+            for(int i = 0; i < writes.size(); i++)
+            {
+                if(false == checkResult(writes.get(i), pending.get(i).join()))
+                {
+                    success = false;
+                }
+            }
+        }
+        else
+        {
+            for(Change c : writes)
+            {
+                numRequests++;
+                if(false == checkResult(c, srv.execute(c.getRequest())))
+                {
+                    success = false;
+                }
+            }
+        }
+        return success;
+    }
+
+    private boolean checkResult(Change c, Response res)
+    {
+        if(false == res.wasSuccessfull())
+        {
+            log.error("could not write {} to the server : {}", c, res.getFailureDescription());
+            return false;
+        }
+        if(Change.CREATE == c.getType())
+        {
+            int id = res.getInt("id");
+            if(0 == id)
+            {
+                log.error("server did not report the id of the new {} {}", c.getResource(), c.getName());
+                return false;
+            }
+            c.setId(id);
+        }
+        return true;
+    }
+
+    private static void appendCounts(StringBuilder sb, String title, LinkedHashMap<String, Integer> counts)
+    {
+        if(true == counts.isEmpty())
+        {
+            return;
+        }
+        sb.append(title);
+        for(Map.Entry<String, Integer> e : counts.entrySet())
+        {
+            sb.append(" " + e.getKey() + "=" + e.getValue());
+        }
+        sb.append(",");
+    }
+
+    public String getStatus()
+    {
+        StringBuilder sb = new StringBuilder("Changes :");
+        appendCounts(sb, " created", countPerResource(Change.CREATE));
+        appendCounts(sb, " updated", countPerResource(Change.UPDATE));
+        sb.append(" unchanged " + count(Change.NONE));
+        sb.append(" (" + numRequests + " requests)\n");
+        return sb.toString();
+    }
+
+    /** lists the changes, one line per entry.
+     *
+     * The children are indented below their parent. Entries that do not
+     * change and have no children that change are left out.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        for(Change c : changes)
+        {
+            print(sb, c, "");
+        }
+        return sb.toString();
+    }
+
+    private void print(StringBuilder sb, Change c, String indent)
+    {
+        if(false == c.hasChanges())
+        {
+            return;
+        }
+        sb.append(indent + c + "\n");
+        for(Change child : c.getChildren())
+        {
+            print(sb, child, indent + "  ");
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.chipselect.importer.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/** sends identical GET requests that are in flight at the same time only once.
+ *
+ * If a GET request is issued while the same request is still waiting for
+ * the server, the second caller gets the response of the first request.
+ * Requests that change data on the server are always sent. Later GET
+ * requests on the changed resource do not share a response of a request
+ * that was sent before the change.
+ */
+public class CoalescingServer implements Server
+{
+    private final Server srv;
+    private final ConcurrentHashMap<String, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<String, CompletableFuture<Response>>();
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger shared = new AtomicInteger();
+
+    public CoalescingServer(Server srv)
+    {
+        this.srv = srv;
+    }
+
+    private void forget(Request req)
+    {
+        final String prefix = req.getResource() + "?";
+        inFlight.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    @Override
+    public Response execute(Request req)
+    {
+        if(Request.GET != req.getType())
+        {
+            forget(req);
+            return srv.execute(req);
+        }
+        String key = req.getKey();
+        CompletableFuture<Response> mine = new CompletableFuture<Response>();
+        CompletableFuture<Response> other = inFlight.putIfAbsent(key, mine);
+        if(null != other)
+        {
+            shared.incrementAndGet();
+            return other.join();
+        }
+        sent.incrementAndGet();
+        try
+        {
+            Response res = srv.execute(req);
+            mine.complete(res);
+            return res;
+        }
+        catch(RuntimeException e)
+        {
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Response> executeAsync(Request req)
+    {
+        if(Request.GET != req.getType())
+        {
+            forget(req);
+            return srv.executeAsync(req);
+        }
+        final String key = req.getKey();
+        final CompletableFuture<Response> mine = new CompletableFuture<Response>();
+        CompletableFuture<Response> other = inFlight.putIfAbsent(key, mine);
+        if(null != other)
+        {
+            shared.incrementAndGet();
+            return other;
+        }
+        sent.incrementAndGet();
+        srv.executeAsync(req).whenComplete((r, e) -> {
+            inFlight.remove(key, mine);
+            if(null != e)
+            {
+                mine.completeExceptionally(e);
+            }
+            else
+            {
+                mine.complete(r);
+            }
+        });
+        return mine;
+    }
+
+    @Override
+    public <T> T runExclusive(String key, Supplier<T> action)
+    {
+        return srv.runExclusive(key, action);
+    }
+
+    @Override
+    public String getStatus()
+    {
+        return srv.getStatus() + "Coalescing : " + sent.get() + " GET requests sent, "
+                + shared.get() + " GET requests shared the response of an identical request\n";
+    }
+
+    @Override
+    public void enableDryRunMode()
+    {
+        srv.enableDryRunMode();
+    }
+
+    @Override
+    public void close()
+    {
+        srv.close();
+    }
+
+}
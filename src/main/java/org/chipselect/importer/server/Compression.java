@@ -0,0 +1,148 @@
+package org.chipselect.importer.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/** gzip / deflate compression of the data sent to and received from the server.
+ *
+ * Responses are decompressed if the server compressed them. Request bodies
+ * are only compressed if they are larger than the configured minimum size,
+ * as the server needs to understand a gzip Content-Encoding for that.
+ */
+public class Compression
+{
+    /** value for the Accept-Encoding header. */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+    public static final String GZIP = "gzip";
+
+    private int minRequestSize = 0;
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder sentRequestBytes = new LongAdder();
+    private final LongAdder compressedRequests = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder receivedResponseBytes = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+
+    public Compression()
+    {
+    }
+
+    /** compress request bodies with gzip.
+     *
+     * @param minBytes only bodies with at least this many bytes get compressed. 0 = do not compress requests.
+     */
+    public void setMinRequestSize(int minBytes)
+    {
+        minRequestSize = minBytes;
+    }
+
+    /**
+     * @param body data of the request.
+     * @return true if the body should be sent with gzip Content-Encoding.
+     */
+    public boolean shouldCompress(byte[] body)
+    {
+        return (0 < minRequestSize) && (null != body) && (minRequestSize <= body.length);
+    }
+
+    public static byte[] gzip(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 32);
+        try(GZIPOutputStream gz = new GZIPOutputStream(out))
+        {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    /** wraps the stream so that it delivers the uncompressed data.
+     *
+     * @param in data as received from the server.
+     * @param contentEncoding value of the Content-Encoding header, can be null.
+     * @return stream with the uncompressed data.
+     * @throws IOException if the encoding is not supported or the data is broken.
+     */
+    public static InputStream decode(InputStream in, String contentEncoding) throws IOException
+    {
+        if(null == contentEncoding)
+        {
+            return in;
+        }
+        String encoding = contentEncoding.trim().toLowerCase();
+        if((0 == encoding.length()) || (true == "identity".equals(encoding)))
+        {
+            return in;
+        }
+        if((true == GZIP.equals(encoding)) || (true == "x-gzip".equals(encoding)))
+        {
+            return new GZIPInputStream(in);
+        }
+        if(true == "deflate".equals(encoding))
+        {
+            return new InflaterInputStream(in);
+        }
+        throw new IOException("unsupported Content-Encoding : " + contentEncoding);
+    }
+
+    /**
+     * @param bytes size of the body.
+     * @param sentBytes number of bytes that were actually sent.
+     */
+    public void countRequest(long bytes, long sentBytes)
+    {
+        requestBytes.add(bytes);
+        sentRequestBytes.add(sentBytes);
+        if(sentBytes != bytes)
+        {
+            compressedRequests.increment();
+        }
+    }
+
+    /**
+     * @param bytes size of the uncompressed data.
+     * @param receivedBytes number of bytes that were received.
+     * @param contentEncoding value of the Content-Encoding header, can be null.
+     */
+    public void countResponse(long bytes, long receivedBytes, String contentEncoding)
+    {
+        responseBytes.add(bytes);
+        receivedResponseBytes.add(receivedBytes);
+        if((null != contentEncoding) && (false == "identity".equalsIgnoreCase(contentEncoding.trim())))
+        {
+            compressedResponses.increment();
+        }
+    }
+
+    private static String ratio(long bytes, long transferred)
+    {
+        if(0 == transferred)
+        {
+            return "-";
+        }
+        return String.format("%.2f", (double)bytes / transferred);
+    }
+
+    /**
+     * @return transferred and uncompressed bytes, compression ratio and saved bytes.
+     */
+    public String getStatus()
+    {
+        long requestBytes = this.requestBytes.sum();
+        long sentRequestBytes = this.sentRequestBytes.sum();
+        long responseBytes = this.responseBytes.sum();
+        long receivedResponseBytes = this.receivedResponseBytes.sum();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Compression : requests " + sentRequestBytes + " of " + requestBytes + " bytes ("
+                + compressedRequests.sum() + " compressed, ratio " + ratio(requestBytes, sentRequestBytes) + "), ");
+        sb.append("responses " + receivedResponseBytes + " of " + responseBytes + " bytes ("
+                + compressedResponses.sum() + " compressed, ratio " + ratio(responseBytes, receivedResponseBytes) + "), ");
+        sb.append(((requestBytes - sentRequestBytes) + (responseBytes - receivedResponseBytes)) + " bytes saved\n");
+        return sb.toString();
+    }
+
+}
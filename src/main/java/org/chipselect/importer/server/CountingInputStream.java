@@ -0,0 +1,58 @@
+package org.chipselect.importer.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** counts the bytes that are read from a stream. */
+class CountingInputStream extends FilterInputStream
+{
+    private long count = 0;
+
+    CountingInputStream(InputStream in)
+    {
+        super(in);
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int res = super.read();
+        if(-1 != res)
+        {
+            count++;
+        }
+        return res;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        int res = super.read(b, off, len);
+        if(0 < res)
+        {
+            count += res;
+        }
+        return res;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long res = super.skip(n);
+        count += res;
+        return res;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+}
@@ -0,0 +1,232 @@
+package org.chipselect.importer.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/** sends a second GET request if the first one takes unusually long.
+ *
+ * GET requests do not change data, so they can be sent twice. If the
+ * response to a GET takes longer than the given percentile of the earlier
+ * GETs on the same resource, the request is sent again. The first
+ * successful response is used. The other request still runs until the
+ * server answers, its response is dropped. To not overload the server, only
+ * the given percentage of GET requests may be sent a second time.
+ */
+public class HedgingServer implements Server
+{
+    public static final double DEFAULT_PERCENTILE = 95.0;
+    public static final int DEFAULT_MAX_EXTRA_PERCENT = 10;
+    /** no hedging before this many responses have been seen for a resource */
+    public static final int MIN_SAMPLES = 20;
+
+    private final Server srv;
+    private final double percentile;
+    private final int maxExtraPercent;
+    private final ScheduledExecutorService timer;
+    /** sends the second requests, so that a full window of the server does not block the timer */
+    private final ExecutorService sender;
+    /** resource -> latency of the GET requests in microseconds */
+    private final ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<String, LatencyHistogram>();
+    private final LongAdder numGets = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder hedgesSkipped = new LongAdder();
+
+    /**
+     * @param srv the server to send the requests to.
+     * @param percentile percentile of the latency after which the request is sent again, like 95.0 .
+     * @param maxExtraPercent at most this many GETs out of 100 are sent twice.
+     */
+    public HedgingServer(Server srv, double percentile, int maxExtraPercent)
+    {
+        this.srv = srv;
+        this.percentile = percentile;
+        this.maxExtraPercent = maxExtraPercent;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "HedgingServer");
+            t.setDaemon(true);
+            return t;
+        });
+        sender = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "HedgingServer-send");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private LatencyHistogram latencyOf(Request req)
+    {
+        return latencies.computeIfAbsent(req.getResource(), k -> new LatencyHistogram());
+    }
+
+    /** @return time in microseconds after which the request is sent again, or -1 to not send it again. */
+    private long getHedgeDelay(LatencyHistogram latency)
+    {
+        if(MIN_SAMPLES > latency.getCount())
+        {
+            return -1;
+        }
+        return latency.getValueAtPercentile(percentile);
+    }
+
+    private boolean takeFromBudget()
+    {
+        // the extra requests, including this one, must stay within the limit
+        if((hedgesSent.sum() + 1) * 100 > numGets.sum() * maxExtraPercent)
+        {
+            hedgesSkipped.increment();
+            return false;
+        }
+        hedgesSent.increment();
+        return true;
+    }
+
+    @Override
+    public Response execute(Request req)
+    {
+        if(Request.GET != req.getType())
+        {
+            return srv.execute(req);
+        }
+        return executeAsync(req).join();
+    }
+
+    /** the requests sent for one GET, the first successful response wins. */
+    private final class Race
+    {
+        final CompletableFuture<Response> res = new CompletableFuture<Response>();
+        /** number of requests that have not answered yet */
+        int pending = 1;
+        Response failedResponse = null;
+        Throwable error = null;
+
+        synchronized void finished(Response r, Throwable e, boolean isHedge)
+        {
+            if(true == res.isDone())
+            {
+                return;
+            }
+            if((null == e) && (true == r.wasSuccessfull()))
+            {
+                // count first, the caller might read the status as soon as it has the response
+                if(true == isHedge)
+                {
+                    hedgesWon.increment();
+                }
+                res.complete(r);
+                return;
+            }
+            if(null != r)
+            {
+                failedResponse = r;
+            }
+            else
+            {
+                error = e;
+            }
+            pending--;
+            if(0 == pending)
+            {
+                // all requests failed
+                if(null != failedResponse)
+                {
+                    res.complete(failedResponse);
+                }
+                else
+                {
+                    res.completeExceptionally(error);
+                }
+            }
+        }
+
+        /** @return true if the request should be sent again. */
+        synchronized boolean startHedge()
+        {
+            if((true == res.isDone()) || (false == takeFromBudget()))
+            {
+                return false;
+            }
+            pending++;
+            return true;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Response> executeAsync(final Request req)
+    {
+        if(Request.GET != req.getType())
+        {
+            return srv.executeAsync(req);
+        }
+        numGets.increment();
+        final LatencyHistogram latency = latencyOf(req);
+        final long delay = getHedgeDelay(latency);
+        final long start = System.nanoTime();
+        final CompletableFuture<Response> primary = srv.executeAsync(req);
+        primary.whenComplete((r, e) -> {
+            if(null == e)
+            {
+                latency.record((System.nanoTime() - start) / 1000);
+            }
+        });
+        if(0 > delay)
+        {
+            return primary;
+        }
+        final Race race = new Race();
+        primary.whenComplete((r, e) -> race.finished(r, e, false));
+        timer.schedule(() -> {
+            if(true == race.startHedge())
+            {
+                // executeAsync() blocks while the window of the server is full
+                sender.execute(() -> {
+                    try
+                    {
+                        srv.executeAsync(req).whenComplete((r, e) -> race.finished(r, e, true));
+                    }
+                    catch(RuntimeException e)
+                    {
+                        race.finished(null, e, true);
+                    }
+                });
+            }
+        }, delay, TimeUnit.MICROSECONDS);
+        return race.res;
+    }
+
+    @Override
+    public <T> T runExclusive(String key, Supplier<T> action)
+    {
+        return srv.runExclusive(key, action);
+    }
+
+    @Override
+    public String getStatus()
+    {
+        return srv.getStatus() + "Hedging : " + numGets.sum() + " GET requests, "
+                + hedgesSent.sum() + " sent again after the " + percentile + " percentile, "
+                + hedgesWon.sum() + " of them answered first, "
+                + hedgesSkipped.sum() + " not sent again due to the limit of " + maxExtraPercent + "%\n";
+    }
+
+    @Override
+    public void enableDryRunMode()
+    {
+        srv.enableDryRunMode();
+    }
+
+    @Override
+    public void close()
+    {
+        timer.shutdownNow();
+        sender.shutdownNow();
+        srv.close();
+    }
+
+}
@@ -0,0 +1,267 @@
+package org.chipselect.importer.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** REST server that uses HTTP/2 if the server supports it.
+ *
+ * With HTTP/2 all requests share one connection to the server. Asynchronous
+ * requests are sent without waiting for the responses of the requests before,
+ * so they do not need a thread each. If the server does not support HTTP/2
+ * the requests are sent with HTTP/1.1.
+ *
+ * All requests are sent as POST with the request method as parameter.
+ * Native HTTP methods and ETags are only supported by HttpRestServer.
+ */
+public class Http2RestServer extends RestServer implements Server
+{
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    private final String restUrl;
+    private final String authorization;
+    private final Compression compression = new Compression();
+    private final LongAdder http2Responses = new LongAdder();
+    private final LongAdder http1Responses = new LongAdder();
+    private volatile HttpClient client = null;
+    private int connectTimeoutMs = HttpRestServer.DEFAULT_CONNECT_TIMEOUT_MS;
+    private int readTimeoutMs = HttpRestServer.DEFAULT_READ_TIMEOUT_MS;
+
+    public Http2RestServer(String restUrl, String restUser, String restPassword)
+    {
+        super();
+        this.restUrl = restUrl;
+        authorization = basicAuthorization(restUser, restPassword);
+    }
+
+    /** Has to be called before the first request. */
+    public void setConnectTimeout(int ms)
+    {
+        connectTimeoutMs = ms;
+    }
+
+    public void setReadTimeout(int ms)
+    {
+        readTimeoutMs = ms;
+    }
+
+    /** compress request bodies with gzip.
+     *
+     * @param minBytes only bodies with at least this many bytes get compressed. 0 = do not compress requests.
+     */
+    public void setRequestCompression(int minBytes)
+    {
+        compression.setMinRequestSize(minBytes);
+    }
+
+    private HttpClient getClient()
+    {
+        HttpClient res = client;
+        if(null == res)
+        {
+            synchronized(this)
+            {
+                res = client;
+                if(null == res)
+                {
+                    res = HttpClient.newBuilder()
+                            .version(HttpClient.Version.HTTP_2)
+                            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                            .build();
+                    client = res;
+                }
+            }
+        }
+        return res;
+    }
+
+    private HttpRequest.BodyPublisher body(HttpRequest.Builder builder, byte[] body)
+    {
+        byte[] data = body;
+        if(true == compression.shouldCompress(body))
+        {
+            try
+            {
+                byte[] compressed = Compression.gzip(body);
+                if(compressed.length < body.length)
+                {
+                    data = compressed;
+                    builder.header("Content-Encoding", Compression.GZIP);
+                }
+            }
+            catch (IOException e)
+            {
+                // send it uncompressed
+                log.warn("compressing the request failed : {}", e.toString());
+            }
+        }
+        compression.countRequest(body.length, data.length);
+        return HttpRequest.BodyPublishers.ofByteArray(data);
+    }
+
+    private HttpRequest buildRequest(Request req) throws URISyntaxException
+    {
+        String target = restUrl + req.url();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(new URI(target));
+        if(0 < readTimeoutMs)
+        {
+            builder.timeout(Duration.ofMillis(readTimeoutMs));
+        }
+        builder.header("Accept-Charset", "UTF-8");
+        builder.header("accept", "application/json");
+        builder.header("Accept-Encoding", Compression.ACCEPT_ENCODING);
+        if(null != authorization)
+        {
+            builder.header("Authorization", authorization);
+        }
+        builder.header("Content-Type", "application/x-www-form-urlencoded");
+        builder.POST(body(builder, req.getBodyDataBytes()));
+        log.trace("{} : {}", req.getMethod(), target);
+        return builder.build();
+    }
+
+    private Response toResponse(Request req, HttpResponse<byte[]> answer)
+    {
+        Response res = new Response();
+        if(HttpClient.Version.HTTP_2 == answer.version())
+        {
+            http2Responses.increment();
+        }
+        else
+        {
+            http1Responses.increment();
+        }
+        if(400 <= answer.statusCode())
+        {
+            log.error("{} Request failed! HTTP status {}", req.getMethod(), answer.statusCode());
+            log.error("request : {}", req.toString());
+            res.setError("HTTP status " + answer.statusCode());
+            return res;
+        }
+        try
+        {
+            String encoding = answer.headers().firstValue("Content-Encoding").orElse(null);
+            res.readFrom(new ByteArrayInputStream(answer.body()), encoding);
+            compression.countResponse(res.getNumberOfBytes(), answer.body().length, encoding);
+        }
+        catch (JSONException | IOException e)
+        {
+            log.error("{} Request failed! {}", req.getMethod(), e.toString());
+            log.error("url : {}", req.url());
+            res.setError(e.toString());
+        }
+        return res;
+    }
+
+    private Response failed(Request req, Throwable e)
+    {
+        log.error("{} Request failed! {}", req.getMethod(), e.toString());
+        log.error("request : {}", req.toString());
+        Response res = new Response();
+        res.setError(e.toString());
+        return res;
+    }
+
+    @Override
+    public Response execute(Request req)
+    {
+        long start = System.nanoTime();
+        int reqType = req.getType();
+        stats.countRequest(reqType);
+        if(true == isDryRunRequest(req))
+        {
+            return dryRunResponse(req);
+        }
+        Response res;
+        long bytesOut = 0;
+        long bytesIn = 0;
+        try
+        {
+            HttpRequest request = buildRequest(req);
+            bytesOut = bodySize(request);
+            HttpResponse<byte[]> answer = getClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+            bytesIn = answer.body().length;
+            res = toResponse(req, answer);
+        }
+        catch (URISyntaxException | IOException | IllegalArgumentException e)
+        {
+            res = failed(req, e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            res = failed(req, e);
+        }
+        stats.recordRequest(req, System.nanoTime() - start, bytesOut, bytesIn, false == res.wasSuccessfull());
+        return res;
+    }
+
+    private static long bodySize(HttpRequest request)
+    {
+        if(true == request.bodyPublisher().isPresent())
+        {
+            return Math.max(0, request.bodyPublisher().get().contentLength());
+        }
+        return 0;
+    }
+
+    /** sends the request without blocking a thread while waiting for the response.
+     *
+     * The number of requests in flight is limited in the same way as by the other servers.
+     */
+    @Override
+    public CompletableFuture<Response> executeAsync(final Request req)
+    {
+        final int reqType = req.getType();
+        if(true == isDryRunRequest(req))
+        {
+            return CompletableFuture.completedFuture(execute(req));
+        }
+        HttpRequest request;
+        try
+        {
+            request = buildRequest(req);
+        }
+        catch (URISyntaxException | IllegalArgumentException e)
+        {
+            stats.countRequest(reqType);
+            return CompletableFuture.completedFuture(failed(req, e));
+        }
+        // blocks the caller if the window is full
+        final Semaphore window = acquireSlot();
+        stats.countRequest(reqType);
+        final long start = System.nanoTime();
+        return getClient().sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((answer, e) -> {
+                    window.release();
+                    Response res = (null != e) ? failed(req, e) : toResponse(req, answer);
+                    stats.recordRequest(req, System.nanoTime() - start, bodySize(request),
+                            (null != e) ? 0 : answer.body().length, false == res.wasSuccessfull());
+                    return res;
+                });
+    }
+
+    @Override
+    public String getStatus()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(stats.getStatus(isDryRunMode()));
+        sb.append("HTTP/2 : " + http2Responses.sum() + " responses with HTTP/2, "
+                + http1Responses.sum() + " responses with HTTP/1.1, "
+                + getMaxRequestsInFlight() + " requests in flight at most\n");
+        sb.append(compression.getStatus());
+        return sb.toString();
+    }
+
+}
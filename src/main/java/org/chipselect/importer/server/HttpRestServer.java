@@ -1,7 +1,6 @@
 package org.chipselect.importer.server;
 
 import java.io.ByteArrayInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -12,7 +11,10 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.json.JSONException;
 import org.slf4j.Logger;
@@ -22,67 +24,163 @@ public class HttpRestServer extends RestServer implements Server
 {
     private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
     private final String restUrl;
-    private final String restUser;
-    private final String restPassword;
-    private final boolean hasUser;
-    private final int[] numRequests = new int[Request.MAX_TYPE_NUM + 1];
-    private final long[] RequestsTimes = new long[Request.MAX_TYPE_NUM + 1];
-    private final long[] RequestsTimeMin = new long[Request.MAX_TYPE_NUM + 1];
-    private final long[] RequestsTimeMax = new long[Request.MAX_TYPE_NUM + 1];
-    private boolean dryRunMode = false;
-    private FileWriter fw = null;
+    private final String authorization;
+    private final Compression compression = new Compression();
+    private int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+    private int readTimeoutMs = DEFAULT_READ_TIMEOUT_MS;
+    private int idleTimeoutSeconds = 0;
+    /** responses after which the connection could be kept open, it is not visible if it actually gets reused */
+    private final LongAdder keepAliveResponses = new LongAdder();
+    /** responses that closed the connection, or requests that broke it */
+    private final LongAdder closingResponses = new LongAdder();
+    private boolean nativeMethods = false;
+    private final LongAdder notModifiedResponses = new LongAdder();
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 10000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 60000;
+    public static final int DEFAULT_MAX_ETAG_ENTRIES = 1000;
+    /** the kept responses of large resources like field listings can be big, so also limit the bytes */
+    public static final long DEFAULT_MAX_ETAG_BYTES = 16 * 1024 * 1024;
+
+    /** a response to a GET request together with the ETag the server sent for it. */
+    private static final class TaggedResponse
+    {
+        final String etag;
+        final byte[] body;
+
+        TaggedResponse(String etag, byte[] body)
+        {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+
+    /** URL -> last response that had an ETag, the least recently used one gets dropped. */
+    private final LinkedHashMap<String, TaggedResponse> etags = new LinkedHashMap<String, TaggedResponse>(16, 0.75f, true);
+    /** size of the bodies in etags */
+    private long etagBytes = 0;
+    private long maxEtagBytes = DEFAULT_MAX_ETAG_BYTES;
 
     public HttpRestServer(String restUrl, String restUser, String restPassword)
     {
         super();
         this.restUrl = restUrl;
-        this.restUser = restUser;
-        this.restPassword = restPassword;
-        if((null != restUser) && (null != restPassword))
-        {
-            hasUser = true;
-        }
-        else
+        authorization = basicAuthorization(restUser, restPassword);
+    }
+
+    /** number of idle connections per host that are kept open for reuse.
+     *
+     * HttpURLConnection keeps idle connections in the JVM wide keep-alive
+     * cache. That cache reads its configuration when the first connection is
+     * opened, so this has to be called before the first request.
+     *
+     * @param size maximum number of idle connections to keep.
+     */
+    public void setConnectionPoolSize(int size)
+    {
+        if(0 < size)
         {
-            hasUser = false;
+            System.setProperty("http.maxConnections", "" + size);
         }
-        for(int i = 0; i < Request.MAX_TYPE_NUM + 1; i++)
+    }
+
+    /** time after which an idle connection gets closed.
+     *
+     * Only used if the server does not send a Keep-Alive timeout. Only Java 20
+     * and newer read this setting, older JREs ignore it and close idle
+     * connections after 5 seconds. Has to be called before the first request.
+     *
+     * @param seconds idle time in seconds.
+     */
+    public void setIdleTimeout(int seconds)
+    {
+        if(0 < seconds)
         {
-            numRequests[i] = 0;
-            RequestsTimes[i] = 0;
-            RequestsTimeMin[i] = Long.MAX_VALUE;
-            RequestsTimeMax[i] = 0;
+            idleTimeoutSeconds = seconds;
+            System.setProperty("http.keepAlive.time.server", "" + seconds);
+            if(false == isIdleTimeoutSupported())
+            {
+                log.warn("the idle timeout has no effect on Java {}, it needs Java 20 or newer", Runtime.version().feature());
+            }
         }
     }
 
-    private String statusForType(int type)
+    private static boolean isIdleTimeoutSupported()
     {
-        StringBuilder sb = new StringBuilder();
-        sb.append(Request.getMethodName(type) + " : " + numRequests[type] + " Requests");
-        sb.append(String.format(" (%d/%d/%d)\n",
-                RequestsTimeMin[type]/1000000,
-                (RequestsTimes[type]/numRequests[type])/1000000,
-                RequestsTimeMax[type]/1000000 ) );
-        return sb.toString();
+        return 20 <= Runtime.version().feature();
+    }
+
+    public void setConnectTimeout(int ms)
+    {
+        connectTimeoutMs = ms;
+    }
+
+    public void setReadTimeout(int ms)
+    {
+        readTimeoutMs = ms;
+    }
+
+    /** send the request method as HTTP method.
+     *
+     * By default all requests are sent as POST with the request method as
+     * parameter. With native methods GET and DELETE requests have their
+     * parameters in the query string, so that responses to GET requests can
+     * be cached. A GET request that was answered with an ETag before is sent
+     * with If-None-Match, an unchanged response then comes back as 304 (not
+     * modified) without data. PATCH is not supported by HttpURLConnection
+     * and is sent as POST with a X-HTTP-Method-Override header.
+     *
+     * @param nativeMethods true = use HTTP methods, false = send everything as POST.
+     */
+    public void setNativeMethods(boolean nativeMethods)
+    {
+        this.nativeMethods = nativeMethods;
+    }
+
+    /** limits the memory used for the responses that are kept for their ETag.
+     *
+     * @param bytes maximum size of all kept responses.
+     */
+    public void setMaxETagBytes(long bytes)
+    {
+        maxEtagBytes = bytes;
+    }
+
+    /** compress request bodies with gzip.
+     *
+     * Responses are always requested compressed. The server needs to accept
+     * gzip compressed request bodies for this.
+     *
+     * @param minBytes only bodies with at least this many bytes get compressed. 0 = do not compress requests.
+     */
+    public void setRequestCompression(int minBytes)
+    {
+        compression.setMinRequestSize(minBytes);
     }
 
     @Override
     public String getStatus()
     {
         StringBuilder sb = new StringBuilder();
-        sb.append("Type : (min / avareage / max)\n");
-        if(true == dryRunMode)
+        sb.append(stats.getStatus(isDryRunMode()));
+        sb.append("Connections : " + keepAliveResponses.sum() + " responses allowed keep-alive, "
+                + closingResponses.sum() + " responses closed the connection\n");
+        if(0 < idleTimeoutSeconds)
         {
-            RequestsTimeMin[Request.DELETE] = 0;
-            RequestsTimeMin[Request.PATCH] = 0;
-            RequestsTimeMin[Request.POST] = 0;
-            RequestsTimeMin[Request.PUT] = 0;
+            sb.append("Idle timeout : " + idleTimeoutSeconds + " seconds");
+            if(false == isIdleTimeoutSupported())
+            {
+                sb.append(" (no effect, needs Java 20 or newer)");
+            }
+            sb.append("\n");
         }
-        for(int i = 1; i <= Request.MAX_TYPE_NUM; i++)
+        sb.append(compression.getStatus());
+        if(true == nativeMethods)
         {
-            if(0 < numRequests[i])
+            synchronized(etags)
             {
-                sb.append(statusForType(i));
+                sb.append("ETag : " + notModifiedResponses.sum() + " responses not modified, "
+                        + etags.size() + " entries with " + etagBytes + " bytes\n");
             }
         }
         return sb.toString();
@@ -95,57 +193,81 @@ public class HttpRestServer extends RestServer implements Server
         int reqType = req.getType();
         Response res = new Response();
         HttpURLConnection connection = null;
-        numRequests[reqType] ++;
-        // Create a neat value object to hold the URL
-        if(true == dryRunMode)
+        long bytesOut = 0;
+        long bytesIn = 0;
+        stats.countRequest(reqType);
+        if(true == isDryRunRequest(req))
         {
             // in dry run we do only GET requests
-            if(Request.GET != reqType)
-            {
-                try
-                {
-                    // log that request
-                    fw.write(req.toString() + "\n");
-                    // if we tried to create a new entry we read back the new id
-                    InputStream stream = new ByteArrayInputStream("[{id : 1}]".getBytes(StandardCharsets.UTF_8));
-                    res.readFrom(stream);
-                }
-                catch (IOException e)
-                {
-                    e.printStackTrace();
-                }
-                return res;
-            }
+            return dryRunResponse(req);
         }
         try
         {
-            URI uri = new URI(restUrl + req.url());
+            String target = restUrl + req.url();
+            boolean inQuery = (true == nativeMethods) && ((Request.GET == reqType) || (Request.DELETE == reqType));
+            if((true == inQuery) && (0 < req.getNumberOfParameters()))
+            {
+                target = target + "?" + req.getParameterString();
+            }
+            URI uri = new URI(target);
             URL url = uri.toURL();
             log.trace("{} : {}",req.getMethod(), url.toString());
 
             connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod(req.getMethod());
-            if(true == req.hasBody())
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            // HttpURLConnection does not support PATCH, it always gets tunneled
+            boolean tunneled = (false == nativeMethods) || (Request.PATCH == reqType);
+            connection.setRequestMethod((true == tunneled) ? "POST" : req.getMethod());
+            if((true == req.hasBody()) && (false == inQuery))
             {
                 connection.setDoOutput(true);
             }
             connection.setRequestProperty("Accept-Charset", "UTF-8");
             connection.setRequestProperty("accept", "application/json");
-            if(true == hasUser)
+            connection.setRequestProperty("Accept-Encoding", Compression.ACCEPT_ENCODING);
+            if(null != authorization)
             {
-                Base64.Encoder enc = Base64.getUrlEncoder();
-                connection.addRequestProperty("Authorization", "Basic " + enc.encodeToString((restUser + ":" + restPassword).getBytes()));
+                connection.addRequestProperty("Authorization", authorization);
+            }
+            TaggedResponse tagged = null;
+            if(false == nativeMethods)
+            {
+                if(true == req.hasBody())
+                {
+                    bytesOut = writeBody(connection, req.getBodyDataBytes());
+                }
             }
-            connection.setRequestMethod("POST");
-            if(true == req.hasBody())
+            else
             {
-                OutputStream requestStream = connection.getOutputStream();
-                requestStream.write(req.getBodyDataBytes());
+                if(Request.PATCH == reqType)
+                {
+                    connection.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+                }
+                if(Request.GET == reqType)
+                {
+                    tagged = getTaggedResponse(target);
+                    if(null != tagged)
+                    {
+                        connection.setRequestProperty("If-None-Match", tagged.etag);
+                    }
+                }
+                if(false == inQuery)
+                {
+                    connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+                    bytesOut = writeBody(connection, req.getParameterString().getBytes(StandardCharsets.UTF_8));
+                }
             }
             connection.connect();
-            InputStream responseStream = connection.getInputStream();
-
-            res.readFrom(responseStream);
+            if(Request.GET == reqType)
+            {
+                bytesIn = readTaggedResponse(connection, target, tagged, res);
+            }
+            else
+            {
+                bytesIn = readResponse(connection, res);
+            }
+            countKeepAlive(false == "close".equalsIgnoreCase(connection.getHeaderField("Connection")));
         }
         catch (JSONException e)
         {
@@ -182,62 +304,166 @@ public class HttpRestServer extends RestServer implements Server
             log.error("request : {}", req.toString());
             // log.error("url : {}", req.url());
             log.error(e.toString());
-            String val = connection.getHeaderField(0);
-            log.error("status line: " + val);
-            int i = 1;
-            val = connection.getHeaderField(i);
-            while(null != val)
-            {
-                log.error(connection.getHeaderFieldKey(i) + " : " + val);
-                i++;
+            if(null != connection)
+            {
+                String val = connection.getHeaderField(0);
+                log.error("status line: " + val);
+                int i = 1;
                 val = connection.getHeaderField(i);
+                while(null != val)
+                {
+                    log.error(connection.getHeaderFieldKey(i) + " : " + val);
+                    i++;
+                    val = connection.getHeaderField(i);
+                }
+                drainErrorStream(connection);
             }
             res.setError(e.toString());
         }
         long finish = System.nanoTime();
-        long timeElapsed = finish - start;
-        RequestsTimes[reqType] += timeElapsed;
-        if(timeElapsed > RequestsTimeMax[reqType])
+        stats.recordRequest(req, finish - start, bytesOut, bytesIn, false == res.wasSuccessfull());
+        return res;
+    }
+
+    /** @return number of bytes sent. */
+    private int writeBody(HttpURLConnection connection, byte[] body) throws IOException
+    {
+        byte[] data = body;
+        if(true == compression.shouldCompress(body))
         {
-            RequestsTimeMax[reqType] = timeElapsed;
+            byte[] compressed = Compression.gzip(body);
+            if(compressed.length < body.length)
+            {
+                data = compressed;
+                connection.setRequestProperty("Content-Encoding", Compression.GZIP);
+            }
         }
-        if(timeElapsed < RequestsTimeMin[reqType])
+        try(OutputStream requestStream = connection.getOutputStream())
         {
-            RequestsTimeMin[reqType] = timeElapsed;
+            requestStream.write(data);
         }
-        return res;
+        compression.countRequest(body.length, data.length);
+        return data.length;
     }
 
-    @Override
-    public void enableDryRunMode()
+    /** @return number of bytes received. */
+    private long readResponse(HttpURLConnection connection, Response res) throws IOException
     {
-        dryRunMode = true;
-        try
+        String encoding = connection.getContentEncoding();
+        // the stream has to be read completely and closed,
+        // otherwise the connection can not be reused for the next request.
+        try(CountingInputStream responseStream = new CountingInputStream(connection.getInputStream()))
         {
-            fw = new FileWriter("log_dry_mode.txt");
+            res.readFrom(responseStream, encoding);
+            compression.countResponse(res.getNumberOfBytes(), responseStream.getCount(), encoding);
+            return responseStream.getCount();
         }
-        catch (IOException e)
+    }
+
+    private TaggedResponse getTaggedResponse(String target)
+    {
+        synchronized(etags)
         {
-            fw = null;
-            e.printStackTrace();
+            return etags.get(target);
         }
     }
 
-    @Override
-    public void close()
+    /** reads the response to a GET request.
+     *
+     * Responses with an ETag are kept so that the next request for the same
+     * URL can ask the server if the data has changed.
+     *
+     * @return number of bytes received.
+     */
+    private long readTaggedResponse(HttpURLConnection connection, String target, TaggedResponse tagged, Response res) throws IOException
     {
-        if(null != fw)
+        if((null != tagged) && (HttpURLConnection.HTTP_NOT_MODIFIED == connection.getResponseCode()))
         {
-            try
+            try(InputStream responseStream = connection.getInputStream())
             {
-                fw.flush();
-                fw.close();
+                responseStream.readAllBytes();
             }
-            catch (IOException e)
+            notModifiedResponses.increment();
+            res.readFrom(new ByteArrayInputStream(tagged.body));
+            return 0;
+        }
+        String etag = connection.getHeaderField("ETag");
+        if((false == nativeMethods) || (null == etag))
+        {
+            return readResponse(connection, res);
+        }
+        String encoding = connection.getContentEncoding();
+        try(CountingInputStream responseStream = new CountingInputStream(connection.getInputStream()))
+        {
+            // keep the uncompressed data
+            byte[] body = Compression.decode(responseStream, encoding).readAllBytes();
+            res.readFrom(new ByteArrayInputStream(body));
+            compression.countResponse(body.length, responseStream.getCount(), encoding);
+            keepTaggedResponse(target, new TaggedResponse(etag, body));
+            return responseStream.getCount();
+        }
+    }
+
+    private void keepTaggedResponse(String target, TaggedResponse tagged)
+    {
+        synchronized(etags)
+        {
+            TaggedResponse old = etags.remove(target);
+            if(null != old)
+            {
+                etagBytes = etagBytes - old.body.length;
+            }
+            if(tagged.body.length > maxEtagBytes)
+            {
+                // would push out everything else
+                return;
+            }
+            etags.put(target, tagged);
+            etagBytes = etagBytes + tagged.body.length;
+            Iterator<Map.Entry<String, TaggedResponse>> it = etags.entrySet().iterator();
+            while((true == it.hasNext()) && ((etags.size() > DEFAULT_MAX_ETAG_ENTRIES) || (etagBytes > maxEtagBytes)))
             {
-                e.printStackTrace();
+                // least recently used first
+                etagBytes = etagBytes - it.next().getValue().body.length;
+                it.remove();
             }
         }
     }
 
+    private void countKeepAlive(boolean keepAlive)
+    {
+        if(true == keepAlive)
+        {
+            keepAliveResponses.increment();
+        }
+        else
+        {
+            closingResponses.increment();
+        }
+    }
+
+    private void drainErrorStream(HttpURLConnection connection)
+    {
+        // reading the error response allows the connection to be reused.
+        try(InputStream errorStream = connection.getErrorStream())
+        {
+            if(null != errorStream)
+            {
+                errorStream.readAllBytes();
+                countKeepAlive(true);
+            }
+            else
+            {
+                // no response from the server -> nothing to reuse
+                countKeepAlive(false);
+            }
+        }
+        catch (IOException e)
+        {
+            // connection is broken -> can not be reused
+            connection.disconnect();
+            countKeepAlive(false);
+        }
+    }
+
 }
@@ -0,0 +1,198 @@
+package org.chipselect.importer.server;
+
+import java.util.HashMap;
+import java.util.Vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** all changes of a device, written as one dependency graph.
+ *
+ * An entry depends on its parent and on the entries given with
+ * Change.dependsOn(). Each step writes all entries whose dependencies have
+ * been written, in parallel. So the fields of all new registers of all
+ * peripherals are written in the same step, once the registers have their
+ * ids. The number of steps is the longest chain of new entries, not the
+ * number of entries.
+ *
+ * Entries that do not change are done as soon as their dependencies are
+ * done, they do not need a step.
+ */
+public class ImportPlan
+{
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    /** all changes, used for the status and to send the requests */
+    private final ChangeSet all = new ChangeSet();
+    private int numSteps = 0;
+
+    public ImportPlan()
+    {
+    }
+
+    /** adds the changes of a peripheral.
+     *
+     * Peripherals are compared in parallel, so this is synchronized.
+     *
+     * @param changes the changes.
+     */
+    public synchronized void add(ChangeSet changes)
+    {
+        for(Change c : changes.getChanges())
+        {
+            all.add(c);
+        }
+    }
+
+    public synchronized boolean isEmpty()
+    {
+        return all.isEmpty();
+    }
+
+    /** writes all changes to the server.
+     *
+     * If an entry could not be written, the entries that depend on it are
+     * not written. All other changes are still written.
+     *
+     * @param srv the server.
+     * @param batchSize maximum number of new entries in a request. 1 = one request for each entry.
+     * @return true = success, false = at least one change failed.
+     */
+    public synchronized boolean execute(Server srv, int batchSize)
+    {
+        // entry -> entries that wait for it
+        HashMap<Change, Vector<Change>> dependents = new HashMap<Change, Vector<Change>>();
+        // entry -> number of entries it still waits for
+        HashMap<Change, Integer> waitingFor = new HashMap<Change, Integer>();
+        Vector<Change> ready = new Vector<Change>();
+        int numEntries = 0;
+        Vector<Change> level = all.getChanges();
+        while(false == level.isEmpty())
+        {
+            Vector<Change> next = new Vector<Change>();
+            for(Change c : level)
+            {
+                numEntries++;
+                int num = c.getDependencies().size();
+                for(Change other : c.getDependencies())
+                {
+                    dependents.computeIfAbsent(other, k -> new Vector<Change>()).add(c);
+                }
+                for(Change child : c.getChildren())
+                {
+                    dependents.computeIfAbsent(c, k -> new Vector<Change>()).add(child);
+                    waitingFor.merge(child, 1, Integer::sum);
+                }
+                waitingFor.merge(c, num, Integer::sum);
+                next.addAll(c.getChildren());
+            }
+            level = next;
+        }
+        for(Change c : all.getChanges())
+        {
+            if(0 == waitingFor.get(c))
+            {
+                ready.add(c);
+            }
+        }
+
+        boolean success = true;
+        int numDone = 0;
+        numSteps = 0;
+        while(false == ready.isEmpty())
+        {
+            // unchanged entries are done right away
+            Vector<Change> step = new Vector<Change>();
+            for(int i = 0; i < ready.size(); i++)
+            {
+                Change c = ready.get(i);
+                if(Change.NONE == c.getType())
+                {
+                    numDone++;
+                    release(c, dependents, waitingFor, ready);
+                }
+                else
+                {
+                    step.add(c);
+                }
+            }
+            ready.clear();
+            if(true == step.isEmpty())
+            {
+                break;
+            }
+            numSteps++;
+            log.trace("step {} : {} entries", numSteps, step.size());
+            if(false == all.executeLevel(srv, step, batchSize, true))
+            {
+                success = false;
+            }
+            for(Change c : step)
+            {
+                if(0 == c.getId())
+                {
+                    // failed -> the entries that need the id can not be written
+                    continue;
+                }
+                numDone++;
+                release(c, dependents, waitingFor, ready);
+            }
+        }
+        int numSkipped = numEntries - numDone;
+        if(0 < numSkipped)
+        {
+            log.error("{} entries have not been written, as entries they depend on failed !", numSkipped);
+            success = false;
+        }
+        return success;
+    }
+
+    private void release(
+            Change c,
+            HashMap<Change, Vector<Change>> dependents,
+            HashMap<Change, Integer> waitingFor,
+            Vector<Change> ready)
+    {
+        Vector<Change> waiting = dependents.get(c);
+        if(null == waiting)
+        {
+            return;
+        }
+        for(Change d : waiting)
+        {
+            if(true == c.getChildren().contains(d))
+            {
+                d.setParentId(c.getId());
+            }
+            else
+            {
+                d.setDependencyId(c, c.getId());
+            }
+            if(0 == waitingFor.merge(d, -1, Integer::sum))
+            {
+                ready.add(d);
+            }
+        }
+    }
+
+    /**
+     * @return number of steps that the last execute() needed.
+     */
+    public int getNumberOfSteps()
+    {
+        return numSteps;
+    }
+
+    public synchronized String getStatus()
+    {
+        String res = all.getStatus();
+        res = res.substring(0, res.length() - 1);
+        return res + " in " + numSteps + " steps\n";
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return all.toString();
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.chipselect.importer.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** histogram of latencies with log-linear buckets.
+ *
+ * Each power of two is split into 16 buckets of the same size. So a
+ * percentile is at most 1/16 (about 6%) higher than the measured value,
+ * for all values from microseconds to hours, with less than 1000 buckets.
+ * Values can be recorded from many threads at the same time without locking.
+ * A percentile read while values are recorded may miss the newest values.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder numValues = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram()
+    {
+    }
+
+    private static int indexOf(long value)
+    {
+        if(SUB_BUCKETS > value)
+        {
+            return (int)value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int)((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /** highest value that falls into the bucket. */
+    private static long highestValueOf(int index)
+    {
+        if(SUB_BUCKETS > index)
+        {
+            return index;
+        }
+        int shift = (index / SUB_BUCKETS) - 1;
+        long lowest = (long)(SUB_BUCKETS + (index % SUB_BUCKETS)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * @param value the measured value, negative values are counted as 0.
+     */
+    public void record(long value)
+    {
+        if(0 > value)
+        {
+            value = 0;
+        }
+        // the values spread over many buckets, so threads rarely update the same counter
+        counts.incrementAndGet(indexOf(value));
+        numValues.increment();
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    public long getCount()
+    {
+        return numValues.sum();
+    }
+
+    public long getMin()
+    {
+        long res = min.get();
+        if(Long.MAX_VALUE == res)
+        {
+            return 0;
+        }
+        return res;
+    }
+
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * @param percentile 0 to 100, like 99.9 .
+     * @return value that is higher or equal to the given percentage of the recorded values, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        // snapshot of the buckets, so that the total matches the buckets
+        long[] snapshot = new long[NUM_BUCKETS];
+        long total = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++)
+        {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if(0 == total)
+        {
+            return 0;
+        }
+        long rank = (long)Math.ceil((percentile / 100.0) * total);
+        if(1 > rank)
+        {
+            rank = 1;
+        }
+        long highest = getMax();
+        long lowest = getMin();
+        long seen = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++)
+        {
+            seen += snapshot[i];
+            if(seen >= rank)
+            {
+                return Math.max(Math.min(highestValueOf(i), highest), lowest);
+            }
+        }
+        return highest;
+    }
+
+}
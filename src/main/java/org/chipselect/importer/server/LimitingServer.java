@@ -0,0 +1,101 @@
+package org.chipselect.importer.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/** limits the requests in flight to what the server can handle.
+ *
+ * GET requests and requests that change data on the server have separate
+ * limits, so that many slow writes do not stop the reads. Both limits adapt
+ * to the latency and the errors of the server (see AdaptiveLimiter). The
+ * latency of each resource is compared to the earlier requests on the same
+ * resource.
+ */
+public class LimitingServer implements Server
+{
+    private final Server srv;
+    private final AdaptiveLimiter reads;
+    private final AdaptiveLimiter writes;
+
+    /**
+     * @param srv the server to send the requests to.
+     * @param maxLimit highest number of reads and of writes in flight.
+     */
+    public LimitingServer(Server srv, int maxLimit)
+    {
+        this.srv = srv;
+        reads = new AdaptiveLimiter("reads", AdaptiveLimiter.DEFAULT_INITIAL_LIMIT, AdaptiveLimiter.DEFAULT_MIN_LIMIT, maxLimit);
+        writes = new AdaptiveLimiter("writes", AdaptiveLimiter.DEFAULT_INITIAL_LIMIT, AdaptiveLimiter.DEFAULT_MIN_LIMIT, maxLimit);
+    }
+
+    private AdaptiveLimiter limiterFor(Request req)
+    {
+        if(Request.GET == req.getType())
+        {
+            return reads;
+        }
+        return writes;
+    }
+
+    @Override
+    public Response execute(Request req)
+    {
+        AdaptiveLimiter limiter = limiterFor(req);
+        long start = limiter.acquire();
+        boolean success = false;
+        try
+        {
+            Response res = srv.execute(req);
+            success = res.wasSuccessfull();
+            return res;
+        }
+        finally
+        {
+            limiter.release(start, success, req.getResource());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Response> executeAsync(Request req)
+    {
+        final AdaptiveLimiter limiter = limiterFor(req);
+        // blocks the caller if the limit is reached
+        final long start = limiter.acquire();
+        CompletableFuture<Response> res;
+        try
+        {
+            res = srv.executeAsync(req);
+        }
+        catch(RuntimeException e)
+        {
+            limiter.release(start, false);
+            throw e;
+        }
+        return res.whenComplete((r, e) -> limiter.release(start, (null == e) && (true == r.wasSuccessfull()), req.getResource()));
+    }
+
+    @Override
+    public <T> T runExclusive(String key, Supplier<T> action)
+    {
+        return srv.runExclusive(key, action);
+    }
+
+    @Override
+    public String getStatus()
+    {
+        return srv.getStatus() + reads.getStatus() + writes.getStatus();
+    }
+
+    @Override
+    public void enableDryRunMode()
+    {
+        srv.enableDryRunMode();
+    }
+
+    @Override
+    public void close()
+    {
+        srv.close();
+    }
+
+}
@@ -1,7 +1,9 @@
 package org.chipselect.importer.server;
 
+import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Vector;
 
 public class Request
@@ -57,6 +59,63 @@ public class Request
         return type;
     }
 
+    public String getResource()
+    {
+        return resource;
+    }
+
+    /** value of a parameter of this request.
+     *
+     * @param variable name of the parameter.
+     * @return the value or null if the request does not have this parameter.
+     */
+    public String getParameter(String variable)
+    {
+        String prefix = URLEncoder.encode(variable, StandardCharsets.UTF_8) + "=";
+        for(String filter : urlPost)
+        {
+            if(true == filter.startsWith(prefix))
+            {
+                return URLDecoder.decode(filter.substring(prefix.length()), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /** all parameters of this request, not counting the request method.
+     *
+     * @return parameter name -> value, in the order they were added.
+     */
+    public LinkedHashMap<String, String> getParameters()
+    {
+        LinkedHashMap<String, String> res = new LinkedHashMap<String, String>();
+        // the first parameter is the request method
+        for(int i = 1; i < urlPost.size(); i++)
+        {
+            String filter = urlPost.elementAt(i);
+            int pos = filter.indexOf('=');
+            res.put(URLDecoder.decode(filter.substring(0, pos), StandardCharsets.UTF_8),
+                    URLDecoder.decode(filter.substring(pos + 1), StandardCharsets.UTF_8));
+        }
+        return res;
+    }
+
+    /**
+     * @return number of parameters, not counting the request method.
+     */
+    public int getNumberOfParameters()
+    {
+        return urlPost.size() - 1;
+    }
+
+    /**
+     * @return resource and parameters. Identical requests have the same key.
+     */
+    public String getKey()
+    {
+        return resource + "?" + new String(getBodyDataBytes(), StandardCharsets.UTF_8);
+    }
+
     public String url()
     {
         StringBuilder sb = new StringBuilder();
@@ -120,6 +179,28 @@ public class Request
         return out;
     }
 
+    /** the parameters, not counting the request method, as URL encoded string.
+     *
+     * Used as query string of a GET request or as body of the other requests
+     * if the request method is sent as HTTP method.
+     *
+     * @return the parameters like "name=value&amp;id=1". Empty if there are no parameters.
+     */
+    public String getParameterString()
+    {
+        StringBuilder sb = new StringBuilder();
+        // the first parameter is the request method
+        for(int i = 1; i < urlPost.size(); i++)
+        {
+            if(1 < i)
+            {
+                sb.append("&");
+            }
+            sb.append(urlPost.elementAt(i));
+        }
+        return sb.toString();
+    }
+
     public void addPostParameter(String variable, String value)
     {
         if((null != variable) && (null != value))
@@ -0,0 +1,188 @@
+package org.chipselect.importer.server;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/** number and duration of the requests of each request type.
+ *
+ * For each combination of request type and resource a latency histogram,
+ * the transferred bytes and the number of failed requests are kept as well.
+ *
+ * Many threads can record requests at the same time. The counters are
+ * striped (LongAdder), so the threads do not wait for each other.
+ */
+public class RequestStatistics
+{
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private final LongAdder[] numRequests = new LongAdder[Request.MAX_TYPE_NUM + 1];
+    private final LongAdder[] RequestsTimes = new LongAdder[Request.MAX_TYPE_NUM + 1];
+    private final LongAccumulator[] RequestsTimeMin = new LongAccumulator[Request.MAX_TYPE_NUM + 1];
+    private final LongAccumulator[] RequestsTimeMax = new LongAccumulator[Request.MAX_TYPE_NUM + 1];
+    /** "resource type" -> statistics */
+    private final ConcurrentSkipListMap<String, ResourceStatistics> resources = new ConcurrentSkipListMap<String, ResourceStatistics>();
+
+    /** requests of one type to one resource. */
+    private static final class ResourceStatistics
+    {
+        final String method;
+        final String resource;
+        /** latency in microseconds */
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder bytesOut = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        ResourceStatistics(String method, String resource)
+        {
+            this.method = method;
+            this.resource = resource;
+        }
+    }
+
+    public RequestStatistics()
+    {
+        for(int i = 0; i < Request.MAX_TYPE_NUM + 1; i++)
+        {
+            numRequests[i] = new LongAdder();
+            RequestsTimes[i] = new LongAdder();
+            RequestsTimeMin[i] = new LongAccumulator(Math::min, Long.MAX_VALUE);
+            RequestsTimeMax[i] = new LongAccumulator(Math::max, 0);
+        }
+    }
+
+    public void countRequest(int reqType)
+    {
+        numRequests[reqType].increment();
+    }
+
+    public void recordTime(int reqType, long timeElapsed)
+    {
+        RequestsTimes[reqType].add(timeElapsed);
+        RequestsTimeMax[reqType].accumulate(timeElapsed);
+        RequestsTimeMin[reqType].accumulate(timeElapsed);
+    }
+
+    /** records a request that has been sent to the server.
+     *
+     * @param req the request.
+     * @param timeElapsed time until the response was received in ns.
+     * @param bytesOut number of bytes sent in the body of the request.
+     * @param bytesIn number of bytes received in the body of the response.
+     * @param failed true if the request failed.
+     */
+    public void recordRequest(Request req, long timeElapsed, long bytesOut, long bytesIn, boolean failed)
+    {
+        int reqType = req.getType();
+        recordTime(reqType, timeElapsed);
+        String method = Request.getMethodName(reqType);
+        String key = req.getResource() + " " + method;
+        ResourceStatistics res = resources.get(key);
+        if(null == res)
+        {
+            res = resources.computeIfAbsent(key, k -> new ResourceStatistics(method, req.getResource()));
+        }
+        res.latency.record(timeElapsed / 1000);
+        res.bytesOut.add(bytesOut);
+        res.bytesIn.add(bytesIn);
+        if(true == failed)
+        {
+            res.errors.increment();
+        }
+    }
+
+    private String statusForType(int type, boolean dryRunMode)
+    {
+        long num = numRequests[type].sum();
+        long min = RequestsTimeMin[type].get();
+        if((Long.MAX_VALUE == min) || ((true == dryRunMode) && (Request.GET != type)))
+        {
+            // in dry run mode these requests are not sent
+            min = 0;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(Request.getMethodName(type) + " : " + num + " Requests");
+        sb.append(String.format(" (%d/%d/%d)\n",
+                min/1000000,
+                (RequestsTimes[type].sum()/num)/1000000,
+                RequestsTimeMax[type].get()/1000000 ) );
+        return sb.toString();
+    }
+
+    private static String statusForResource(ResourceStatistics res)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(res.method + " " + res.resource + " : " + res.latency.getCount() + " Requests (");
+        for(int i = 0; i < PERCENTILES.length; i++)
+        {
+            if(0 < i)
+            {
+                sb.append("/");
+            }
+            sb.append(String.format("%.1f", res.latency.getValueAtPercentile(PERCENTILES[i]) / 1000.0));
+        }
+        sb.append(") " + res.bytesOut.sum() + " bytes out, " + res.bytesIn.sum() + " bytes in, " + res.errors.sum() + " errors\n");
+        return sb.toString();
+    }
+
+    /**
+     * @param dryRunMode true = only GET requests have been sent to the server.
+     * @return number of requests and min / average / max time in ms for each request type,
+     *         and the percentiles of the time in ms for each resource.
+     */
+    public String getStatus(boolean dryRunMode)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Type : (min / avareage / max)\n");
+        for(int i = 1; i <= Request.MAX_TYPE_NUM; i++)
+        {
+            if(0 < numRequests[i].sum())
+            {
+                sb.append(statusForType(i, dryRunMode));
+            }
+        }
+        if(false == resources.isEmpty())
+        {
+            sb.append("Type resource : (p50 / p90 / p99 / p999 in ms)\n");
+            for(ResourceStatistics res : resources.values())
+            {
+                sb.append(statusForResource(res));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the statistics of each resource as JSON, times are in microseconds.
+     */
+    public String toJson()
+    {
+        JSONArray arr = new JSONArray();
+        for(ResourceStatistics res : resources.values())
+        {
+            JSONObject obj = new JSONObject();
+            obj.put("method", res.method);
+            obj.put("resource", res.resource);
+            obj.put("requests", res.latency.getCount());
+            obj.put("errors", res.errors.sum());
+            obj.put("bytes_out", res.bytesOut.sum());
+            obj.put("bytes_in", res.bytesIn.sum());
+            obj.put("min_us", res.latency.getMin());
+            for(int i = 0; i < PERCENTILES.length; i++)
+            {
+                obj.put(PERCENTILE_NAMES[i] + "_us", res.latency.getValueAtPercentile(PERCENTILES[i]));
+            }
+            obj.put("max_us", res.latency.getMax());
+            arr.put(obj);
+        }
+        JSONObject root = new JSONObject();
+        root.put("requests", arr);
+        return root.toString(2);
+    }
+
+}
@@ -1,13 +1,20 @@
 package org.chipselect.importer.server;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
 
 import org.chipselect.importer.Tool;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +26,37 @@ public class Response
     private boolean success = true;
     private String ErrorMessage = null;
     private String JsonString = null;
+    private long numBytes = 0;
+    private static final int INT_COLUMN = 1;
+    private static final int LONG_COLUMN = 2;
+    private static final int STRING_COLUMN = 3;
+    private static final byte VALUE = 0;
+    private static final byte MISSING = 1;
+    private static final byte NULL = 2;
+    private static final byte NOT_A_STRING = 3;
+    private static final byte NOT_A_NUMBER = 4;
+
+    /** the values of one column of all entries, decoded to one type. */
+    private static final class Column
+    {
+        final byte[] state;
+        final int[] ints;
+        final long[] longs;
+        final String[] strings;
+
+        Column(int size, int type)
+        {
+            state = new byte[size];
+            ints = (INT_COLUMN == type) ? new int[size] : null;
+            longs = (LONG_COLUMN == type) ? new long[size] : null;
+            strings = (STRING_COLUMN == type) ? new String[size] : null;
+        }
+    }
+
+    /** type + column name -> decoded column */
+    private HashMap<String, Column> columns = new HashMap<String, Column>();
+    /** column -> value -> indexes of the entries with that value */
+    private HashMap<String, HashMap<String, Vector<Integer>>> indexes = new HashMap<String, HashMap<String, Vector<Integer>>>();
 
     @Override
     public String toString()
@@ -59,79 +97,268 @@ public class Response
         }
     }
 
+    /** reads the data from the stream.
+     *
+     * The JSON is parsed while it is read from the stream. The text of the
+     * response is only kept if trace logging is enabled.
+     *
+     * @param responseStream data from the server.
+     * @throws IOException if reading from the stream failed.
+     */
     public void readFrom(InputStream responseStream) throws IOException
     {
-        JsonString = new String(responseStream.readAllBytes(), StandardCharsets.UTF_8);
-        dataArr = new JSONArray(JsonString);
-        log.trace("{}", JsonString);
-        // log.trace("{}", dataArr.toString());
+        CountingInputStream counter = new CountingInputStream(responseStream);
+        try
+        {
+            parse(counter);
+        }
+        finally
+        {
+            numBytes = counter.getCount();
+        }
     }
 
-    public int getInt(String key)
+    /** reads the data from a stream that might be compressed.
+     *
+     * @param responseStream data from the server.
+     * @param contentEncoding value of the Content-Encoding header, null if the data is not compressed.
+     * @throws IOException if reading from the stream failed or the encoding is not supported.
+     */
+    public void readFrom(InputStream responseStream, String contentEncoding) throws IOException
     {
-        return getInt(0, key);
+        readFrom(Compression.decode(responseStream, contentEncoding));
     }
 
-    public int getInt(int index, String key)
+    /**
+     * @return number of (uncompressed) bytes read by readFrom().
+     */
+    public long getNumberOfBytes()
     {
-        if(null == dataArr)
+        return numBytes;
+    }
+
+    private void parse(InputStream responseStream) throws IOException
+    {
+        if(true == log.isTraceEnabled())
         {
-            log.warn("No data array to read from");
-            return 0;
+            JsonString = new String(responseStream.readAllBytes(), StandardCharsets.UTF_8);
+            dataArr = new JSONArray(JsonString);
+            log.trace("{}", JsonString);
+            // log.trace("{}", dataArr.toString());
         }
         else
         {
-            if(0 ==  dataArr.length())
+            Reader in = new BufferedReader(new InputStreamReader(responseStream, StandardCharsets.UTF_8));
+            try
             {
-                log.warn("data array is empty");
-                return 0;
+                dataArr = new JSONArray(new JSONTokener(in));
+                // read the rest so that the connection can be reused
+                while(-1 != in.read())
+                {
+                    // white space after the array
+                }
             }
-            JSONObject obj = dataArr.getJSONObject(index);
-            if(false == obj.has(key))
+            catch(JSONException e)
             {
-                log.warn("requested key not in data entry");
-                return 0;
+                if(e.getCause() instanceof IOException)
+                {
+                    // the stream failed, not the JSON
+                    throw (IOException)e.getCause();
+                }
+                throw e;
             }
-            if(true == obj.isNull(key))
+        }
+        dropDecodedData();
+    }
+
+    /** adds an entry to the data of this response.
+     *
+     * Used to keep a response up to date with the changes written to the server.
+     *
+     * @param values column name -> value. null values are stored as JSON null.
+     */
+    public void addResult(Map<String, Object> values)
+    {
+        if(null == dataArr)
+        {
+            dataArr = new JSONArray();
+        }
+        JSONObject obj = new JSONObject();
+        for(Map.Entry<String, Object> e : values.entrySet())
+        {
+            if(null == e.getValue())
             {
-                // log.warn("requested key({}) is null", key);
-                return 0;
+                obj.put(e.getKey(), JSONObject.NULL);
             }
-            try
+            else
             {
-                return obj.getInt(key); // does not work with hex numbers like "0x400"
+                obj.put(e.getKey(), e.getValue());
             }
-            catch(JSONException e)
+        }
+        dataArr.put(obj);
+        dropDecodedData();
+    }
+
+    /** the entry that was created by a POST request.
+     *
+     * The server answers a POST with the id of the new entry and might also
+     * send back the other values of that entry. The values that were sent
+     * in the request are used for all columns that are not in the answer.
+     * So the new entry does not need to be read from the server again.
+     *
+     * @param postReq the request that created the entry.
+     * @param emptyColumns columns that the request did not set and that the server leaves empty.
+     * @return the new entry, or null if the server did not report the id of the new entry.
+     */
+    public Response getCreatedEntry(Request postReq, String... emptyColumns)
+    {
+        if((false == success) || (0 == numResults()))
+        {
+            return null;
+        }
+        JSONObject answer = dataArr.getJSONObject(0);
+        if((false == answer.has("id")) || (true == answer.isNull("id")))
+        {
+            return null;
+        }
+        HashMap<String, Object> values = new HashMap<String, Object>();
+        for(String column : emptyColumns)
+        {
+            values.put(column, null);
+        }
+        values.putAll(postReq.getParameters());
+        for(String column : answer.keySet())
+        {
+            values.put(column, answer.get(column));
+        }
+        Response res = new Response();
+        res.addResult(values);
+        return res;
+    }
+
+    private synchronized void dropDecodedData()
+    {
+        indexes.clear();
+        columns.clear();
+    }
+
+    private synchronized Vector<Integer> lookup(String indexName, String value, boolean numeric)
+    {
+        HashMap<String, Vector<Integer>> index = indexes.get(indexName);
+        if(null == index)
+        {
+            // first lookup on this column -> build the index
+            String column = indexName.substring(1);
+            index = new HashMap<String, Vector<Integer>>();
+            for(int i = 0; i < numResults(); i++)
             {
-                // might just be a hex number
-                try
+                String key;
+                if(true == numeric)
                 {
-                    String hlp = obj.getString(key);
-                    int res = (int)Tool.decode(hlp);
-                    return res;
+                    key = "" + getInt(i, column);
                 }
-                catch(JSONException e2)
+                else
                 {
-                    log.warn("JSON: Int convert Exception !(key: {} - {})", key, obj);
-                    System.exit(98);
-                    return 0;
+                    key = getString(i, column).trim();
                 }
-                catch(NumberFormatException e1)
+                Vector<Integer> found = index.get(key);
+                if(null == found)
                 {
-                    log.warn("Int convert Exception !(key: {} - {})", key, obj);
-                    System.exit(99);
-                    return 0;
+                    found = new Vector<Integer>();
+                    index.put(key, found);
                 }
+                found.add(i);
             }
+            indexes.put(indexName, index);
         }
+        Vector<Integer> res = index.get(value);
+        if(null == res)
+        {
+            return new Vector<Integer>();
+        }
+        return new Vector<Integer>(res);
     }
 
-    public long getLong(String key)
+    /** finds the entries that have the value in the column.
+     *
+     * The values are compared as returned by getString(), without leading
+     * or trailing white space.
+     *
+     * @param column name of the column.
+     * @param value the value to look for.
+     * @return the indexes of all matching entries. Empty if there is no match.
+     */
+    public Vector<Integer> getIndexesFor(String column, String value)
     {
-        return getLong(0, key);
+        if(null == value)
+        {
+            return new Vector<Integer>();
+        }
+        return lookup("s" + column, value.trim(), false);
     }
 
-    public long getLong(int index, String key)
+    /** finds the entries that have the value in the column.
+     *
+     * The values are compared as returned by getInt().
+     *
+     * @param column name of the column.
+     * @param value the value to look for.
+     * @return the indexes of all matching entries. Empty if there is no match.
+     */
+    public Vector<Integer> getIndexesFor(String column, int value)
+    {
+        return lookup("i" + column, "" + value, true);
+    }
+
+    /** finds the first entry that has the value in the column.
+     *
+     * @param column name of the column.
+     * @param value the value to look for.
+     * @return index of the entry or -1 if there is no match.
+     */
+    public int getIndexFor(String column, String value)
+    {
+        Vector<Integer> found = getIndexesFor(column, value);
+        if(true == found.isEmpty())
+        {
+            return -1;
+        }
+        return found.get(0);
+    }
+
+    /**
+     * @param index number of the entry.
+     * @param key name of the column.
+     * @return true if the entry has a value for that column.
+     */
+    public boolean has(int index, String key)
+    {
+        if((null == dataArr) || (index >= dataArr.length()))
+        {
+            return false;
+        }
+        JSONObject obj = dataArr.getJSONObject(index);
+        return (true == obj.has(key)) && (false == obj.isNull(key));
+    }
+
+    /**
+     * @param index number of the entry.
+     * @return a response that only contains this entry.
+     */
+    public Response getResult(int index)
+    {
+        Response res = new Response();
+        res.dataArr = new JSONArray();
+        res.dataArr.put(dataArr.getJSONObject(index));
+        return res;
+    }
+
+    public int getInt(String key)
+    {
+        return getInt(0, key);
+    }
+
+    public int getInt(int index, String key)
     {
         if(null == dataArr)
         {
@@ -145,42 +372,77 @@ public class Response
                 log.warn("data array is empty");
                 return 0;
             }
-            JSONObject obj = dataArr.getJSONObject(index);
-            if(false == obj.has(key))
+            Column col = getColumn(key, INT_COLUMN);
+            switch(col.state[index])
             {
+            case VALUE:
+                return col.ints[index];
+
+            case MISSING:
                 log.warn("requested key not in data entry");
                 return 0;
-            }
-            if(true == obj.isNull(key))
-            {
+
+            case NULL:
                 // log.warn("requested key({}) is null", key);
                 return 0;
+
+            case NOT_A_STRING:
+                log.warn("JSON: Int convert Exception !(key: {} - {})", key, dataArr.getJSONObject(index));
+                System.exit(98);
+                return 0;
+
+            case NOT_A_NUMBER:
+            default:
+                log.warn("Int convert Exception !(key: {} - {})", key, dataArr.getJSONObject(index));
+                System.exit(99);
+                return 0;
             }
-            try
+        }
+    }
+
+    public long getLong(String key)
+    {
+        return getLong(0, key);
+    }
+
+    public long getLong(int index, String key)
+    {
+        if(null == dataArr)
+        {
+            log.warn("No data array to read from");
+            return 0;
+        }
+        else
+        {
+            if(0 ==  dataArr.length())
             {
-                return obj.getLong(key); // does not work with hex numbers like "0x400"
+                log.warn("data array is empty");
+                return 0;
             }
-            catch(JSONException e)
+            Column col = getColumn(key, LONG_COLUMN);
+            switch(col.state[index])
             {
-                // might just be a hex number
-                try
-                {
-                    String hlp = obj.getString(key);
-                    long res = Tool.decode(hlp);
-                    return res;
-                }
-                catch(JSONException e2)
-                {
-                    log.warn("JSON: Int convert Exception !(key: {} - {})", key, obj);
-                    System.exit(100);
-                    return 0;
-                }
-                catch(NumberFormatException e1)
-                {
-                    log.warn("Int convert Exception !(key: {} - {})", key, obj);
-                    System.exit(101);
-                    return 0;
-                }
+            case VALUE:
+                return col.longs[index];
+
+            case MISSING:
+                log.warn("requested key not in data entry");
+                return 0;
+
+            case NULL:
+                // log.warn("requested key({}) is null", key);
+                return 0;
+
+            case NOT_A_STRING:
+                log.warn("JSON: Int convert Exception !(key: {} - {})", key, dataArr.getJSONObject(index));
+                System.exit(100);
+                return 0;
+
+            case NOT_A_NUMBER:
+            default:
+                log.warn("Int convert Exception !(key: {} - {})", key, dataArr.getJSONObject(index));
+                System.exit(101);
+                return 0;
             }
         }
     }
@@ -203,33 +465,141 @@ public class Response
                 log.warn("data array is empty");
                 return "";
             }
-            JSONObject obj = dataArr.getJSONObject(index);
-            if(false == obj.has(key))
+            Column col = getColumn(key, STRING_COLUMN);
+            switch(col.state[index])
             {
+            case VALUE:
+                return col.strings[index];
+
+            case MISSING:
                 log.warn("requested key not in data entry");
                 return "";
-            }
-            if(true == obj.isNull(key))
-            {
+
+            case NULL:
                 // log.warn("requested key({}) is null", key);
                 return "";
+
+            default:
+                System.exit(102);
+                return "";
             }
-            try
+        }
+    }
+
+    /** decodes a column of all entries on the first access.
+     *
+     * The getters then only read from the arrays instead of converting
+     * the JSON value each time.
+     */
+    private synchronized Column getColumn(String key, int type)
+    {
+        String name = type + key;
+        Column col = columns.get(name);
+        if(null == col)
+        {
+            col = new Column(dataArr.length(), type);
+            for(int i = 0; i < dataArr.length(); i++)
             {
-                String res = JSONObject.valueToString(obj.get(key));
-                res = res.trim();
-                if(true == res.matches("\".*\""))
+                JSONObject obj = dataArr.getJSONObject(i);
+                if(false == obj.has(key))
                 {
-                    res = res.substring(1, res.length() -1);
+                    col.state[i] = MISSING;
+                }
+                else if(true == obj.isNull(key))
+                {
+                    col.state[i] = NULL;
+                }
+                else
+                {
+                    switch(type)
+                    {
+                    case INT_COLUMN: decodeInt(obj, key, col, i); break;
+                    case LONG_COLUMN: decodeLong(obj, key, col, i); break;
+                    default: decodeString(obj, key, col, i); break;
+                    }
                 }
-                // String res = obj.getString(key); // this does not work on int values !
-                return res;
             }
-            catch(JSONException e)
+            columns.put(name, col);
+        }
+        return col;
+    }
+
+    private void decodeInt(JSONObject obj, String key, Column col, int i)
+    {
+        try
+        {
+            col.ints[i] = obj.getInt(key); // does not work with hex numbers like "0x400"
+            col.state[i] = VALUE;
+        }
+        catch(JSONException e)
+        {
+            // might just be a hex number
+            try
             {
-                System.exit(102);
-                return "";
+                String hlp = obj.getString(key);
+                col.ints[i] = (int)Tool.decode(hlp);
+                col.state[i] = VALUE;
+            }
+            catch(JSONException e2)
+            {
+                col.state[i] = NOT_A_STRING;
             }
+            catch(NumberFormatException e1)
+            {
+                col.state[i] = NOT_A_NUMBER;
+            }
+        }
+    }
+
+    private void decodeLong(JSONObject obj, String key, Column col, int i)
+    {
+        try
+        {
+            col.longs[i] = obj.getLong(key); // does not work with hex numbers like "0x400"
+            col.state[i] = VALUE;
+        }
+        catch(JSONException e)
+        {
+            // might just be a hex number
+            try
+            {
+                String hlp = obj.getString(key);
+                col.longs[i] = Tool.decode(hlp);
+                col.state[i] = VALUE;
+            }
+            catch(JSONException e2)
+            {
+                col.state[i] = NOT_A_STRING;
+            }
+            catch(NumberFormatException e1)
+            {
+                col.state[i] = NOT_A_NUMBER;
+            }
+        }
+    }
+
+    private void decodeString(JSONObject obj, String key, Column col, int i)
+    {
+        try
+        {
+            Object value = obj.get(key);
+            String res;
+            if(value instanceof String)
+            {
+                // not valueToString() as that would escape the string again ("\n" -> "\\n")
+                res = (String)value;
+            }
+            else
+            {
+                // String res = obj.getString(key); // this does not work on int values !
+                res = JSONObject.valueToString(value);
+            }
+            col.strings[i] = res.trim();
+            col.state[i] = VALUE;
+        }
+        catch(JSONException e)
+        {
+            col.state[i] = NOT_A_STRING;
         }
     }
 
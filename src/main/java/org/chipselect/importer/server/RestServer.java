@@ -1,7 +1,249 @@
 package org.chipselect.importer.server;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/** what the transports to the REST server have in common.
+ *
+ * This is the window of requests in flight, the executor of the
+ * asynchronous requests, the dry run mode and the statistics.
+ */
 public abstract class RestServer implements Server
 {
+    public static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT = 8;
+    public static final String DRY_RUN_LOG_FILE = "log_dry_mode.txt";
+
+    private Semaphore inFlight = new Semaphore(DEFAULT_MAX_REQUESTS_IN_FLIGHT);
+    private int maxRequestsInFlight = DEFAULT_MAX_REQUESTS_IN_FLIGHT;
+    private boolean dryRunMode = false;
+    /** log of the requests that were not sent in dry run mode, null if the file could not be opened */
+    private FileWriter fw = null;
+    private ExecutorService executor = null;
+    private boolean ownExecutor = false;
+    /** key -> lock of runExclusive(), only known inside this JVM */
+    private final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<String, ReentrantLock>();
+    protected final RequestStatistics stats = new RequestStatistics();
+
     public abstract Response execute(Request req);
     public abstract String getStatus();
+
+    /**
+     * @return statistics of the requests sent to the server.
+     */
+    public RequestStatistics getStatistics()
+    {
+        return stats;
+    }
+
+    /** limits the number of asynchronous requests that are executed at the same time.
+     *
+     * Has to be called before the first asynchronous request.
+     *
+     * @param max maximum number of requests in flight.
+     */
+    public void setMaxRequestsInFlight(int max)
+    {
+        if(0 < max)
+        {
+            maxRequestsInFlight = max;
+            inFlight = new Semaphore(max);
+        }
+    }
+
+    public int getMaxRequestsInFlight()
+    {
+        return maxRequestsInFlight;
+    }
+
+    /** takes a slot in the window of requests in flight.
+     *
+     * Blocks the caller while the window is full.
+     *
+     * @return the window, release() it when the response has arrived.
+     */
+    protected Semaphore acquireSlot()
+    {
+        final Semaphore window = inFlight;
+        window.acquireUninterruptibly();
+        return window;
+    }
+
+    /**
+     * @param user name of the user, null = no authorization.
+     * @param password password of the user.
+     * @return the value of the Authorization header, or null if there is no user.
+     */
+    protected static String basicAuthorization(String user, String password)
+    {
+        if((null == user) || (null == password))
+        {
+            return null;
+        }
+        Base64.Encoder enc = Base64.getUrlEncoder();
+        return "Basic " + enc.encodeToString((user + ":" + password).getBytes());
+    }
+
+    /** requests that change data are not sent, but written to the log file. */
+    @Override
+    public void enableDryRunMode()
+    {
+        dryRunMode = true;
+        try
+        {
+            fw = new FileWriter(DRY_RUN_LOG_FILE);
+        }
+        catch (IOException e)
+        {
+            fw = null;
+            e.printStackTrace();
+        }
+    }
+
+    protected boolean isDryRunMode()
+    {
+        return dryRunMode;
+    }
+
+    /**
+     * @param req the request.
+     * @return true if the request would change data and may therefore not be sent.
+     */
+    protected boolean isDryRunRequest(Request req)
+    {
+        return (true == dryRunMode) && (Request.GET != req.getType());
+    }
+
+    /** the response to a request that changes data in dry run mode.
+     *
+     * The request gets logged. A new entry gets the id 1.
+     */
+    protected Response dryRunResponse(Request req)
+    {
+        Response res = new Response();
+        try
+        {
+            if(null != fw)
+            {
+                synchronized(fw)
+                {
+                    fw.write(req.toString() + "\n");
+                }
+            }
+            // if we tried to create a new entry we read back the new id
+            StringBuilder sb = new StringBuilder("[{id : 1}");
+            for(int i = 1; i < BatchRequest.getNumberOfItems(req); i++)
+            {
+                sb.append(", {id : 1}");
+            }
+            sb.append("]");
+            res.readFrom(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+        return res;
+    }
+
+    @Override
+    public void close()
+    {
+        shutdownExecutor();
+        if(null != fw)
+        {
+            try
+            {
+                synchronized(fw)
+                {
+                    fw.flush();
+                    fw.close();
+                }
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** use the given executor to run asynchronous requests.
+     *
+     * The executor stays owned by the caller and will not be shut down by close().
+     *
+     * @param executor executor for the asynchronous requests.
+     */
+    public synchronized void setExecutor(ExecutorService executor)
+    {
+        shutdownExecutor();
+        this.executor = executor;
+        ownExecutor = false;
+    }
+
+    @Override
+    public CompletableFuture<Response> executeAsync(final Request req)
+    {
+        // blocks the caller if the window is full
+        final Semaphore window = acquireSlot();
+        CompletableFuture<Response> res;
+        try
+        {
+            res = CompletableFuture.supplyAsync(() -> execute(req), getExecutor());
+        }
+        catch(RuntimeException e)
+        {
+            window.release();
+            throw e;
+        }
+        return res.whenComplete((r, e) -> window.release());
+    }
+
+    @Override
+    public <T> T runExclusive(String key, Supplier<T> action)
+    {
+        ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try
+        {
+            return action.get();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private synchronized ExecutorService getExecutor()
+    {
+        if(null == executor)
+        {
+            // the window limits the number of requests, not the number of threads.
+            // Code waiting on a response may block a thread without holding a slot in the window.
+            executor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "RestServer");
+                t.setDaemon(true);
+                return t;
+            });
+            ownExecutor = true;
+        }
+        return executor;
+    }
+
+    protected synchronized void shutdownExecutor()
+    {
+        if((null != executor) && (true == ownExecutor))
+        {
+            executor.shutdown();
+        }
+        executor = null;
+    }
 }
@@ -1,8 +1,29 @@
 package org.chipselect.importer.server;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 public interface Server
 {
     Response execute(Request req);
+    /** executes the request in the background.
+     *
+     * @param req the request to send to the server.
+     * @return the response once it has been received.
+     */
+    CompletableFuture<Response> executeAsync(Request req);
+    /** runs the action while no other action with the same key is running.
+     *
+     * Used to look up an entry and create it if it does not exist, without
+     * another import creating the same entry at the same time.
+     * The lock only covers imports running in this JVM. Two importer
+     * processes writing to the same server can still both create the entry.
+     *
+     * @param key identifies the entry, like "vendor:name".
+     * @param action the requests to execute.
+     * @return the result of the action.
+     */
+    <T> T runExclusive(String key, Supplier<T> action);
     String getStatus();
     void enableDryRunMode();
     void close();
@@ -0,0 +1,111 @@
+package org.chipselect.importer.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** collects changes to entries on the server and writes them with one PUT per entry.
+ *
+ * Changes are only sent when flush() is called. So flush() needs to be
+ * called before anything reads the changed entries from the server.
+ */
+public class UpdateBuffer
+{
+    private final Logger log = LoggerFactory.getLogger(this.getClass().getName());
+    private final Server srv;
+    private static final class Entry
+    {
+        final String resource;
+        final String keyColumn;
+        final String keyValue;
+        /** column -> new value */
+        final LinkedHashMap<String, String> values = new LinkedHashMap<String, String>();
+
+        Entry(String resource, String keyColumn, String keyValue)
+        {
+            this.resource = resource;
+            this.keyColumn = keyColumn;
+            this.keyValue = keyValue;
+        }
+    }
+
+    /** resource?keyColumn=keyValue -> changes to that entry */
+    private final LinkedHashMap<String, Entry> pending = new LinkedHashMap<String, Entry>();
+    private int numUpdates = 0;
+    private int numRequests = 0;
+
+    public UpdateBuffer(Server srv)
+    {
+        this.srv = srv;
+    }
+
+    private Entry getEntry(String resource, String keyColumn, String keyValue)
+    {
+        String key = resource + "?" + keyColumn + "=" + keyValue;
+        Entry e = pending.get(key);
+        if(null == e)
+        {
+            e = new Entry(resource, keyColumn, keyValue);
+            pending.put(key, e);
+        }
+        return e;
+    }
+
+    /** changes a value of an entry on the server.
+     *
+     * @param resource the resource like "microcontroller".
+     * @param keyColumn the column that identifies the entry, like "id" or "name".
+     * @param keyValue the value of the key column of the entry.
+     * @param column the column to change.
+     * @param value the new value.
+     */
+    public synchronized void update(String resource, String keyColumn, String keyValue, String column, String value)
+    {
+        if((null == keyValue) || (null == value))
+        {
+            return;
+        }
+        getEntry(resource, keyColumn, keyValue).values.put(column, value);
+        numUpdates++;
+    }
+
+    public void update(String resource, String keyColumn, String keyValue, String column, int value)
+    {
+        update(resource, keyColumn, keyValue, column, "" + value);
+    }
+
+    /** sends all collected changes to the server.
+     *
+     * @return true = success, false = error
+     */
+    public synchronized boolean flush()
+    {
+        boolean success = true;
+        for(Entry e : pending.values())
+        {
+            Request req = new Request(e.resource, Request.PUT);
+            req.addPostParameter(e.keyColumn, e.keyValue);
+            for(Map.Entry<String, String> value : e.values.entrySet())
+            {
+                req.addPostParameter(value.getKey(), value.getValue());
+            }
+            numRequests++;
+            Response res = srv.execute(req);
+            if(false == res.wasSuccessfull())
+            {
+                log.error("could not update the {} {} on the server", e.resource, e.keyValue);
+                success = false;
+            }
+        }
+        pending.clear();
+        return success;
+    }
+
+    public synchronized String getStatus()
+    {
+        return "Updates : " + numUpdates + " changes written with " + numRequests + " requests\n";
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.chipselect.importer.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.chipselect.importer.parser.svd.SvdAddressBlock;
+import org.chipselect.importer.parser.svd.SvdCluster;
+import org.chipselect.importer.parser.svd.SvdInterrupt;
+import org.chipselect.importer.parser.svd.SvdPeripheral;
+import org.junit.Test;
+
+public class PeripheralSchedulerTest
+{
+    /** waits for the test before it handles a peripheral. */
+    private class WaitingHandler extends SvdPeripheralHandler
+    {
+        public CountDownLatch release = new CountDownLatch(1);
+        public Vector<String> handled = new Vector<String>();
+
+        public WaitingHandler()
+        {
+            super(null);
+        }
+
+        @Override
+        public boolean handle(SvdPeripheral peripheral)
+        {
+            try
+            {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch(InterruptedException e)
+            {
+                return false;
+            }
+            handled.add(peripheral.getName());
+            return true;
+        }
+
+        @Override
+        public boolean handleDerived(SvdPeripheral peripheral)
+        {
+            handled.add(peripheral.getName());
+            return true;
+        }
+    }
+
+    private SvdPeripheral peripheral(String name, String derivedFrom)
+    {
+        return new SvdPeripheral(name, derivedFrom, null, null, new HexString("0x40000000"), null,
+                new Vector<SvdAddressBlock>(), new Vector<SvdInterrupt>(), null, new Vector<SvdCluster>());
+    }
+
+    @Test
+    public void testAddWaitsForPendingPeripherals() throws InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        WaitingHandler handler = new WaitingHandler();
+        PeripheralScheduler cut = new PeripheralScheduler(handler, executor, 2);
+        cut.add(peripheral("UART0", null));
+        cut.add(peripheral("SPI0", null));
+        AtomicInteger added = new AtomicInteger(0);
+        Thread reader = new Thread(() -> {
+            cut.add(peripheral("UART1", "UART0"));
+            added.incrementAndGet();
+        });
+        reader.start();
+        reader.join(200);
+        // two peripherals are pending -> the third has to wait
+        assertEquals(0, added.get());
+        assertTrue(handler.handled.isEmpty());
+        handler.release.countDown();
+        reader.join(5000);
+        assertFalse(reader.isAlive());
+        assertEquals(1, added.get());
+        assertTrue(cut.waitForAll());
+        assertEquals(3, handler.handled.size());
+        // the derived peripheral comes after its original
+        assertTrue(handler.handled.indexOf("UART0") < handler.handled.indexOf("UART1"));
+        executor.shutdown();
+    }
+
+}
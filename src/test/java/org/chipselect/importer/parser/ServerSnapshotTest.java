@@ -0,0 +1,62 @@
+package org.chipselect.importer.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.chipselect.importer.server.FakeServer;
+import org.chipselect.importer.server.Request;
+import org.chipselect.importer.server.Response;
+import org.junit.Test;
+
+public class ServerSnapshotTest
+{
+    private FakeServer deviceServer()
+    {
+        FakeServer srv = new FakeServer();
+        srv.store("peripheral_instance", "dev_id", 1, "[{\"id\":10, \"name\":\"UART0\", \"peripheral_id\":20}]");
+        srv.store("peripheral", "id", 20, "[{\"id\":20, \"group_name\":\"UART\"}]");
+        srv.store("register", "per_id", 20, "[{\"id\":30, \"name\":\"CTRL\"}]");
+        srv.store("field", "reg_id", 30, "[{\"id\":40, \"name\":\"EN\", \"is_Enum\":\"1\"}]");
+        srv.store("enumeration_element", "field_id", 40, "[{\"id\":50, \"name\":\"ON\"}]");
+        return srv;
+    }
+
+    @Test
+    public void testLoad()
+    {
+        FakeServer srv = deviceServer();
+        ServerSnapshot cut = new ServerSnapshot(srv);
+        assertTrue(cut.load(1));
+        int afterLoad = srv.requests.size();
+        Request req = new Request("field", Request.GET);
+        req.addPostParameter("reg_id", 30);
+        Response res = cut.execute(req);
+        assertEquals(1, res.numResults());
+        assertEquals("EN", res.getString("name"));
+        req = new Request("enumeration_element", Request.GET);
+        req.addPostParameter("field_id", 40);
+        res = cut.execute(req);
+        assertEquals("ON", res.getString("name"));
+        assertEquals(afterLoad, srv.requests.size());
+        srv.close();
+    }
+
+    @Test
+    public void testWriteInvalidates()
+    {
+        FakeServer srv = deviceServer();
+        ServerSnapshot cut = new ServerSnapshot(srv);
+        assertTrue(cut.load(1));
+        Request put = new Request("field", Request.PUT);
+        put.addPostParameter("id", 40);
+        put.addPostParameter("name", "ENABLE");
+        cut.execute(put);
+        int afterPut = srv.requests.size();
+        Request req = new Request("field", Request.GET);
+        req.addPostParameter("reg_id", 30);
+        cut.execute(req);
+        assertEquals(afterPut + 1, srv.requests.size());
+        srv.close();
+    }
+
+}
@@ -0,0 +1,155 @@
+package org.chipselect.importer.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Vector;
+
+import org.chipselect.importer.parser.svd.SvdAddressBlock;
+import org.chipselect.importer.parser.svd.SvdCluster;
+import org.chipselect.importer.parser.svd.SvdEnumValue;
+import org.chipselect.importer.parser.svd.SvdField;
+import org.chipselect.importer.parser.svd.SvdInterrupt;
+import org.chipselect.importer.parser.svd.SvdPeripheral;
+import org.chipselect.importer.parser.svd.SvdRegister;
+import org.chipselect.importer.server.Change;
+import org.chipselect.importer.server.ChangeSet;
+import org.chipselect.importer.server.FakeServer;
+import org.chipselect.importer.server.Request;
+import org.chipselect.importer.server.Response;
+import org.junit.Test;
+
+public class SvdDiffTest
+{
+    private static final Response UART0 = FakeServer.json(
+            "[{\"id\":10, \"name\":\"UART0\", \"base_address\":\"0x40000000\", \"peripheral_id\":20}]");
+
+    /** UART0 with one address block, the register CTRL and its field EN. */
+    private FakeServer deviceServer()
+    {
+        FakeServer srv = new FakeServer();
+        srv.store("peripheral", "id", 20, "[{\"id\":20, \"group_name\":\"UART\"}]");
+        srv.store("address_block", "per_id", 20, "[{\"id\":30, \"address_offset\":0, \"size\":\"0x400\", \"mem_usage\":\"registers\"}]");
+        srv.store("register", "per_id", 20, "[{\"id\":40, \"name\":\"CTRL\", \"description\":\"control\", \"address_offset\":\"0x00\", "
+                + "\"size\":32, \"access\":\"read-write\", \"reset_value\":\"0x00\"}]");
+        srv.store("field", "reg_id", 40, "[{\"id\":50, \"name\":\"EN\", \"description\":\"enable\", \"bit_offset\":0, "
+                + "\"size_bit\":1, \"access\":\"read-write\", \"is_Enum\":\"0\"}]");
+        return srv;
+    }
+
+    private SvdPeripheral uart(String name, String derivedFrom, String resetValue, String fieldDescription, List<SvdInterrupt> interrupts)
+    {
+        Vector<SvdAddressBlock> blocks = new Vector<SvdAddressBlock>();
+        blocks.add(new SvdAddressBlock(new HexString("0x0"), new HexString("0x400"), "registers", null));
+        Vector<SvdField> fields = new Vector<SvdField>();
+        fields.add(new SvdField("EN", fieldDescription, 0, 1, "read-write", null, null, false, null, null, new Vector<SvdEnumValue>()));
+        Vector<SvdRegister> registers = new Vector<SvdRegister>();
+        registers.add(new SvdRegister("CTRL", null, "control", new HexString("0x0"), 32, "read-write",
+                new HexString(resetValue), new HexString((String)null), null, null, null, null, null, fields));
+        return new SvdPeripheral(name, derivedFrom, null, null, new HexString("0x40000000"), "UART",
+                blocks, interrupts, registers, new Vector<SvdCluster>());
+    }
+
+    /** the changes of all entries of the change set, parents first. */
+    private Vector<Change> allChanges(ChangeSet changes)
+    {
+        Vector<Change> res = new Vector<Change>();
+        Vector<Change> level = changes.getChanges();
+        while(false == level.isEmpty())
+        {
+            Vector<Change> next = new Vector<Change>();
+            for(Change c : level)
+            {
+                res.add(c);
+                next.addAll(c.getChildren());
+            }
+            level = next;
+        }
+        return res;
+    }
+
+    @Test
+    public void testUnchangedPeripheral()
+    {
+        FakeServer srv = deviceServer();
+        SvdDiff cut = new SvdDiff(srv);
+        ChangeSet changes = new ChangeSet();
+        assertTrue(cut.updatePeripheral(uart("UART0", null, "0x00", "enable", new Vector<SvdInterrupt>()), UART0, 20, changes, true));
+        for(Change c : allChanges(changes))
+        {
+            assertEquals(c.toString(), Change.NONE, c.getType());
+        }
+        // instance, peripheral, address block, register, field
+        assertEquals(5, changes.count(Change.NONE));
+        assertTrue(changes.isEmpty());
+        // importing it again sends no POST or PUT
+        int numReads = srv.requests.size();
+        assertTrue(changes.execute(srv, 1, false));
+        assertEquals(numReads, srv.requests.size());
+        srv.close();
+    }
+
+    @Test
+    public void testChangedFieldDescription()
+    {
+        FakeServer srv = deviceServer();
+        SvdDiff cut = new SvdDiff(srv);
+        ChangeSet changes = new ChangeSet();
+        assertTrue(cut.updatePeripheral(uart("UART0", null, "0x00", "enable the UART", new Vector<SvdInterrupt>()), UART0, 20, changes, true));
+        assertEquals(1, changes.count(Change.UPDATE));
+        assertEquals(0, changes.count(Change.CREATE));
+        Change field = null;
+        for(Change c : allChanges(changes))
+        {
+            if(Change.UPDATE == c.getType())
+            {
+                field = c;
+            }
+        }
+        assertEquals("field", field.getResource());
+        Request req = field.getRequest();
+        assertEquals(Request.PUT, req.getType());
+        assertEquals("50", req.getParameter("id"));
+        assertEquals("enable the UART", req.getParameter("description"));
+        // only the id and the changed column
+        assertEquals(2, req.getNumberOfParameters());
+        srv.close();
+    }
+
+    @Test
+    public void testHexValuesAreCompared()
+    {
+        FakeServer srv = deviceServer();
+        SvdDiff cut = new SvdDiff(srv);
+        ChangeSet changes = new ChangeSet();
+        // the server has "0x00" as reset value and address offset
+        assertTrue(cut.updatePeripheral(uart("UART0", null, "0", "enable", new Vector<SvdInterrupt>()), UART0, 20, changes, true));
+        assertTrue(changes.toString(), changes.isEmpty());
+        srv.close();
+    }
+
+    @Test
+    public void testInterruptsOfDerivedPeripheral()
+    {
+        FakeServer srv = deviceServer();
+        srv.store("interrupt", "per_in_id", 10, "[{\"id\":60, \"name\":\"UART0\", \"description\":\"UART0 global\", \"number\":5}]");
+        srv.store("interrupt", "per_in_id", 11, "[{\"id\":61, \"name\":\"UART1\", \"description\":\"UART1 global\", \"number\":6}]");
+        Response uart1 = FakeServer.json("[{\"id\":11, \"name\":\"UART1\", \"base_address\":\"0x40000000\", \"peripheral_id\":20}]");
+        Vector<SvdInterrupt> interrupts = new Vector<SvdInterrupt>();
+        interrupts.add(new SvdInterrupt("UART1", "UART1 global", 6));
+        SvdDiff cut = new SvdDiff(srv);
+        ChangeSet changes = new ChangeSet();
+        // the content of a derived peripheral is compared with its original
+        assertTrue(cut.updatePeripheral(uart("UART1", "UART0", "0x00", "enable", interrupts), uart1, 20, changes, false));
+        assertTrue(changes.toString(), changes.isEmpty());
+        Change instance = changes.getChanges().get(0);
+        assertEquals("peripheral_instance", instance.getResource());
+        assertEquals(11, instance.getId());
+        Change irq = instance.getChildren().get(0);
+        assertEquals("interrupt", irq.getResource());
+        assertEquals(61, irq.getId());
+        srv.close();
+    }
+
+}
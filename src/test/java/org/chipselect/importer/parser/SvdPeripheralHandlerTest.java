@@ -0,0 +1,81 @@
+package org.chipselect.importer.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Vector;
+
+import org.chipselect.importer.parser.svd.SvdAddressBlock;
+import org.chipselect.importer.parser.svd.SvdCluster;
+import org.chipselect.importer.parser.svd.SvdInterrupt;
+import org.chipselect.importer.parser.svd.SvdPeripheral;
+import org.chipselect.importer.server.FakeServer;
+import org.chipselect.importer.server.Request;
+import org.junit.Test;
+
+public class SvdPeripheralHandlerTest
+{
+    /** a device with an UART0 and a derived UART1. */
+    private FakeServer deviceServer()
+    {
+        FakeServer srv = new FakeServer();
+        srv.store("peripheral_instance", "dev_id", 1, "[{\"id\":10, \"name\":\"UART0\", \"peripheral_id\":20, \"base_address\":\"0x40000000\"},"
+                + "{\"id\":11, \"name\":\"UART1\", \"peripheral_id\":20, \"base_address\":\"0x40001000\"}]");
+        srv.store("peripheral", "id", 20, "[{\"id\":20, \"group_name\":\"UART\"}]");
+        return srv;
+    }
+
+    /** the requests that change data on the server. */
+    private Vector<Request> getWrites(FakeServer srv)
+    {
+        Vector<Request> res = new Vector<Request>();
+        for(Request req : srv.requests)
+        {
+            if(Request.GET != req.getType())
+            {
+                res.add(req);
+            }
+        }
+        return res;
+    }
+
+    private SvdPeripheral peripheral(String name, String derivedFrom, String baseAddress,
+            Vector<SvdAddressBlock> addressBlocks, Vector<SvdInterrupt> interrupts)
+    {
+        return new SvdPeripheral(name, derivedFrom, null, null, new HexString(baseAddress), null,
+                addressBlocks, interrupts, null, new Vector<SvdCluster>());
+    }
+
+    @Test
+    public void testDerivedInterruptsUseInstanceId()
+    {
+        FakeServer srv = deviceServer();
+        srv.store("interrupt", "per_in_id", 11, "[{\"id\":30, \"name\":\"UART1\", \"description\":\"UART1 global\", \"number\":5}]");
+        Vector<SvdInterrupt> interrupts = new Vector<SvdInterrupt>();
+        interrupts.add(new SvdInterrupt("UART1", "UART1 global", 5));
+        SvdPeripheralHandler cut = new SvdPeripheralHandler(srv);
+        assertTrue(cut.getAllPeripheralInstancesFromServer(1));
+        assertTrue(cut.handleDerived(peripheral("UART1", "UART0", "0x40001000", new Vector<SvdAddressBlock>(), interrupts)));
+        // the interrupt is already on the server -> nothing to write
+        assertEquals(0, getWrites(srv).size());
+        srv.close();
+    }
+
+    @Test
+    public void testChangedAddressBlockIsOnlyUpdated()
+    {
+        FakeServer srv = deviceServer();
+        srv.store("address_block", "per_id", 20, "[{\"id\":40, \"address_offset\":0, \"size\":\"0x400\", \"mem_usage\":\"registers\"}]");
+        Vector<SvdAddressBlock> addressBlocks = new Vector<SvdAddressBlock>();
+        addressBlocks.add(new SvdAddressBlock(new HexString("0x0"), new HexString("0x800"), "registers", null));
+        SvdPeripheralHandler cut = new SvdPeripheralHandler(srv);
+        assertTrue(cut.getAllPeripheralInstancesFromServer(1));
+        assertTrue(cut.handle(peripheral("UART0", null, "0x40000000", addressBlocks, new Vector<SvdInterrupt>())));
+        Vector<Request> writes = getWrites(srv);
+        assertEquals(1, writes.size());
+        assertEquals("address_block", writes.get(0).getResource());
+        assertEquals(Request.PUT, writes.get(0).getType());
+        srv.close();
+    }
+
+}
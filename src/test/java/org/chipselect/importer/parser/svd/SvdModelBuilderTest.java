@@ -0,0 +1,173 @@
+package org.chipselect.importer.parser.svd;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.junit.Test;
+
+public class SvdModelBuilderTest
+{
+    private static final String SVD = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+            + "<device schemaVersion=\"1.1\">\n"
+            + "  <vendor>ACME</vendor>\n"
+            + "  <name>CHIP</name>\n"
+            + "  <width>32</width>\n"
+            + "  <size>32</size>\n"
+            + "  <access>read-write</access>\n"
+            + "  <resetValue>0x00000000</resetValue>\n"
+            + "  <resetMask>0xFFFFFFFF</resetMask>\n"
+            + "  <peripherals>\n"
+            + "    <peripheral derivedFrom=\"UART0\">\n"
+            + "      <name>UART1</name>\n"
+            + "      <baseAddress>0x40001000</baseAddress>\n"
+            + "    </peripheral>\n"
+            + "    <peripheral>\n"
+            + "      <name>UART0</name>\n"
+            + "      <description>serial</description>\n"
+            + "      <baseAddress>0x40000000</baseAddress>\n"
+            + "      <size>16</size>\n"
+            + "      <addressBlock><offset>0</offset><size>0x100</size><usage>registers</usage></addressBlock>\n"
+            + "      <interrupt><name>UART0_IRQ</name><value>5</value></interrupt>\n"
+            + "      <registers>\n"
+            + "        <register>\n"
+            + "          <name>DATA%s</name>\n"
+            + "          <dim>2</dim><dimIncrement>4</dimIncrement>\n"
+            + "          <addressOffset>0x10</addressOffset>\n"
+            + "          <fields><field><name>VAL</name><bitRange>[7:0]</bitRange>\n"
+            + "            <enumeratedValues><enumeratedValue><name>ZERO</name><value>0</value></enumeratedValue></enumeratedValues>\n"
+            + "          </field></fields>\n"
+            + "        </register>\n"
+            + "        <cluster>\n"
+            + "          <name>CH[%s]</name>\n"
+            + "          <dim>2</dim><dimIncrement>0x20</dimIncrement>\n"
+            + "          <addressOffset>0x40</addressOffset>\n"
+            + "          <access>read-only</access>\n"
+            + "          <register><name>CR</name><addressOffset>0x0</addressOffset></register>\n"
+            + "        </cluster>\n"
+            + "      </registers>\n"
+            + "    </peripheral>\n"
+            + "    <peripheral>\n"
+            + "      <name>TIMER</name>\n"
+            + "      <baseAddress>0x40002000</baseAddress>\n"
+            + "      <registers><register><name>CNT</name><addressOffset>0</addressOffset></register></registers>\n"
+            + "    </peripheral>\n"
+            + "  </peripherals>\n"
+            + "</device>\n";
+
+    private SvdDevice build(String xml) throws JDOMException, IOException
+    {
+        Document doc = new SAXBuilder().build(new StringReader(xml));
+        return new SvdModelBuilder().build(doc.getRootElement());
+    }
+
+    private SvdPeripheral find(SvdDevice device, String name)
+    {
+        for(SvdPeripheral p : device.getPeripherals())
+        {
+            if(true == name.equals(p.getName()))
+            {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testDevice() throws JDOMException, IOException
+    {
+        SvdDevice device = build(SVD);
+        assertNotNull(device);
+        assertEquals("ACME", device.getVendor());
+        assertEquals("CHIP", device.getName());
+        assertEquals(32, device.getWidth());
+        assertEquals(32, device.getDefaultSize());
+        assertEquals(3, device.getPeripherals().size());
+    }
+
+    @Test
+    public void testRegistersAndDefaults() throws JDOMException, IOException
+    {
+        SvdDevice device = build(SVD);
+        SvdPeripheral uart = find(device, "UART0");
+        assertNotNull(uart);
+        assertFalse(uart.isDerived());
+        List<SvdRegister> registers = uart.getRegisters();
+        assertEquals(4, registers.size());
+        // dim register
+        assertEquals("DATA0", registers.get(0).getName());
+        assertEquals("DATA1", registers.get(1).getName());
+        assertEquals("0x14", registers.get(1).getAddressOffset().toString());
+        assertEquals(16, registers.get(0).getSize());
+        assertEquals("read-write", registers.get(0).getAccess());
+        assertEquals(1, registers.get(0).getFields().size());
+        SvdField field = registers.get(0).getFields().get(0);
+        assertEquals(0, field.getBitOffset());
+        assertEquals(8, field.getSizeBit());
+        assertTrue(field.isEnum());
+        assertEquals("ZERO", field.getEnumValues().get(0).getName());
+        // cluster registers get the values of the cluster, or of the peripheral
+        assertEquals(1, uart.getClusters().size());
+        SvdRegister cr = registers.get(2);
+        assertEquals("CR", cr.getName());
+        assertEquals(16, cr.getSize());
+        assertEquals("read-only", cr.getAccess());
+        assertEquals("0xFFFFFFFF", cr.getResetMask().toString());
+        assertNull(cr.getFields());
+
+        // the size of UART0 must not be used for TIMER
+        SvdPeripheral timer = find(device, "TIMER");
+        assertEquals(32, timer.getRegisters().get(0).getSize());
+    }
+
+    @Test
+    public void testDerived() throws JDOMException, IOException
+    {
+        SvdDevice device = build(SVD);
+        SvdPeripheral uart1 = find(device, "UART1");
+        assertNotNull(uart1);
+        assertTrue(uart1.isDerived());
+        assertEquals("UART0", uart1.getDerivedFrom());
+        assertEquals("serial", uart1.getDescription());
+        assertEquals("0x40001000", uart1.getBaseAddress().toString());
+        assertEquals(1, uart1.getAddressBlocks().size());
+        assertEquals("0x100", uart1.getAddressBlocks().get(0).getSize().toString());
+        assertEquals(5, uart1.getInterrupts().get(0).getNumber());
+        assertEquals(4, uart1.getRegisters().size());
+        assertEquals(16, uart1.getRegisters().get(0).getSize());
+    }
+
+    @Test
+    public void testEquals() throws JDOMException, IOException
+    {
+        SvdPeripheral one = find(build(SVD), "UART0");
+        SvdPeripheral two = find(build(SVD), "UART0");
+        assertNotSame(one.getRegisters().get(0), two.getRegisters().get(0));
+        assertEquals(one.getAddressBlocks(), two.getAddressBlocks());
+        assertEquals(one.getRegisters(), two.getRegisters());
+        assertEquals(one.getRegisters().hashCode(), two.getRegisters().hashCode());
+        assertNotEquals(one.getRegisters().get(0), one.getRegisters().get(1));
+        // the same values written differently
+        SvdPeripheral hex = find(build(SVD.replace("<offset>0</offset>", "<offset>0x0</offset>")), "UART0");
+        assertEquals(one.getAddressBlocks(), hex.getAddressBlocks());
+        SvdPeripheral changed = find(build(SVD.replace("[7:0]", "[3:0]")), "UART0");
+        assertNotEquals(one.getRegisters(), changed.getRegisters());
+        changed = find(build(SVD.replace("<value>0</value></enumeratedValue>", "<value>1</value></enumeratedValue>")), "UART0");
+        assertNotEquals(one.getRegisters(), changed.getRegisters());
+        changed = find(build(SVD.replace("<size>0x100</size>", "<size>0x200</size>")), "UART0");
+        assertNotEquals(one.getAddressBlocks(), changed.getAddressBlocks());
+    }
+
+    @Test
+    public void testInvalid() throws JDOMException, IOException
+    {
+        assertNull(build(SVD.replace("<description>serial</description>", "<colour>red</colour>")));
+        assertNull(build(SVD.replace("derivedFrom=\"UART0\"", "derivedFrom=\"UART7\"")));
+    }
+
+}
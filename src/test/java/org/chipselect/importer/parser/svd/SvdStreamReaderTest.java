@@ -0,0 +1,100 @@
+package org.chipselect.importer.parser.svd;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.jdom2.Element;
+import org.junit.Test;
+
+public class SvdStreamReaderTest
+{
+    private static final String SVD = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+            + "<!-- comment -->\n"
+            + "<device schemaVersion=\"1.1\" xmlns:xs=\"http://www.w3.org/2001/XMLSchema-instance\">\n"
+            + "  <vendor>ACME</vendor>\n"
+            + "  <name>CHIP</name>\n"
+            + "  <peripherals>\n"
+            + "    <peripheral>\n"
+            + "      <name>UART0</name>\n"
+            + "      <description>first &amp; only</description>\n"
+            + "      <registers><register><name>DATA</name></register></registers>\n"
+            + "    </peripheral>\n"
+            + "    <peripheral derivedFrom=\"UART0\">\n"
+            + "      <name>UART1</name>\n"
+            + "    </peripheral>\n"
+            + "  </peripherals>\n"
+            + "  <vendorExtensions><x>1</x></vendorExtensions>\n"
+            + "</device>\n";
+
+    private SvdStreamReader reader(String xml)
+    {
+        return new SvdStreamReader(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testReadOnePeripheralAtATime()
+    {
+        SvdStreamReader cut = reader(SVD);
+        Element device = cut.readDeviceHeader();
+        assertNotNull(device);
+        assertEquals("device", device.getName());
+        assertEquals("1.1", device.getAttributeValue("schemaVersion"));
+        assertEquals("ACME", device.getChildText("vendor"));
+        assertEquals("CHIP", device.getChildText("name"));
+        assertNotNull(device.getChild("peripherals"));
+        assertEquals(0, device.getChild("peripherals").getChildren().size());
+
+        Element p = cut.nextPeripheral();
+        assertNotNull(p);
+        assertEquals("UART0", p.getChildText("name"));
+        assertEquals("first & only", p.getChildText("description"));
+        assertEquals("DATA", p.getChild("registers").getChild("register").getChildText("name"));
+        p = cut.nextPeripheral();
+        assertNotNull(p);
+        assertEquals("UART1", p.getChildText("name"));
+        assertEquals("UART0", p.getAttributeValue("derivedFrom"));
+        assertNull(cut.nextPeripheral());
+        assertEquals(2, cut.getNumberOfPeripherals());
+
+        device = cut.readDeviceTrailer();
+        assertNotNull(device);
+        assertNotNull(device.getChild("vendorExtensions"));
+        assertFalse(cut.hasFailed());
+    }
+
+    @Test
+    public void testBrokenFile()
+    {
+        SvdStreamReader cut = reader(SVD.substring(0, SVD.indexOf("<name>UART1")));
+        assertNotNull(cut.readDeviceHeader());
+        assertNotNull(cut.nextPeripheral());
+        assertNull(cut.nextPeripheral());
+        assertTrue(cut.hasFailed());
+        assertNull(cut.readDeviceTrailer());
+    }
+
+    @Test
+    public void testFindDerivedFromNames() throws IOException
+    {
+        File f = File.createTempFile("test_", ".svd");
+        try
+        {
+            Files.write(f.toPath(), SVD.getBytes(StandardCharsets.UTF_8));
+            Set<String> names = SvdStreamReader.findDerivedFromNames(f);
+            assertNotNull(names);
+            assertEquals(1, names.size());
+            assertTrue(names.contains("UART0"));
+        }
+        finally
+        {
+            f.delete();
+        }
+    }
+
+}
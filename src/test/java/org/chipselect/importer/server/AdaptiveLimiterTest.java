@@ -0,0 +1,130 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AdaptiveLimiterTest
+{
+    /** time of the limiters in nanoseconds */
+    private long now = 0;
+
+    private AdaptiveLimiter limiter(int initialLimit, int minLimit, int maxLimit)
+    {
+        return new AdaptiveLimiter("test", initialLimit, minLimit, maxLimit, () -> now);
+    }
+
+    /** sends as many requests as allowed and finishes them all.
+     *
+     * @param latencyMs time the requests take.
+     */
+    private void roundTrip(AdaptiveLimiter cut, String kind, long latencyMs, boolean success)
+    {
+        // some time between the round trips
+        now = now + 1000;
+        int num = cut.getLimit();
+        long[] starts = new long[num];
+        for(int i = 0; i < num; i++)
+        {
+            starts[i] = cut.acquire();
+        }
+        now = now + TimeUnit.MILLISECONDS.toNanos(latencyMs);
+        for(int i = 0; i < num; i++)
+        {
+            cut.release(starts[i], success, kind);
+        }
+    }
+
+    @Test
+    public void testIncreaseAndDecrease()
+    {
+        AdaptiveLimiter cut = limiter(2, 1, 10);
+        assertEquals(2, cut.getLimit());
+        for(int i = 0; i < 50; i++)
+        {
+            roundTrip(cut, "vendor", 10, true);
+        }
+        assertEquals(10, cut.getLimit());
+        // all failed requests of one round trip reduce the limit only once
+        roundTrip(cut, "vendor", 10, false);
+        assertEquals(9, cut.getLimit());
+        for(int i = 0; i < 50; i++)
+        {
+            roundTrip(cut, "vendor", 10, false);
+        }
+        assertEquals(1, cut.getLimit());
+        String status = cut.getStatus();
+        assertTrue(status, status.startsWith("Limit test : 1 requests in flight allowed (1 - 10, highest 10"));
+    }
+
+    @Test
+    public void testRisingLatencyLowersLimit()
+    {
+        AdaptiveLimiter cut = limiter(4, 1, 10);
+        for(int i = 0; i < 50; i++)
+        {
+            roundTrip(cut, "vendor", 10, true);
+        }
+        assertEquals(10, cut.getLimit());
+        // the server gets slower, without errors
+        roundTrip(cut, "vendor", 50, true);
+        assertEquals(9, cut.getLimit());
+        for(int i = 0; i < 5; i++)
+        {
+            roundTrip(cut, "vendor", 50, true);
+        }
+        assertTrue(cut.getStatus(), 6 > cut.getLimit());
+    }
+
+    @Test
+    public void testSteadyLatencyRaisesLimit()
+    {
+        AdaptiveLimiter cut = limiter(1, 1, 10);
+        // the server is slow from the start
+        for(int i = 0; i < 100; i++)
+        {
+            roundTrip(cut, "vendor", 200, true);
+        }
+        assertEquals(10, cut.getLimit());
+        String status = cut.getStatus();
+        assertTrue(status, status.contains("reduced 0 times"));
+    }
+
+    @Test
+    public void testLatencyPerKind()
+    {
+        AdaptiveLimiter cut = limiter(4, 1, 10);
+        // reading all registers takes longer than reading a vendor
+        for(int i = 0; i < 50; i++)
+        {
+            roundTrip(cut, "vendor", 1, true);
+            roundTrip(cut, "register", 30, true);
+        }
+        assertEquals(10, cut.getLimit());
+        String status = cut.getStatus();
+        assertTrue(status, status.contains("reduced 0 times"));
+    }
+
+    @Test
+    public void testWaitsForFreeSlot() throws InterruptedException
+    {
+        final AdaptiveLimiter cut = new AdaptiveLimiter("test", 1, 1, 1);
+        long start = cut.acquire();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread t = new Thread(() -> {
+            cut.release(cut.acquire(), true);
+            done.countDown();
+        });
+        t.start();
+        assertEquals(false, done.await(50, TimeUnit.MILLISECONDS));
+        cut.release(start, true);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        String status = cut.getStatus();
+        assertTrue(status, status.contains("2 requests, 1 waited (average "));
+    }
+
+}
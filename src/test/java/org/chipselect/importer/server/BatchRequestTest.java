@@ -0,0 +1,106 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BatchRequestTest
+{
+    /** creates the items of a batch, fails items without a name. */
+    private class BatchServer extends FakeServer
+    {
+        @Override
+        protected Response answer(Request req)
+        {
+            return created(req);
+        }
+
+        @Override
+        protected Map<String, Object> newEntry(Map<String, String> item)
+        {
+            if(null == item.get("name"))
+            {
+                HashMap<String, Object> res = new HashMap<String, Object>();
+                res.put("error", "name missing");
+                return res;
+            }
+            return super.newEntry(item);
+        }
+    }
+
+    private Request newField(String name)
+    {
+        Request req = new Request("field", Request.POST);
+        req.addPostParameter("name", name);
+        req.addPostParameter("reg_id", 3);
+        return req;
+    }
+
+    @Test
+    public void testItemsAreSplitIntoBatches()
+    {
+        BatchServer srv = new BatchServer();
+        BatchRequest cut = new BatchRequest("field", Request.POST, 2);
+        for(int i = 0; i < 5; i++)
+        {
+            assertEquals(i, cut.add(newField("F" + i)));
+        }
+        assertTrue(cut.execute(srv));
+        assertEquals(3, srv.requests.size());
+        assertEquals(3, cut.getNumberOfRequests());
+        // the last item is sent as normal request
+        assertNull(srv.requests.get(2).getParameter(BatchRequest.PARAMETER));
+        assertEquals("F4", srv.requests.get(2).getParameter("name"));
+        for(int i = 0; i < 5; i++)
+        {
+            assertEquals(i + 1, cut.getId(i));
+            assertNull(cut.getError(i));
+        }
+        assertEquals(2, BatchRequest.getNumberOfItems(srv.requests.get(0)));
+        srv.close();
+    }
+
+    @Test
+    public void testErrorOfOneItem()
+    {
+        BatchServer srv = new BatchServer();
+        BatchRequest cut = new BatchRequest("field", Request.POST, 10);
+        cut.add(newField("A"));
+        Request noName = new Request("field", Request.POST);
+        noName.addPostParameter("reg_id", 3);
+        cut.add(noName);
+        cut.add(newField("C"));
+        assertFalse(cut.execute(srv));
+        assertEquals(1, srv.requests.size());
+        assertEquals(1, cut.getId(0));
+        assertEquals(0, cut.getId(1));
+        assertEquals("name missing", cut.getError(1));
+        assertEquals(2, cut.getId(2));
+        srv.close();
+    }
+
+    @Test
+    public void testBatchSizeOne()
+    {
+        BatchServer srv = new BatchServer();
+        BatchRequest cut = new BatchRequest("field", Request.POST, 1);
+        cut.add(newField("A"));
+        cut.add(newField("B"));
+        assertEquals(-1, cut.add(new Request("register", Request.POST)));
+        assertTrue(cut.execute(srv));
+        assertEquals(2, srv.requests.size());
+        assertEquals(2, cut.getId(1));
+        cut.clear();
+        assertEquals(0, cut.size());
+        assertTrue(cut.execute(srv));
+        assertEquals(2, srv.requests.size());
+        srv.close();
+    }
+
+}
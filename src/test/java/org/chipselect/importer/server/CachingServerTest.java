@@ -0,0 +1,69 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class CachingServerTest
+{
+    private Request getVendor(int id)
+    {
+        Request req = new Request("vendor", Request.GET);
+        req.addPostParameter("id", id);
+        return req;
+    }
+
+    @Test
+    public void testRepeatedGet()
+    {
+        FakeServer srv = new FakeServer();
+        CachingServer cut = new CachingServer(srv);
+        Response first = cut.execute(getVendor(1));
+        Response second = cut.execute(getVendor(1));
+        assertSame(first, second);
+        cut.execute(getVendor(2));
+        assertEquals(2, srv.requests.size());
+        assertSame(first, cut.executeAsync(getVendor(1)).join());
+        assertEquals(2, srv.requests.size());
+        cut.close();
+    }
+
+    @Test
+    public void testWriteInvalidatesResource()
+    {
+        FakeServer srv = new FakeServer();
+        CachingServer cut = new CachingServer(srv);
+        cut.execute(getVendor(1));
+        Request arch = new Request("architecture", Request.GET);
+        arch.addPostParameter("svd_name", "CM4");
+        cut.execute(arch);
+        Request post = new Request("vendor", Request.POST);
+        post.addPostParameter("name", "ACME");
+        cut.execute(post);
+        assertEquals(3, srv.requests.size());
+        // vendor is gone, architecture is still cached
+        cut.execute(getVendor(1));
+        cut.execute(arch);
+        assertEquals(4, srv.requests.size());
+        cut.close();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsDropped()
+    {
+        FakeServer srv = new FakeServer();
+        CachingServer cut = new CachingServer(srv, 2);
+        cut.execute(getVendor(1));
+        cut.execute(getVendor(2));
+        cut.execute(getVendor(1));
+        cut.execute(getVendor(3)); // drops 2
+        assertEquals(3, srv.requests.size());
+        cut.execute(getVendor(1));
+        assertEquals(3, srv.requests.size());
+        cut.execute(getVendor(2));
+        assertEquals(4, srv.requests.size());
+        cut.close();
+    }
+
+}
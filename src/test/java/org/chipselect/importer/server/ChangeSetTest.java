@@ -0,0 +1,113 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ChangeSetTest
+{
+    /** creates entries with increasing ids, single or as batch. */
+    private class CreatingServer extends FakeServer
+    {
+        public CreatingServer()
+        {
+            super(100);
+        }
+
+        @Override
+        protected Response answer(Request req)
+        {
+            return created(req);
+        }
+    }
+
+    /** a new register with two fields, and an existing register with a changed and an unchanged field. */
+    private ChangeSet createChanges()
+    {
+        ChangeSet cut = new ChangeSet();
+        Change per = cut.add(Change.existing("peripheral", "UART", 7));
+        Change reg = per.addChild(Change.create("register", "CR", "per_id"));
+        reg.set("name", "CR");
+        reg.addChild(Change.create("field", "EN", "reg_id")).set("name", "EN");
+        reg.addChild(Change.create("field", "MODE", "reg_id")).set("name", "MODE");
+        Change other = per.addChild(Change.existing("register", "SR", 8));
+        other.addChild(Change.existing("field", "BUSY", 9)).change("size_bit", 1, 2);
+        other.addChild(Change.existing("field", "DONE", 10));
+        return cut;
+    }
+
+    @Test
+    public void testUnchanged()
+    {
+        ChangeSet cut = new ChangeSet();
+        Change reg = cut.add(Change.existing("register", "SR", 8));
+        reg.addChild(Change.existing("field", "BUSY", 9));
+        assertTrue(cut.isEmpty());
+        assertEquals(2, cut.count(Change.NONE));
+        assertNull(reg.getRequest());
+        assertEquals("", cut.toString());
+        CreatingServer srv = new CreatingServer();
+        assertTrue(cut.execute(srv, 1, false));
+        assertEquals(0, srv.requests.size());
+        srv.close();
+    }
+
+    @Test
+    public void testParentsFirst()
+    {
+        ChangeSet cut = createChanges();
+        assertFalse(cut.isEmpty());
+        assertEquals(3, cut.count(Change.CREATE));
+        assertEquals(1, cut.count(Change.UPDATE));
+        assertEquals(3, cut.count(Change.NONE));
+        CreatingServer srv = new CreatingServer();
+        assertTrue(cut.execute(srv, 1, false));
+        assertEquals(4, srv.requests.size());
+        // level 1: the new register
+        assertEquals(Request.POST, srv.requests.get(0).getType());
+        assertEquals("register", srv.requests.get(0).getResource());
+        assertEquals("7", srv.requests.get(0).getParameter("per_id"));
+        // level 2: the fields of the new register get its id, then the update
+        assertEquals("100", srv.requests.get(1).getParameter("reg_id"));
+        assertEquals("MODE", srv.requests.get(2).getParameter("name"));
+        Request update = srv.requests.get(3);
+        assertEquals(Request.PUT, update.getType());
+        assertEquals("9", update.getParameter("id"));
+        assertEquals("2", update.getParameter("size_bit"));
+        assertEquals(2, update.getNumberOfParameters());
+        assertEquals(4, cut.getNumberOfRequests());
+        srv.close();
+    }
+
+    @Test
+    public void testBatch()
+    {
+        ChangeSet cut = createChanges();
+        CreatingServer srv = new CreatingServer();
+        assertTrue(cut.execute(srv, 10, false));
+        // register, both fields in one request, the update
+        assertEquals(3, srv.requests.size());
+        assertEquals(2, BatchRequest.getNumberOfItems(srv.requests.get(1)));
+        Change reg = cut.getChanges().get(0).getChildren().get(0);
+        assertEquals(100, reg.getId());
+        assertEquals(102, reg.getChildren().get(1).getId());
+        srv.close();
+    }
+
+    @Test
+    public void testPrint()
+    {
+        ChangeSet cut = createChanges();
+        assertEquals("= peripheral UART (7)\n"
+                + "  + register CR\n"
+                + "    + field EN\n"
+                + "    + field MODE\n"
+                + "  = register SR (8)\n"
+                + "    ~ field BUSY (9) : size_bit : 1 -> 2\n", cut.toString());
+        assertEquals("Changes : created register=1 field=2, updated field=1, unchanged 3 (0 requests)\n", cut.getStatus());
+    }
+
+}
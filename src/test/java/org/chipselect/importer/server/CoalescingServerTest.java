@@ -0,0 +1,88 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class CoalescingServerTest
+{
+    private class BlockingServer extends FakeServer
+    {
+        public CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        protected Response answer(Request req)
+        {
+            try
+            {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                // ignore
+            }
+            return new Response();
+        }
+    }
+
+    private Request getVendor(int id)
+    {
+        Request req = new Request("vendor", Request.GET);
+        req.addPostParameter("id", id);
+        return req;
+    }
+
+    @Test
+    public void testIdenticalRequestsShareResponse()
+    {
+        BlockingServer srv = new BlockingServer();
+        CoalescingServer cut = new CoalescingServer(srv);
+        CompletableFuture<Response> first = cut.executeAsync(getVendor(1));
+        CompletableFuture<Response> second = cut.executeAsync(getVendor(1));
+        CompletableFuture<Response> other = cut.executeAsync(getVendor(2));
+        srv.release.countDown();
+        assertSame(first.join(), second.join());
+        other.join();
+        assertEquals(2, srv.requests.size());
+        // nothing in flight -> send again
+        cut.execute(getVendor(1));
+        assertEquals(3, srv.requests.size());
+        cut.close();
+    }
+
+    @Test
+    public void testRunExclusive() throws InterruptedException
+    {
+        BlockingServer srv = new BlockingServer();
+        srv.release.countDown();
+        CoalescingServer cut = new CoalescingServer(srv);
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+        Vector<Thread> threads = new Vector<Thread>();
+        for(int i = 0; i < 4; i++)
+        {
+            Thread t = new Thread(() -> cut.runExclusive("vendor:ACME", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                cut.execute(getVendor(1));
+                running.decrementAndGet();
+                return true;
+            }));
+            threads.add(t);
+            t.start();
+        }
+        for(Thread t : threads)
+        {
+            t.join();
+        }
+        assertEquals(1, maxRunning.get());
+        cut.close();
+    }
+
+}
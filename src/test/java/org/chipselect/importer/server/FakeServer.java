@@ -0,0 +1,151 @@
+package org.chipselect.importer.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/** a server for the tests, that records the requests and answers them without a network.
+ *
+ * By default GET requests get the data given to store(), all other
+ * requests get an empty response. Tests override answer() for other
+ * responses, created() answers like a server that creates the entries.
+ */
+public class FakeServer extends RestServer
+{
+    /** all requests in the order they have been received */
+    public final Vector<Request> requests = new Vector<Request>();
+    /** resource -> column=value -> data the server sends for a GET request with that parameter */
+    private final HashMap<String, HashMap<String, String>> data = new HashMap<String, HashMap<String, String>>();
+    private final AtomicInteger nextId;
+
+    public FakeServer()
+    {
+        this(1);
+    }
+
+    /**
+     * @param firstId id of the first entry that created() creates.
+     */
+    public FakeServer(int firstId)
+    {
+        nextId = new AtomicInteger(firstId);
+    }
+
+    @Override
+    public Response execute(Request req)
+    {
+        requests.add(req);
+        return answer(req);
+    }
+
+    /** the data the server sends for a GET request.
+     *
+     * @param resource the resource, like "register".
+     * @param column the parameter of the request, like "per_id".
+     * @param value the value of that parameter.
+     * @param json the data.
+     */
+    public void store(String resource, String column, Object value, String json)
+    {
+        data.computeIfAbsent(resource, k -> new HashMap<String, String>()).put(column + "=" + value, json);
+    }
+
+    /** the response to a request.
+     *
+     * Not synchronized, tests may block in here.
+     *
+     * @param req the request.
+     * @return the response.
+     */
+    protected Response answer(Request req)
+    {
+        if(Request.GET == req.getType())
+        {
+            HashMap<String, String> entries = data.get(req.getResource());
+            if(null != entries)
+            {
+                for(String key : entries.keySet())
+                {
+                    String[] parts = key.split("=", 2);
+                    if(true == parts[1].equals(req.getParameter(parts[0])))
+                    {
+                        return json(entries.get(key));
+                    }
+                }
+            }
+        }
+        return new Response();
+    }
+
+    /** answers like a server that creates a new entry for each item of the request.
+     *
+     * @param req a single request or a batch request.
+     * @return one result for each item.
+     */
+    protected Response created(Request req)
+    {
+        Response res = new Response();
+        String batch = req.getParameter(BatchRequest.PARAMETER);
+        if(null == batch)
+        {
+            res.addResult(newEntry(req.getParameters()));
+            return res;
+        }
+        JSONArray items = new JSONArray(batch);
+        for(int i = 0; i < items.length(); i++)
+        {
+            HashMap<String, String> item = new HashMap<String, String>();
+            JSONObject obj = items.getJSONObject(i);
+            for(String key : obj.keySet())
+            {
+                item.put(key, obj.get(key).toString());
+            }
+            res.addResult(newEntry(item));
+        }
+        return res;
+    }
+
+    /** the result for one created item.
+     *
+     * @param item the values of the item.
+     * @return the values the server sends back, by default only the new id.
+     */
+    protected Map<String, Object> newEntry(Map<String, String> item)
+    {
+        HashMap<String, Object> values = new HashMap<String, Object>();
+        values.put("id", nextId.getAndIncrement());
+        return values;
+    }
+
+    /**
+     * @param json the data the server would send.
+     * @return the response with that data.
+     */
+    public static Response json(String json)
+    {
+        Response res = new Response();
+        try
+        {
+            res.readFrom(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (IOException e)
+        {
+            res.setError(e.toString());
+        }
+        return res;
+    }
+
+    @Override
+    public String getStatus()
+    {
+        return "";
+    }
+
+}
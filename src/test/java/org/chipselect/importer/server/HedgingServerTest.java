@@ -0,0 +1,95 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class HedgingServerTest
+{
+    /** answers at once, except for the first request for "slow". */
+    private class SlowServer extends FakeServer
+    {
+        public CountDownLatch release = new CountDownLatch(1);
+        private AtomicBoolean blocked = new AtomicBoolean(false);
+
+        @Override
+        protected Response answer(Request req)
+        {
+            Response res = created(req);
+            if((true == "slow".equals(req.getParameter("name"))) && (false == blocked.getAndSet(true)))
+            {
+                try
+                {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    // cancelled
+                }
+            }
+            return res;
+        }
+    }
+
+    private Request getVendor(String name)
+    {
+        Request req = new Request("vendor", Request.GET);
+        req.addPostParameter("name", name);
+        return req;
+    }
+
+    @Test
+    public void testSlowRequestIsSentAgain()
+    {
+        SlowServer srv = new SlowServer();
+        HedgingServer cut = new HedgingServer(srv, 90.0, 10);
+        for(int i = 0; i < HedgingServer.MIN_SAMPLES; i++)
+        {
+            cut.execute(getVendor("fast"));
+        }
+        Response res = cut.execute(getVendor("slow"));
+        srv.release.countDown();
+        // the second request answered
+        assertEquals(HedgingServer.MIN_SAMPLES + 2, res.getInt("id"));
+        String status = cut.getStatus();
+        assertTrue(status, status.contains("21 GET requests, 1 sent again after the 90.0 percentile, 1 of them answered first, 0 not sent again"));
+        cut.close();
+    }
+
+    @Test
+    public void testLimit()
+    {
+        SlowServer srv = new SlowServer();
+        HedgingServer cut = new HedgingServer(srv, 90.0, 1);
+        for(int i = 0; i < HedgingServer.MIN_SAMPLES; i++)
+        {
+            cut.execute(getVendor("fast"));
+        }
+        // 1% of 21 requests is less than one request
+        new Thread(() -> {
+            try
+            {
+                Thread.sleep(200);
+            }
+            catch (InterruptedException e)
+            {
+                // ignore
+            }
+            srv.release.countDown();
+        }).start();
+        assertEquals(HedgingServer.MIN_SAMPLES + 1, cut.execute(getVendor("slow")).getInt("id"));
+        assertEquals(HedgingServer.MIN_SAMPLES + 1, srv.requests.size());
+        // writes are never sent twice
+        cut.execute(new Request("vendor", Request.POST));
+        assertEquals(HedgingServer.MIN_SAMPLES + 2, srv.requests.size());
+        String status = cut.getStatus();
+        assertTrue(status, status.contains("0 sent again after the 90.0 percentile, 0 of them answered first, 1 not sent again due to the limit of 1%"));
+        cut.close();
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class Http2RestServerTest
+{
+    private HttpServer server;
+    private Http2RestServer cut;
+    /** method, query string and body of each received request */
+    private Vector<String> received = new Vector<String>();
+
+    @Before
+    public void start() throws IOException
+    {
+        // this server only speaks HTTP/1.1 -> the client has to fall back
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", ex -> {
+            String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            synchronized(received)
+            {
+                received.add(ex.getRequestMethod() + " " + ex.getRequestURI().getRawQuery() + " " + body);
+            }
+            if(true == body.contains("name=missing"))
+            {
+                ex.sendResponseHeaders(404, -1);
+                ex.close();
+                return;
+            }
+            byte[] out = "[{\"id\":7, \"name\":\"ACME\"}]".getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(200, out.length);
+            ex.getResponseBody().write(out);
+            ex.close();
+        });
+        server.start();
+        cut = new Http2RestServer("http://localhost:" + server.getAddress().getPort() + "/", null, null);
+    }
+
+    @After
+    public void stop()
+    {
+        cut.close();
+        server.stop(0);
+    }
+
+    private Request getVendor(String name)
+    {
+        Request req = new Request("vendor", Request.GET);
+        req.addPostParameter("name", name);
+        return req;
+    }
+
+    @Test
+    public void testTunneledMethod()
+    {
+        Response res = cut.execute(getVendor("ACME"));
+        assertEquals(7, res.getInt("id"));
+        assertEquals("POST null REQUEST_METHOD=GET&name=ACME", received.get(0));
+    }
+
+    @Test
+    public void testAsyncAndStatus()
+    {
+        cut.setMaxRequestsInFlight(2);
+        Vector<Response> answers = new Vector<Response>();
+        for(int i = 0; i < 5; i++)
+        {
+            answers.add(cut.executeAsync(getVendor("ACME")).join());
+        }
+        for(Response res : answers)
+        {
+            assertEquals("ACME", res.getString("name"));
+        }
+        assertFalse(cut.execute(getVendor("missing")).wasSuccessfull());
+        String status = cut.getStatus();
+        assertTrue(status, status.contains("GET : 6 Requests"));
+        assertTrue(status, status.contains("6 responses with HTTP/1.1"));
+    }
+
+}
@@ -0,0 +1,173 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Vector;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpRestServerTest
+{
+    private HttpServer server;
+    private HttpRestServer cut;
+    /** method, query string and If-None-Match of each received request */
+    private Vector<String> received = new Vector<String>();
+
+    @Before
+    public void start() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", ex -> {
+            String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String tag = ex.getRequestHeaders().getFirst("If-None-Match");
+            synchronized(received)
+            {
+                String override = ex.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+                received.add(ex.getRequestMethod() + " " + ex.getRequestURI().getRawQuery() + " " + body + " " + tag
+                        + ((null != override) ? " " + override : ""));
+            }
+            ex.getResponseHeaders().add("ETag", "\"v1\"");
+            if("\"v1\"".equals(tag))
+            {
+                ex.sendResponseHeaders(304, -1);
+                ex.close();
+                return;
+            }
+            byte[] out = "[{\"id\":7, \"name\":\"ACME\"}]".getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(200, out.length);
+            ex.getResponseBody().write(out);
+            ex.close();
+        });
+        server.createContext("/gz/", ex -> {
+            InputStream in = ex.getRequestBody();
+            String encoding = ex.getRequestHeaders().getFirst("Content-Encoding");
+            if(true == "gzip".equals(encoding))
+            {
+                in = new GZIPInputStream(in);
+            }
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            synchronized(received)
+            {
+                received.add(encoding + " " + body + " " + ex.getRequestHeaders().getFirst("Accept-Encoding"));
+            }
+            StringBuilder sb = new StringBuilder("[");
+            for(int i = 0; i < 50; i++)
+            {
+                sb.append("{\"id\":" + i + ", \"description\":\"some long and repeated description\"},");
+            }
+            sb.append("{\"id\":50}]");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try(GZIPOutputStream gz = new GZIPOutputStream(out))
+            {
+                gz.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            ex.getResponseHeaders().add("Content-Encoding", "gzip");
+            ex.sendResponseHeaders(200, out.size());
+            ex.getResponseBody().write(out.toByteArray());
+            ex.close();
+        });
+        server.start();
+        cut = new HttpRestServer("http://localhost:" + server.getAddress().getPort() + "/", null, null);
+    }
+
+    @After
+    public void stop()
+    {
+        cut.close();
+        server.stop(0);
+    }
+
+    private Request getVendor()
+    {
+        Request req = new Request("vendor", Request.GET);
+        req.addPostParameter("name", "ACME");
+        return req;
+    }
+
+    @Test
+    public void testTunneledMethod()
+    {
+        Response res = cut.execute(getVendor());
+        assertEquals(7, res.getInt("id"));
+        assertEquals("POST null REQUEST_METHOD=GET&name=ACME null", received.get(0));
+    }
+
+    @Test
+    public void testNativeMethodsAndETag()
+    {
+        cut.setNativeMethods(true);
+        assertEquals(7, cut.execute(getVendor()).getInt("id"));
+        // second request is answered with 304 -> data comes from the first response
+        Response res = cut.execute(getVendor());
+        assertEquals("ACME", res.getString("name"));
+        Request put = new Request("vendor", Request.PUT);
+        put.addPostParameter("id", 7);
+        put.addPostParameter("url", "http://acme.com");
+        cut.execute(put);
+        assertEquals("GET name=ACME  null", received.get(0));
+        assertEquals("GET name=ACME  \"v1\"", received.get(1));
+        assertEquals("PUT null id=7&url=http%3A%2F%2Facme.com null", received.get(2));
+    }
+
+    @Test
+    public void testPatch()
+    {
+        Request patch = new Request("vendor", Request.PATCH);
+        patch.addPostParameter("id", 7);
+        assertEquals(7, cut.execute(patch).getInt("id"));
+        cut.setNativeMethods(true);
+        assertEquals(7, cut.execute(patch).getInt("id"));
+        assertEquals("POST null REQUEST_METHOD=PATCH&id=7 null", received.get(0));
+        assertEquals("POST null id=7 null PATCH", received.get(1));
+    }
+
+    @Test
+    public void testETagByteLimit()
+    {
+        cut.setNativeMethods(true);
+        // the response has 25 bytes
+        cut.setMaxETagBytes(30);
+        cut.execute(getVendor());
+        Request other = new Request("vendor", Request.GET);
+        other.addPostParameter("name", "OTHER");
+        cut.execute(other);
+        // the first response has been dropped -> no If-None-Match
+        cut.execute(getVendor());
+        assertEquals("GET name=ACME  null", received.get(2));
+        assertTrue(cut.getStatus(), cut.getStatus().contains("ETag : 0 responses not modified, 1 entries with 25 bytes"));
+    }
+
+    @Test
+    public void testCompression()
+    {
+        HttpRestServer zipped = new HttpRestServer("http://localhost:" + server.getAddress().getPort() + "/gz/", null, null);
+        zipped.setRequestCompression(20);
+        Request small = new Request("field", Request.GET);
+        small.addPostParameter("id", 3);
+        Response res = zipped.execute(small);
+        assertEquals(51, res.numResults());
+        assertEquals("some long and repeated description", res.getString(49, "description"));
+        Request big = new Request("field", Request.POST);
+        big.addPostParameter("description", "some long and repeated description, some long and repeated description");
+        assertEquals(0, zipped.execute(big).getInt("id"));
+        zipped.close();
+        assertEquals("null REQUEST_METHOD=GET&id=3 gzip, deflate", received.get(0));
+        assertTrue(received.get(1), received.get(1).startsWith("gzip REQUEST_METHOD=POST&description=some"));
+        String status = zipped.getStatus();
+        assertTrue(status, status.contains("(1 compressed, ratio"));
+        assertTrue(status, status.contains("(2 compressed, ratio"));
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ImportPlanTest
+{
+    /** creates entries with increasing ids, fails for entries named "FAIL". */
+    private class CreatingServer extends FakeServer
+    {
+        public CreatingServer()
+        {
+            super(100);
+        }
+
+        @Override
+        protected Response answer(Request req)
+        {
+            if(true == "FAIL".equals(req.getParameter("name")))
+            {
+                Response res = new Response();
+                res.setError("failed");
+                return res;
+            }
+            return created(req);
+        }
+    }
+
+    @Test
+    public void testDependencies()
+    {
+        // existing peripheral with a new register and a changed field of an existing register
+        ChangeSet first = new ChangeSet();
+        Change uart = first.add(Change.existing("peripheral", "UART", 7));
+        Change reg = uart.addChild(Change.create("register", "CR", "per_id"));
+        reg.set("name", "CR");
+        Change field = reg.addChild(Change.create("field", "EN", "reg_id"));
+        field.set("name", "EN");
+        Change sr = uart.addChild(Change.existing("register", "SR", 8));
+        Change busy = sr.addChild(Change.existing("field", "BUSY", 9));
+        busy.change("size_bit", 1, 2);
+        // new peripheral and a derived instance of it
+        ChangeSet second = new ChangeSet();
+        Change spi = second.add(Change.create("peripheral", "SPI", null));
+        spi.set("group_name", "SPI");
+        ChangeSet third = new ChangeSet();
+        Change spi1 = third.add(Change.create("peripheral_instance", "SPI1", "peripheral_id"));
+        spi1.set("name", "SPI1");
+        spi1.dependsOn(spi, "peripheral_id");
+
+        ImportPlan cut = new ImportPlan();
+        cut.add(first);
+        cut.add(second);
+        cut.add(third);
+        assertFalse(cut.isEmpty());
+        CreatingServer srv = new CreatingServer();
+        assertTrue(cut.execute(srv, 1));
+        assertEquals(5, srv.requests.size());
+        // step 1: CR, BUSY, SPI - step 2: EN, SPI1
+        assertEquals(2, cut.getNumberOfSteps());
+        assertEquals("" + reg.getId(), field.getValue("reg_id"));
+        assertEquals("" + spi.getId(), spi1.getValue("peripheral_id"));
+        assertTrue(0 != spi1.getId());
+        srv.close();
+    }
+
+    @Test
+    public void testFailedEntry()
+    {
+        ChangeSet changes = new ChangeSet();
+        Change per = changes.add(Change.create("peripheral", "FAIL", null));
+        per.set("name", "FAIL");
+        per.addChild(Change.create("register", "CR", "per_id")).set("name", "CR");
+        Change other = changes.add(Change.create("peripheral", "SPI", null));
+        other.set("name", "SPI");
+        Change instance = changes.add(Change.create("peripheral_instance", "UART0", "peripheral_id"));
+        instance.dependsOn(per, "peripheral_id");
+
+        ImportPlan cut = new ImportPlan();
+        cut.add(changes);
+        CreatingServer srv = new CreatingServer();
+        assertFalse(cut.execute(srv, 1));
+        // the register and the instance need the failed peripheral
+        assertEquals(2, srv.requests.size());
+        assertEquals(0, instance.getId());
+        assertTrue(0 != other.getId());
+        srv.close();
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void testEmpty()
+    {
+        LatencyHistogram cut = new LatencyHistogram();
+        assertEquals(0, cut.getCount());
+        assertEquals(0, cut.getMin());
+        assertEquals(0, cut.getValueAtPercentile(99.0));
+    }
+
+    @Test
+    public void testSmallValuesAreExact()
+    {
+        LatencyHistogram cut = new LatencyHistogram();
+        for(int i = 1; i <= 10; i++)
+        {
+            cut.record(i);
+        }
+        assertEquals(5, cut.getValueAtPercentile(50.0));
+        assertEquals(9, cut.getValueAtPercentile(90.0));
+        assertEquals(10, cut.getValueAtPercentile(99.9));
+        assertEquals(1, cut.getValueAtPercentile(0.0));
+    }
+
+    @Test
+    public void testPercentiles()
+    {
+        LatencyHistogram cut = new LatencyHistogram();
+        for(int i = 1; i <= 100000; i++)
+        {
+            cut.record(i);
+        }
+        assertEquals(100000, cut.getCount());
+        assertEquals(1, cut.getMin());
+        assertEquals(100000, cut.getMax());
+        long[] expected = {50000, 90000, 99000, 99900};
+        double[] percentiles = {50.0, 90.0, 99.0, 99.9};
+        for(int i = 0; i < expected.length; i++)
+        {
+            long value = cut.getValueAtPercentile(percentiles[i]);
+            // never too low, at most 1/16 too high
+            assertTrue(value + " for p" + percentiles[i], value >= expected[i]);
+            assertTrue(value + " for p" + percentiles[i], value <= expected[i] + expected[i] / 16);
+        }
+    }
+
+    @Test
+    public void testOutlier()
+    {
+        LatencyHistogram cut = new LatencyHistogram();
+        for(int i = 0; i < 999; i++)
+        {
+            cut.record(1000);
+        }
+        cut.record(Long.MAX_VALUE);
+        assertTrue(1000 <= cut.getValueAtPercentile(99.0));
+        assertTrue(1063 >= cut.getValueAtPercentile(99.0));
+        assertEquals(Long.MAX_VALUE, cut.getValueAtPercentile(100.0));
+    }
+
+}
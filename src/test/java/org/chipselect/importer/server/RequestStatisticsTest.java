@@ -0,0 +1,76 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class RequestStatisticsTest
+{
+    @Test
+    public void testPerResource()
+    {
+        RequestStatistics cut = new RequestStatistics();
+        Request put = new Request("field", Request.PUT);
+        Request get = new Request("register", Request.GET);
+        for(int i = 1; i <= 10; i++)
+        {
+            cut.countRequest(Request.PUT);
+            cut.recordRequest(put, i * 1000000L, 100, 10, 10 == i);
+        }
+        cut.countRequest(Request.GET);
+        cut.recordRequest(get, 2000000L, 0, 500, false);
+        String status = cut.getStatus(false);
+        assertTrue(status, status.contains("PUT : 10 Requests (1/5/10)"));
+        // percentiles are the upper end of the bucket
+        assertTrue(status, status.contains("PUT field : 10 Requests (5.1/9.2/10.0/10.0) 1000 bytes out, 100 bytes in, 1 errors"));
+        assertTrue(status, status.contains("GET register : 1 Requests"));
+        JSONArray json = new JSONObject(cut.toJson()).getJSONArray("requests");
+        assertEquals(2, json.length());
+        JSONObject field = json.getJSONObject(0);
+        assertEquals("field", field.getString("resource"));
+        assertEquals("PUT", field.getString("method"));
+        assertEquals(10, field.getLong("requests"));
+        assertEquals(1, field.getLong("errors"));
+        assertEquals(1000, field.getLong("bytes_out"));
+        assertEquals(10000, field.getLong("max_us"));
+        assertEquals("register", json.getJSONObject(1).getString("resource"));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException
+    {
+        final RequestStatistics cut = new RequestStatistics();
+        final Request put = new Request("field", Request.PUT);
+        Thread[] threads = new Thread[16];
+        for(int t = 0; t < threads.length; t++)
+        {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for(int i = 1; i <= 10000; i++)
+                {
+                    cut.countRequest(Request.PUT);
+                    cut.recordRequest(put, (i + offset) * 1000000L, 1, 2, 0 == i % 100);
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread t : threads)
+        {
+            t.join();
+        }
+        JSONObject field = new JSONObject(cut.toJson()).getJSONArray("requests").getJSONObject(0);
+        assertEquals(160000, field.getLong("requests"));
+        assertEquals(1600, field.getLong("errors"));
+        assertEquals(160000, field.getLong("bytes_out"));
+        assertEquals(320000, field.getLong("bytes_in"));
+        assertEquals(1000, field.getLong("min_us"));
+        assertEquals(10015000, field.getLong("max_us"));
+        String status = cut.getStatus(false);
+        assertTrue(status, status.contains("PUT : 160000 Requests (1/"));
+        assertTrue(status, status.contains("/10015)"));
+    }
+
+}
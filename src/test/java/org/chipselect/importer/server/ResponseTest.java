@@ -0,0 +1,141 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.Test;
+
+public class ResponseTest
+{
+    private Response responseFor(String json) throws IOException
+    {
+        Response res = new Response();
+        res.readFrom(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        return res;
+    }
+
+    @Test
+    public void testGetIndexFor() throws IOException
+    {
+        Response cut = responseFor("[{\"id\":1, \"name\":\"CTRL\"}, {\"id\":2, \"name\":\" STATUS \"}, {\"id\":3, \"name\":\"CTRL\"}]");
+        assertEquals(0, cut.getIndexFor("name", "CTRL"));
+        assertEquals(1, cut.getIndexFor("name", "STATUS"));
+        assertEquals(-1, cut.getIndexFor("name", "DATA"));
+        assertEquals(-1, cut.getIndexFor("name", null));
+        assertEquals(2, cut.getIndexesFor("name", "CTRL").size());
+        assertEquals(2, (int)cut.getIndexesFor("name", "CTRL").get(1));
+    }
+
+    @Test
+    public void testGetIndexesForNumber() throws IOException
+    {
+        Response cut = responseFor("[{\"id\":1, \"address_offset\":\"0x10\"}, {\"id\":2, \"address_offset\":16}, {\"id\":3, \"address_offset\":\"0\"}]");
+        assertEquals(2, cut.getIndexesFor("address_offset", 16).size());
+        assertEquals(1, cut.getIndexesFor("address_offset", 0).size());
+        assertEquals(0, cut.getIndexesFor("address_offset", 4).size());
+    }
+
+    @Test
+    public void testAddResultUpdatesIndex() throws IOException
+    {
+        Response cut = responseFor("[{\"id\":1, \"name\":\"UART0\"}]");
+        assertEquals(-1, cut.getIndexFor("name", "UART1"));
+        LinkedHashMap<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("id", 2);
+        values.put("name", "UART1");
+        values.put("description", null);
+        cut.addResult(values);
+        assertEquals(1, cut.getIndexFor("name", "UART1"));
+        assertEquals(2, cut.getInt(1, "id"));
+        assertEquals("", cut.getString(1, "description"));
+    }
+
+    @Test
+    public void testTypedGetters() throws IOException
+    {
+        Response cut = responseFor("[{\"id\":1, \"size\":\"0x20\", \"reset\":\"0xffffffff\", \"name\":\"CTRL\", \"description\":null},"
+                                  + " {\"id\":\"2\", \"size\":32, \"reset\":0, \"name\":12}]");
+        assertEquals(1, cut.getInt(0, "id"));
+        assertEquals(2, cut.getInt(1, "id"));
+        assertEquals(32, cut.getInt(0, "size"));
+        assertEquals(32, cut.getInt(1, "size"));
+        assertEquals(0xffffffffL, cut.getLong(0, "reset"));
+        assertEquals(0, cut.getLong(1, "reset"));
+        assertEquals("CTRL", cut.getString(0, "name"));
+        assertEquals("12", cut.getString(1, "name"));
+        assertEquals("0x20", cut.getString(0, "size"));
+        assertEquals("", cut.getString(0, "description"));
+        assertEquals("", cut.getString(1, "description"));
+        assertEquals(0, cut.getInt(1, "description"));
+    }
+
+    @Test
+    public void testGetStringIsNotEscaped() throws IOException
+    {
+        Response cut = responseFor("[{\"id\":1, \"description\":\"first \\\\nsecond &quot;line&quot; \\\"x\\\"\"}]");
+        assertEquals("first \\nsecond &quot;line&quot; \"x\"", cut.getString(0, "description"));
+        assertEquals(0, cut.getIndexFor("description", "first \\nsecond &quot;line&quot; \"x\""));
+    }
+
+    @Test
+    public void testReadFromUnquotedKeys() throws IOException
+    {
+        // the dry run mode uses this
+        Response cut = responseFor("[{id : 1}]\n");
+        assertEquals(1, cut.numResults());
+        assertEquals(1, cut.getInt("id"));
+    }
+
+    @Test
+    public void testCreatedEntry() throws IOException
+    {
+        Request post = new Request("register", Request.POST);
+        post.addPostParameter("name", "CTRL");
+        post.addPostParameter("size", 32);
+        post.addPostParameter("per_id", 7);
+        // server only sends the id
+        Response cut = responseFor("[{\"id\":\"5\"}]").getCreatedEntry(post, "description");
+        assertEquals(1, cut.numResults());
+        assertEquals(5, cut.getInt("id"));
+        assertEquals("CTRL", cut.getString("name"));
+        assertEquals(32, cut.getInt("size"));
+        assertEquals(7, cut.getInt("per_id"));
+        assertEquals("", cut.getString("description"));
+        // server sends the entry back
+        cut = responseFor("[{\"id\":5, \"name\":\"CTRL\", \"size\":\"0x20\", \"access\":\"read-write\"}]").getCreatedEntry(post);
+        assertEquals("read-write", cut.getString("access"));
+        assertEquals("0x20", cut.getString("size"));
+        // server sends nothing
+        assertNull(responseFor("[]").getCreatedEntry(post));
+        assertNull(responseFor("[{\"name\":\"CTRL\"}]").getCreatedEntry(post));
+    }
+
+    @Test
+    public void testCompressedData() throws IOException
+    {
+        byte[] json = "[{\"id\":5, \"name\":\"CTRL\"}]".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        try(DeflaterOutputStream out = new DeflaterOutputStream(deflated))
+        {
+            out.write(json);
+        }
+        Response cut = new Response();
+        cut.readFrom(new ByteArrayInputStream(deflated.toByteArray()), "deflate");
+        assertEquals("CTRL", cut.getString("name"));
+        assertEquals(json.length, cut.getNumberOfBytes());
+        cut = new Response();
+        cut.readFrom(new ByteArrayInputStream(Compression.gzip(json)), "gzip");
+        assertEquals(5, cut.getInt("id"));
+        cut = new Response();
+        cut.readFrom(new ByteArrayInputStream(json), null);
+        assertEquals(5, cut.getInt("id"));
+    }
+
+}
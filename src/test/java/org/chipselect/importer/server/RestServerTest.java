@@ -0,0 +1,60 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class RestServerTest
+{
+    private class SlowServer extends FakeServer
+    {
+        public AtomicInteger running = new AtomicInteger(0);
+        public AtomicInteger maxRunning = new AtomicInteger(0);
+
+        @Override
+        protected Response answer(Request req)
+        {
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            try
+            {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e)
+            {
+                // ignore
+            }
+            running.decrementAndGet();
+            return new Response();
+        }
+    }
+
+    @Test
+    public void testExecuteAsync()
+    {
+        SlowServer cut = new SlowServer();
+        Response res = cut.executeAsync(new Request("vendor", Request.GET)).join();
+        assertTrue(res.wasSuccessfull());
+        cut.close();
+    }
+
+    @Test
+    public void testMaxRequestsInFlight()
+    {
+        SlowServer cut = new SlowServer();
+        cut.setMaxRequestsInFlight(3);
+        Vector<CompletableFuture<Response>> all = new Vector<CompletableFuture<Response>>();
+        for(int i = 0; i < 20; i++)
+        {
+            all.add(cut.executeAsync(new Request("vendor", Request.GET)));
+        }
+        CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).join();
+        assertEquals(3, cut.maxRunning.get());
+        cut.close();
+    }
+}
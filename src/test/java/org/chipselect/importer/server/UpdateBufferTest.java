@@ -0,0 +1,36 @@
+package org.chipselect.importer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class UpdateBufferTest
+{
+    @Test
+    public void testOneRequestPerEntry()
+    {
+        FakeServer srv = new FakeServer();
+        UpdateBuffer cut = new UpdateBuffer(srv);
+        cut.update("microcontroller", "name", "chip", "description", "a chip");
+        cut.update("microcontroller", "name", "chip", "bus_width_bit", 32);
+        cut.update("microcontroller", "name", "chip", "description", "the chip");
+        cut.update("microcontroller", "name", "other", "bus_width_bit", 16);
+        cut.update("microcontroller", "name", "chip", "architecture_id", null);
+        assertEquals(0, srv.requests.size());
+        assertTrue(cut.flush());
+        assertEquals(2, srv.requests.size());
+        Request first = srv.requests.get(0);
+        assertEquals(Request.PUT, first.getType());
+        assertEquals("chip", first.getParameter("name"));
+        assertEquals("the chip", first.getParameter("description"));
+        assertEquals("32", first.getParameter("bus_width_bit"));
+        assertEquals(3, first.getNumberOfParameters());
+        assertEquals("other", srv.requests.get(1).getParameter("name"));
+        // nothing left
+        assertTrue(cut.flush());
+        assertEquals(2, srv.requests.size());
+        srv.close();
+    }
+
+}